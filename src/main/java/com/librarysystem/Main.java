@@ -1,10 +1,19 @@
 package com.librarysystem;
 
+import com.librarysystem.config.AppConfig;
 import com.librarysystem.db.DatabaseUtil;
 import com.librarysystem.model.User;
+import com.librarysystem.service.AsyncLogWriter;
+import com.librarysystem.service.ActiveLoanCache;
+import com.librarysystem.service.CatalogCache;
+import com.librarysystem.service.IsbnFilter;
+import com.librarysystem.service.IsbnLocks;
+import com.librarysystem.service.ServiceExecutor;
+import com.librarysystem.service.UserCache;
 import com.librarysystem.service.BookService;
 import com.librarysystem.ui.LoginController;
 import com.librarysystem.ui.MainAppController; // Will be created next
+import com.librarysystem.ui.UiTaskRunner;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -29,15 +38,24 @@ public class Main extends Application {
 
         // Initialize Database Schema & Populate Books
         try {
-            LOGGER.info("Initializing database schema...");
-            DatabaseUtil.initializeSchema(); // Make sure DB is up and schema.sql is runnable
-            LOGGER.info("Database schema initialization attempted.");
+            LOGGER.info("Checking database schema version...");
+            DatabaseUtil.initializeSchema(); // Applies pending migrations only; a single query when current
 
             LOGGER.info("Populating sample books if database is empty...");
             BookService bookService = new BookService(); // Create BookService instance
+            if (AppConfig.get().getBoolean("filter.isbn.enabled", true)) {
+                bookService.loadIsbnFilter(); // Reads only the ISBN column; lets duplicate checks skip the database
+            }
             bookService.populateDatabaseWithSampleBooksIfEmpty();
             LOGGER.info("Sample book population attempted.");
 
+            if (AppConfig.get().getBoolean("search.index.enabled", true)) {
+                // Built in the background so a large catalog does not delay the login screen
+                Thread indexBuilder = new Thread(bookService::rebuildSearchIndex, "search-index-builder");
+                indexBuilder.setDaemon(true);
+                indexBuilder.start();
+            }
+
         } catch (Exception e) {
             LOGGER.error("Error during initial database setup: {}", e.getMessage(), e);
             // Optionally show an error dialog to the user
@@ -87,6 +105,20 @@ public class Main extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        LOGGER.info("Application stopping, flushing audit log and releasing database connections...");
+        CatalogCache.shared().logStats();
+        UserCache.shared().logStats();
+        ActiveLoanCache.shared().logStats();
+        IsbnFilter.shared().logStats();
+        IsbnLocks.shared().logStats();
+        UiTaskRunner.shutdownShared(); // Lets a running borrow or save finish first
+        ServiceExecutor.shutdownShared();
+        AsyncLogWriter.shutdownShared(); // Needs the database, so before the pools close
+        DatabaseUtil.shutdown();
+    }
+
     public User getCurrentUser() {
         return currentUser;
     }
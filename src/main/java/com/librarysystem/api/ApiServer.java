@@ -0,0 +1,589 @@
+package com.librarysystem.api;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.dao.DataAccessException;
+import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.LoanDetails;
+import com.librarysystem.model.User;
+import com.librarysystem.service.ActiveLoanCache;
+import com.librarysystem.service.AsyncLogWriter;
+import com.librarysystem.service.BookService;
+import com.librarysystem.service.CatalogCache;
+import com.librarysystem.service.IsbnFilter;
+import com.librarysystem.service.IsbnLocks;
+import com.librarysystem.service.LibraryService;
+import com.librarysystem.service.ServiceExecutor;
+import com.librarysystem.service.UserCache;
+import com.librarysystem.service.UserService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless HTTP/JSON front end for self-checkout kiosks and the web catalog, on the JDK's built-in HTTP server.
+ * Start it with {@link #main(String[])}; it is configured from the {@code api.*} keys.
+ *
+ * <pre>
+ * GET    /api/books?q=text&amp;limit=20   Books whose title, author or ISBN contains the text (fuzzy=true tolerates typos)
+ * GET    /api/books/{isbn}             One book
+ * POST   /api/login                    username, password: returns a session token (rate limited per client)
+ * GET    /api/loans                    The signed-in user's active loans
+ * POST   /api/loans                    isbn: borrows the book for the signed-in user
+ * DELETE /api/loans/{isbn}             Returns the book
+ * GET    /api/metrics                  Request counts and latency percentiles per endpoint (admins only)
+ * </pre>
+ *
+ * Parameters come from the query string or a form-encoded body; responses are JSON, errors {"error": "..."}.
+ * The loan and metrics endpoints need an {@code Authorization: Bearer <token>} header. A token expires after
+ * {@code api.session.ttlMillis} without requests. A client making more than {@code api.login.maxAttemptsPerMinute}
+ * login attempts in a minute gets 429 until the minute is over.
+ *
+ * The server's dispatcher thread only accepts connections and reads requests; handlers run on the worker
+ * executor. An idle keep-alive connection costs no worker thread, so hundreds of kiosks can stay connected to a
+ * node with a few dozen workers.
+ */
+public class ApiServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiServer.class);
+
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final long LOGIN_WINDOW_MILLIS = 60_000;
+    private static final String UNMATCHED_ROUTE = "unmatched";
+    private static final Set<String> ROUTES = Set.of("GET /api/books", "GET /api/books/{isbn}", "POST /api/login",
+            "GET /api/loans", "POST /api/loans", "DELETE /api/loans/{isbn}", "GET /api/metrics");
+
+    private final BookService bookService;
+    private final LibraryService libraryService;
+    private final UserService userService;
+    private final ExecutorService workers;
+    private final long sessionTtlMillis;
+    private final int loginAttemptsPerMinute;
+    private final LatencyMetrics metrics = new LatencyMetrics();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, LoginWindow> loginWindows = new ConcurrentHashMap<>(); // By client address
+    private final SecureRandom tokenRandom = new SecureRandom();
+    private HttpServer server;
+
+    private static final class Session {
+        final User user;
+        volatile long expiresAt;
+
+        Session(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Login attempts of one client in the minute starting at startedAt
+    private static final class LoginWindow {
+        final long startedAt;
+        final AtomicInteger attempts = new AtomicInteger();
+
+        LoginWindow(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Failure reported to the client with the given status.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+        final String headerName;
+        final String headerValue;
+
+        ApiException(int status, String message) {
+            this(status, message, null, null);
+        }
+
+        // With a response header the client needs to act on the status, e.g. Allow for 405
+        ApiException(int status, String message, String headerName, String headerValue) {
+            super(message);
+            this.status = status;
+            this.headerName = headerName;
+            this.headerValue = headerValue;
+        }
+    }
+
+    private static final class Reply {
+        final int status;
+        final Object body;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * @param workers Runs the request handlers; the server shuts it down on {@link #close()}.
+     * @param sessionTtlMillis How long a session token stays valid after its last request.
+     * @param loginAttemptsPerMinute Login attempts allowed per client address and minute.
+     */
+    public ApiServer(BookService bookService, LibraryService libraryService, UserService userService,
+                     ExecutorService workers, long sessionTtlMillis, int loginAttemptsPerMinute) {
+        this.bookService = bookService;
+        this.libraryService = libraryService;
+        this.userService = userService;
+        this.workers = workers;
+        this.sessionTtlMillis = sessionTtlMillis;
+        this.loginAttemptsPerMinute = loginAttemptsPerMinute;
+    }
+
+    /**
+     * Starts listening. Use port 0 for any free port; {@link #getPort()} tells which.
+     *
+     * @param backlog Connections the operating system queues while the server is busy accepting.
+     */
+    public synchronized void start(InetSocketAddress address, int backlog) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("API server already started");
+        }
+        server = HttpServer.create(address, backlog);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+        LOGGER.info("API server listening on port {}.", getPort());
+    }
+
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns request counts and latency percentiles per endpoint, as served by {@code GET /api/metrics}.
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        return metrics.snapshot();
+    }
+
+    public void logMetrics() {
+        metrics.logSummary(LOGGER);
+    }
+
+    /**
+     * Stops accepting requests, waits up to two seconds for running ones, then stops the workers.
+     */
+    @Override
+    public void close() {
+        stop(2);
+    }
+
+    /**
+     * Stops accepting requests, waits up to {@code delaySeconds} for running ones, then stops the workers.
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+            server = null;
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warn("API requests still running after 10 seconds; abandoning them.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) {
+        long start = System.nanoTime();
+        String route = UNMATCHED_ROUTE;
+        Reply reply;
+        try {
+            List<String> path = pathSegments(exchange.getRequestURI().getRawPath());
+            route = routeOf(exchange.getRequestMethod(), path);
+            reply = dispatch(route, path, exchange);
+        } catch (ApiException e) {
+            reply = error(e.status, e.getMessage());
+            if (e.headerName != null) {
+                reply.headers.put(e.headerName, e.headerValue);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("{}: could not read the request body.", route, e);
+            reply = error(400, "Could not read the request body");
+        } catch (DataAccessException e) {
+            LOGGER.error("{} failed: database error.", route, e);
+            reply = error(503, "Database unavailable, please try again");
+        } catch (RuntimeException e) {
+            LOGGER.error("{} failed.", route, e);
+            reply = error(500, "Internal error");
+        }
+        try {
+            send(exchange, reply);
+        } catch (IOException e) {
+            LOGGER.debug("{}: could not send the response, the client has gone.", route, e);
+        } finally {
+            exchange.close();
+            metrics.record(route, reply.status, System.nanoTime() - start);
+        }
+    }
+
+    private Reply dispatch(String route, List<String> path, HttpExchange exchange) throws IOException {
+        if (route.equals(UNMATCHED_ROUTE)) {
+            String endpoint = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+            List<String> allowed = allowedMethods(path);
+            if (!allowed.isEmpty()) {
+                throw new ApiException(405, "Method not allowed: " + endpoint, "Allow", String.join(", ", allowed));
+            }
+            throw new ApiException(404, "No such endpoint: " + endpoint);
+        }
+        Map<String, String> parameters = parameters(exchange);
+        switch (route) {
+            case "GET /api/books":
+                return searchBooks(parameters);
+            case "GET /api/books/{isbn}":
+                return findBook(path.get(1));
+            case "POST /api/login":
+                return login(exchange, parameters);
+            case "GET /api/loans":
+                return loans(authenticate(exchange));
+            case "POST /api/loans":
+                return borrow(authenticate(exchange), required(parameters, "isbn"));
+            case "DELETE /api/loans/{isbn}":
+                return giveBack(authenticate(exchange), path.get(1));
+            case "GET /api/metrics":
+                if (authenticate(exchange).getRole() != User.Role.ADMIN) {
+                    throw new ApiException(403, "Only administrators can read the metrics");
+                }
+                return new Reply(200, metrics.snapshot());
+            default:
+                throw new IllegalStateException("Route without a handler: " + route);
+        }
+    }
+
+    private Reply searchBooks(Map<String, String> parameters) {
+        String text = required(parameters, "q");
+        int limit = DEFAULT_SEARCH_LIMIT;
+        if (parameters.containsKey("limit")) {
+            try {
+                limit = Integer.parseInt(parameters.get("limit"));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "limit must be a number");
+            }
+            if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+                throw new ApiException(400, "limit must be between 1 and " + MAX_SEARCH_LIMIT);
+            }
+        }
+        List<Book> books = Boolean.parseBoolean(parameters.get("fuzzy"))
+                ? bookService.findBooksFuzzy(text, limit)
+                : bookService.findBooksContaining(text, limit);
+        List<Map<String, Object>> results = new ArrayList<>(books.size());
+        for (Book book : books) {
+            results.add(toJson(book));
+        }
+        return new Reply(200, Collections.singletonMap("books", results));
+    }
+
+    private Reply findBook(String isbn) {
+        Optional<Book> book = bookService.findBookByIsbn(isbn);
+        return book.map(found -> new Reply(200, toJson(found)))
+                .orElseGet(() -> error(404, "No book with ISBN " + isbn));
+    }
+
+    private Reply login(HttpExchange exchange, Map<String, String> parameters) {
+        checkLoginRate(exchange.getRemoteAddress().getAddress().getHostAddress());
+        Optional<User> user = userService.loginUser(required(parameters, "username"), required(parameters, "password"));
+        if (!user.isPresent()) {
+            return error(401, "Incorrect username or password");
+        }
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt < now);
+        byte[] tokenBytes = new byte[24];
+        tokenRandom.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        sessions.put(token, new Session(user.get(), now + sessionTtlMillis));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("token", token);
+        body.put("userId", user.get().getUserId());
+        body.put("username", user.get().getUsername());
+        body.put("role", user.get().getRole());
+        return new Reply(200, body);
+    }
+
+    private Reply loans(User user) {
+        List<Map<String, Object>> loans = new ArrayList<>();
+        for (LoanDetails loan : libraryService.getActiveLoanDetails(user.getUserId())) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("borrowId", loan.getRecord().getBorrowId());
+            json.put("isbn", loan.getIsbn());
+            json.put("title", loan.getTitle());
+            json.put("author", loan.getAuthor());
+            json.put("borrowDate", loan.getRecord().getBorrowDate());
+            json.put("dueDate", loan.getRecord().getDueDate());
+            loans.add(json);
+        }
+        return new Reply(200, Collections.singletonMap("loans", loans));
+    }
+
+    private Reply borrow(User user, String isbn) {
+        if (!libraryService.borrowBook(user.getUserId(), isbn)) {
+            return error(409, "Could not borrow ISBN " + isbn + ": it is unknown, has no copy available, or is already on loan to you");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("isbn", isbn);
+        body.put("borrowed", true);
+        return new Reply(201, body);
+    }
+
+    private Reply giveBack(User user, String isbn) {
+        if (!libraryService.returnBook(user.getUserId(), isbn)) {
+            return error(409, "Could not return ISBN " + isbn + ": you have no active loan of it");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("isbn", isbn);
+        body.put("returned", true);
+        return new Reply(200, body);
+    }
+
+    /**
+     * Counts a login attempt of the client, failing with 429 once it has used up this minute's attempts.
+     */
+    private void checkLoginRate(String client) {
+        long now = System.currentTimeMillis();
+        loginWindows.values().removeIf(window -> now - window.startedAt >= LOGIN_WINDOW_MILLIS);
+        LoginWindow window = loginWindows.computeIfAbsent(client, key -> new LoginWindow(now));
+        if (window.attempts.incrementAndGet() > loginAttemptsPerMinute) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(window.startedAt + LOGIN_WINDOW_MILLIS - now + 999));
+            LOGGER.warn("Login attempts from {} exceed {} per minute; refusing for {}s.", client, loginAttemptsPerMinute, retryAfterSeconds);
+            throw new ApiException(429, "Too many login attempts, please try again later",
+                    "Retry-After", String.valueOf(retryAfterSeconds));
+        }
+    }
+
+    private User authenticate(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new ApiException(401, "Sign in first (POST /api/login) and send the token as 'Authorization: Bearer <token>'");
+        }
+        Session session = sessions.get(authorization.substring("Bearer ".length()).trim());
+        long now = System.currentTimeMillis();
+        if (session == null || session.expiresAt < now) {
+            throw new ApiException(401, "Session expired, please sign in again");
+        }
+        session.expiresAt = now + sessionTtlMillis;
+        return session.user;
+    }
+
+    private static Map<String, Object> toJson(Book book) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("isbn", book.getIsbn());
+        json.put("title", book.getTitle());
+        json.put("author", book.getAuthor());
+        json.put("publicationYear", book.getPublicationYear() != null ? book.getPublicationYear().getValue() : null);
+        json.put("genre", book.getGenre());
+        json.put("totalCopies", book.getTotalCopies());
+        json.put("availableCopies", book.getAvailableCopies());
+        return json;
+    }
+
+    private static Reply error(int status, String message) {
+        return new Reply(status, Collections.singletonMap("error", message));
+    }
+
+    private static void send(HttpExchange exchange, Reply reply) throws IOException {
+        byte[] body = Json.write(reply.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        reply.headers.forEach(exchange.getResponseHeaders()::set);
+        exchange.sendResponseHeaders(reply.status, body.length); // A fixed length lets the client reuse the connection
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Returns the path below /api/, decoded, e.g. ["books", "978..."].
+     */
+    private static List<String> pathSegments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.substring("/api/".length()).split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(decode(segment, "path"));
+            }
+        }
+        return segments;
+    }
+
+    private static String routeOf(String method, List<String> path) {
+        String route = method + " " + templateOf(path);
+        return ROUTES.contains(route) ? route : UNMATCHED_ROUTE; // Keeps the metrics to a fixed set of names
+    }
+
+    private static String templateOf(List<String> path) {
+        if (path.size() == 1) {
+            return "/api/" + path.get(0);
+        } else if (path.size() == 2) {
+            return "/api/" + path.get(0) + "/{isbn}";
+        }
+        return null;
+    }
+
+    /**
+     * Methods some route accepts for the path, for the Allow header of a 405.
+     */
+    private static List<String> allowedMethods(List<String> path) {
+        List<String> allowed = new ArrayList<>();
+        String template = templateOf(path);
+        for (String route : ROUTES) {
+            int space = route.indexOf(' ');
+            if (route.substring(space + 1).equals(template)) {
+                allowed.add(route.substring(0, space));
+            }
+        }
+        Collections.sort(allowed);
+        return allowed;
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), parameters);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (body.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                parseForm(new String(body, StandardCharsets.UTF_8), parameters);
+            }
+        }
+        return parameters;
+    }
+
+    private static void parseForm(String form, Map<String, String> parameters) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(decode(name, "parameter name"), decode(value, "parameter value"));
+        }
+    }
+
+    private static String decode(String encoded, String what) {
+        try {
+            return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Malformed " + what + ": " + e.getMessage());
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new ApiException(400, "Missing parameter '" + name + "'");
+        }
+        return value.trim();
+    }
+
+    /**
+     * Creates the worker executor configured from {@code api.server.*} keys: a fixed pool of platform threads,
+     * or with {@code api.server.virtualThreads} on Java 21+, a virtual thread per request.
+     */
+    static ExecutorService createWorkers(AppConfig config) {
+        if (config.getBoolean("api.server.virtualThreads", false)) {
+            int maxConcurrent = config.getInt("api.server.maxConcurrent", config.getInt("db.pool.maxSize", 10));
+            ExecutorService virtual = ServiceExecutor.createVirtual(maxConcurrent);
+            if (virtual != null) {
+                LOGGER.info("Handling API requests on virtual threads (at most {} at once).", maxConcurrent);
+                return virtual;
+            }
+            LOGGER.warn("api.server.virtualThreads is set, but Java {} has no virtual threads (Java 21+ needed). Using platform threads.",
+                    System.getProperty("java.specification.version"));
+        }
+        int threads = config.getInt("api.server.threads", 32);
+        AtomicInteger threadCount = new AtomicInteger();
+        // When every worker is busy and the queue is full, the dispatcher runs the request itself and stops
+        // accepting meanwhile, so new connections wait in the socket backlog instead of being dropped
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getInt("api.server.queueCapacity", 1_000)), runnable -> {
+                    Thread thread = new Thread(runnable, "api-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Keep-alive limits of the JDK HTTP server. It reads them once, from system properties, so they are set before
+     * the first server is created; explicit -Dsun.net.httpserver.* settings win.
+     */
+    private static void configureKeepAlive(AppConfig config) {
+        setDefaultProperty("sun.net.httpserver.idleInterval", config.getString("api.server.keepAliveSeconds", "30"));
+        setDefaultProperty("sun.net.httpserver.maxIdleConnections", config.getString("api.server.maxIdleConnections", "1000"));
+    }
+
+    private static void setDefaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LOGGER.info("API server starting...");
+        AppConfig config = AppConfig.get();
+        configureKeepAlive(config);
+
+        DatabaseUtil.initializeSchema();
+        BookService bookService = new BookService();
+        if (config.getBoolean("filter.isbn.enabled", true)) {
+            bookService.loadIsbnFilter();
+        }
+        if (config.getBoolean("search.index.enabled", true)) {
+            Thread indexBuilder = new Thread(bookService::rebuildSearchIndex, "search-index-builder");
+            indexBuilder.setDaemon(true);
+            indexBuilder.start();
+        }
+
+        ApiServer apiServer = new ApiServer(bookService, new LibraryService(), new UserService(), createWorkers(config),
+                config.getLong("api.session.ttlMillis", 1_800_000), config.getInt("api.login.maxAttemptsPerMinute", 10));
+        apiServer.start(new InetSocketAddress(config.getString("api.server.host", "0.0.0.0"), config.getInt("api.server.port", 8080)),
+                config.getInt("api.server.backlog", 256));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LOGGER.info("API server stopping, flushing audit log and releasing database connections...");
+            apiServer.close(); // Lets running borrows and returns finish first
+            apiServer.logMetrics();
+            CatalogCache.shared().logStats();
+            UserCache.shared().logStats();
+            ActiveLoanCache.shared().logStats();
+            IsbnFilter.shared().logStats();
+            IsbnLocks.shared().logStats();
+            ServiceExecutor.shutdownShared();
+            AsyncLogWriter.shutdownShared(); // Needs the database, so before the pools close
+            DatabaseUtil.shutdown();
+        }, "api-server-shutdown"));
+    }
+}
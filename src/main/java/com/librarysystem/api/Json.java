@@ -0,0 +1,84 @@
+package com.librarysystem.api;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes API responses as JSON. Handles maps (objects), iterables (arrays), strings, numbers, booleans and
+ * {@code null}; anything else is written as its {@code toString()} in quotes, e.g. dates in ISO format.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String write(Object value) {
+        StringBuilder json = new StringBuilder(256);
+        write(value, json);
+        return json.toString();
+    }
+
+    private static void write(Object value, StringBuilder json) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            json.append('{');
+            Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) value).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<?, ?> entry = entries.next();
+                writeString(String.valueOf(entry.getKey()), json);
+                json.append(':');
+                write(entry.getValue(), json);
+                if (entries.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append('}');
+        } else if (value instanceof Iterable) {
+            json.append('[');
+            Iterator<?> elements = ((Iterable<?>) value).iterator();
+            while (elements.hasNext()) {
+                write(elements.next(), json);
+                if (elements.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append(']');
+        } else {
+            writeString(value.toString(), json);
+        }
+    }
+
+    private static void writeString(String text, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,122 @@
+package com.librarysystem.api;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts and latency percentiles per endpoint, recorded without locks so that measuring adds nothing
+ * noticeable to a request.
+ *
+ * Latencies go into a histogram with four buckets per power of two of microseconds, so a reported percentile
+ * is at most 25% above the true value. Memory stays fixed however many requests are recorded.
+ */
+class LatencyMetrics {
+    private static final int BUCKETS = 160; // Up to about 2^40 µs, far beyond any request
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    private static final class Route {
+        final LongAdder count = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final AtomicLong maxMicros = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * @param route Endpoint, e.g. "GET /api/books"; keep the number of distinct values small.
+     * @param status HTTP status sent.
+     * @param nanos Time from receiving the request to sending the response.
+     */
+    void record(String route, int status, long nanos) {
+        Route metrics = routes.computeIfAbsent(route, key -> new Route());
+        long micros = nanos / 1_000;
+        metrics.count.increment();
+        if (status >= 500) {
+            metrics.serverErrors.increment();
+        } else if (status >= 400) {
+            metrics.clientErrors.increment();
+        }
+        metrics.totalMicros.add(micros);
+        metrics.maxMicros.accumulateAndGet(micros, Math::max);
+        metrics.buckets.incrementAndGet(bucketOf(micros));
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - 2)) & 3;
+        return Math.min((exponent - 1) * 4 + subBucket, BUCKETS - 1);
+    }
+
+    /**
+     * Largest latency, in microseconds, that falls into {@code bucket}.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        return ((4L + bucket % 4 + 1) << (exponent - 2)) - 1;
+    }
+
+    /**
+     * Returns, per endpoint in name order: count, clientErrors (4xx), serverErrors (5xx), and meanMillis,
+     * p50Millis, p95Millis, p99Millis and maxMillis.
+     */
+    Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        routes.forEach((route, metrics) -> {
+            long[] buckets = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = metrics.buckets.get(i);
+                count += buckets[i];
+            }
+            Map<String, Object> values = new TreeMap<>();
+            values.put("count", count);
+            values.put("clientErrors", metrics.clientErrors.sum());
+            values.put("serverErrors", metrics.serverErrors.sum());
+            values.put("meanMillis", count == 0 ? 0.0 : millis(metrics.totalMicros.sum() / count));
+            values.put("p50Millis", millis(percentile(buckets, count, 0.50)));
+            values.put("p95Millis", millis(percentile(buckets, count, 0.95)));
+            values.put("p99Millis", millis(percentile(buckets, count, 0.99)));
+            values.put("maxMillis", millis(metrics.maxMicros.get()));
+            snapshot.put(route, values);
+        });
+        return snapshot;
+    }
+
+    private static long percentile(long[] buckets, long count, double fraction) {
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    void logSummary(Logger logger) {
+        snapshot().forEach((route, values) -> logger.info(
+                "{}: {} requests ({} 4xx, {} 5xx), mean {} ms, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms",
+                route, values.get("count"), values.get("clientErrors"), values.get("serverErrors"), values.get("meanMillis"),
+                values.get("p50Millis"), values.get("p95Millis"), values.get("p99Millis"), values.get("maxMillis")));
+    }
+}
@@ -0,0 +1,165 @@
+package com.librarysystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Application configuration loaded from properties.
+ *
+ * Values are resolved in this order (later sources win):
+ * <ol>
+ *     <li>{@code application.properties} on the classpath (defaults shipped with the app)</li>
+ *     <li>an external file given by the {@code library.config} system property</li>
+ *     <li>JVM system properties with the same key (e.g. {@code -Ddb.url=...})</li>
+ * </ol>
+ */
+public class AppConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppConfig.class);
+
+    public static final String DEFAULT_RESOURCE = "/application.properties";
+    public static final String EXTERNAL_CONFIG_PROPERTY = "library.config";
+
+    private static volatile AppConfig instance;
+
+    private final Properties properties;
+
+    public AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the process-wide configuration, loading it on first use.
+     */
+    public static AppConfig get() {
+        AppConfig config = instance;
+        if (config == null) {
+            synchronized (AppConfig.class) {
+                config = instance;
+                if (config == null) {
+                    config = load();
+                    instance = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Loads configuration from the classpath defaults, the optional external file and system properties.
+     */
+    public static AppConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            } else {
+                LOGGER.warn("{} not found on classpath; using built-in defaults.", DEFAULT_RESOURCE);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not read {} from classpath.", DEFAULT_RESOURCE, e);
+        }
+
+        String externalPath = System.getProperty(EXTERNAL_CONFIG_PROPERTY);
+        if (externalPath != null && !externalPath.trim().isEmpty()) {
+            Path path = Paths.get(externalPath.trim());
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+                LOGGER.info("Loaded external configuration from {}", path.toAbsolutePath());
+            } catch (IOException e) {
+                LOGGER.error("Could not read external configuration file: {}", path, e);
+            }
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            properties.setProperty(key, System.getProperty(key));
+        }
+        return new AppConfig(properties);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid integer for config key '{}': '{}'. Using default {}.", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid long for config key '{}': '{}'. Using default {}.", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid number for config key '{}': '{}'. Using default {}.", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Returns a comma-separated value as a list, skipping blank entries.
+     */
+    public List<String> getList(String key) {
+        List<String> values = new ArrayList<>();
+        String value = getString(key, null);
+        if (value != null) {
+            for (String part : value.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    values.add(part.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns all properties starting with the given prefix, with the prefix stripped from the keys.
+     */
+    public Properties getPrefixed(String prefix) {
+        Properties result = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                result.setProperty(key.substring(prefix.length()), properties.getProperty(key).trim());
+            }
+        }
+        return result;
+    }
+}
@@ -2,17 +2,29 @@ package com.librarysystem.dao;
 
 import com.librarysystem.db.DatabaseUtil;
 import com.librarysystem.model.Book;
+import com.librarysystem.model.BookSearchCriteria;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class BookDAO {
     private static final Logger LOGGER = LoggerFactory.getLogger(BookDAO.class);
+    private static final int BATCH_SIZE = 1000; // Rows sent per executeBatch round trip
+    private static final int IN_CLAUSE_SIZE = 500; // ISBNs per IN (...) lookup
 
     public boolean addBook(Book book) {
         String sql = "INSERT INTO Books (isbn, title, author, publication_year, genre, total_copies, available_copies) VALUES (?, ?, ?, ?, ?, ?, ?)";
@@ -46,6 +58,135 @@ public class BookDAO {
         return false;
     }
 
+    /**
+     * Inserts many books using JDBC batching, sending {@value #BATCH_SIZE} rows per round trip, and sets the
+     * generated primary key on each inserted book. Run it inside a transaction to make the whole load
+     * all-or-nothing; otherwise batches committed before a failure stay in the table.
+     *
+     * @param books The books to insert. ISBNs must not already exist.
+     * @return The number of books inserted.
+     */
+    public int addBooks(List<Book> books) {
+        if (books.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO Books (isbn, title, author, publication_year, genre, total_copies, available_copies) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        int inserted = 0;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int start = 0; start < books.size(); start += BATCH_SIZE) {
+                List<Book> chunk = books.subList(start, Math.min(start + BATCH_SIZE, books.size()));
+                for (Book book : chunk) {
+                    pstmt.setString(1, book.getIsbn());
+                    pstmt.setString(2, book.getTitle());
+                    pstmt.setString(3, book.getAuthor());
+                    pstmt.setInt(4, book.getPublicationYear().getValue());
+                    pstmt.setString(5, book.getGenre());
+                    pstmt.setInt(6, book.getTotalCopies());
+                    pstmt.setInt(7, book.getAvailableCopies());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    for (Book book : chunk) {
+                        if (!generatedKeys.next()) {
+                            LOGGER.warn("Batch insert returned fewer generated IDs than rows; some books have no ID set.");
+                            break;
+                        }
+                        book.setBookIdPk(generatedKeys.getInt(1));
+                    }
+                }
+                inserted += chunk.size();
+            }
+            LOGGER.info("Batch-inserted {} books.", inserted);
+        } catch (SQLException e) {
+            LOGGER.error("Error batch-inserting books after {} of {} were inserted.", inserted, books.size(), e);
+        }
+        return inserted;
+    }
+
+    /**
+     * Returns which of the given ISBNs already exist, using one query per {@value #IN_CLAUSE_SIZE} ISBNs
+     * instead of one lookup per book.
+     */
+    public Set<String> getExistingIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> existing = new HashSet<>();
+        List<String> all = new ArrayList<>(isbns);
+        for (int start = 0; start < all.size(); start += IN_CLAUSE_SIZE) {
+            List<String> chunk = all.subList(start, Math.min(start + IN_CLAUSE_SIZE, all.size()));
+            String sql = "SELECT isbn FROM Books WHERE isbn IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection conn = DatabaseUtil.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString("isbn"));
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Error checking existing ISBNs.", e);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Loads the books with the given IDs, using one query per {@value #IN_CLAUSE_SIZE} IDs.
+     * Books are returned in the order of {@code bookIds}; IDs with no book are skipped.
+     */
+    public List<Book> getBooksByIds(List<Integer> bookIds) {
+        Map<Integer, Book> byId = new HashMap<>();
+        for (int start = 0; start < bookIds.size(); start += IN_CLAUSE_SIZE) {
+            List<Integer> chunk = bookIds.subList(start, Math.min(start + IN_CLAUSE_SIZE, bookIds.size()));
+            String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE book_id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection conn = DatabaseUtil.getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    Book book = mapRowToBook(rs);
+                    byId.put(book.getBookIdPk(), book);
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Error fetching {} books by ID.", chunk.size(), e);
+            }
+        }
+        List<Book> books = new ArrayList<>(byId.size());
+        for (Integer bookId : bookIds) {
+            Book book = byId.get(bookId);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Returns how many times each book has been borrowed, keyed by book ID; books never borrowed are absent.
+     * Used as a popularity signal for ranking search completions.
+     */
+    public Map<Integer, Integer> getBorrowCountsByBook() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT book_id, COUNT(*) AS borrows FROM BorrowingHistory GROUP BY book_id";
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getInt("book_id"), rs.getInt("borrows"));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching borrow counts by book.", e);
+        }
+        return counts;
+    }
+
     public Optional<Book> getBookByIsbn(String isbn) {
         String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE isbn = ?"; // Added book_id
         try (Connection conn = DatabaseUtil.getConnection();
@@ -81,9 +222,9 @@ public class BookDAO {
     public List<Book> getAllBooks() {
         List<Book> books = new ArrayList<>();
         String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books"; // Added book_id
-        try (Connection conn = DatabaseUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 books.add(mapRowToBook(rs));
             }
@@ -93,8 +234,93 @@ public class BookDAO {
         return books;
     }
 
+    /**
+     * Returns one page of books ordered by book_id, seeking past the last key seen instead of using OFFSET,
+     * so every page costs the same no matter how far into the table it is.
+     *
+     * @param request Page size, last-seen book_id and sort direction.
+     * @return The page; empty if there are no more rows or a database error occurred.
+     */
+    public Page<Book> getBooksPage(PageRequest request) {
+        List<Book> books = new ArrayList<>();
+        String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE book_id " + (request.getDirection() == PageRequest.Direction.ASC ? ">" : "<") + " ? ORDER BY book_id " + request.getDirection().name() + " LIMIT ?";
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, request.getSeekKey());
+            pstmt.setInt(2, request.getPageSize() + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                books.add(mapRowToBook(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching page of books: {}", request, e);
+            return Page.empty(request);
+        }
+        return Page.fromFetched(books, request, Book::getBookIdPk);
+    }
+
+    /**
+     * Streams all books ordered by book_id without loading them into memory, for exports and reports.
+     * Rows are read through a fetch-size cursor; the stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     *
+     * @return A stream of all books; empty if the query could not be started.
+     * @throws DataAccessException if reading a row fails during iteration.
+     */
+    public Stream<Book> streamAllBooks() {
+        String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books ORDER BY book_id";
+        try {
+            return ResultSetStreams.stream(DatabaseUtil.getReadConnection(), sql, pstmt -> { }, this::mapRowToBook);
+        } catch (SQLException e) {
+            LOGGER.error("Error opening connection to stream all books.", e);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Streams the ISBN of every book, for loading in-memory membership structures. Reads the primary, as a
+     * replica may not have the latest inserts yet. Like {@link #streamAllBooks()}, the stream holds a
+     * connection until it is closed.
+     */
+    public Stream<String> streamAllIsbns() {
+        try {
+            return ResultSetStreams.stream(DatabaseUtil.getConnection(), "SELECT isbn FROM Books", pstmt -> { }, rs -> rs.getString("isbn"));
+        } catch (SQLException e) {
+            LOGGER.error("Error opening connection to stream all ISBNs.", e);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Returns the number of books in the catalog, or {@code -1} if it could not be counted.
+     */
+    public int countBooks() {
+        String sql = "SELECT COUNT(*) FROM Books";
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error counting books.", e);
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a book's details and total copies. The available copies are never written from {@code book}, which
+     * may have been read before a borrow or return: they change by the same amount as the total, in the same
+     * guarded UPDATE, and only if the new total still covers the copies on loan.
+     *
+     * @return {@code true} if the book was updated, {@code false} if it does not exist, the new total is below the
+     *         copies on loan, or a database error occurred.
+     */
     public boolean updateBook(Book book) {
-        String sql = "UPDATE Books SET title = ?, author = ?, publication_year = ?, genre = ?, total_copies = ?, available_copies = ? WHERE isbn = ?";
+        // available_copies comes first: MySQL evaluates assignments left to right, so it must see the old total
+        String sql = "UPDATE Books SET title = ?, author = ?, publication_year = ?, genre = ?, "
+                + "available_copies = available_copies + (? - total_copies), total_copies = ? "
+                + "WHERE isbn = ? AND ? >= total_copies - available_copies";
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, book.getTitle());
@@ -102,20 +328,52 @@ public class BookDAO {
             pstmt.setInt(3, book.getPublicationYear().getValue());
             pstmt.setString(4, book.getGenre());
             pstmt.setInt(5, book.getTotalCopies());
-            pstmt.setInt(6, book.getAvailableCopies());
+            pstmt.setInt(6, book.getTotalCopies());
             pstmt.setString(7, book.getIsbn());
+            pstmt.setInt(8, book.getTotalCopies());
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
                 LOGGER.info("Book updated successfully: {}", book.getTitle());
                 return true;
             }
+            LOGGER.warn("Book ISBN {} not updated: book not found or {} total copies are fewer than those on loan.",
+                    book.getIsbn(), book.getTotalCopies());
         } catch (SQLException e) {
             LOGGER.error("Error updating book: {}", book.getTitle(), e);
         }
         return false;
     }
 
+    /**
+     * Atomically changes the available copies of a book by {@code delta} in a single guarded UPDATE.
+     * The change is applied only if the result stays within {@code [0, total_copies]}, so concurrent
+     * borrows cannot over-issue copies and concurrent returns cannot exceed the total. No other column is written.
+     *
+     * @param isbn The ISBN of the book.
+     * @param delta The change to apply, e.g. {@code -1} for a borrow and {@code +1} for a return.
+     * @return {@code true} if the copies were changed, {@code false} if the book does not exist,
+     *         the change would go out of bounds, or a database error occurred.
+     */
+    public boolean adjustAvailableCopies(String isbn, int delta) {
+        String sql = "UPDATE Books SET available_copies = available_copies + ? WHERE isbn = ? AND available_copies + ? >= 0 AND available_copies + ? <= total_copies";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, delta);
+            pstmt.setString(2, isbn);
+            pstmt.setInt(3, delta);
+            pstmt.setInt(4, delta);
+            if (pstmt.executeUpdate() > 0) {
+                LOGGER.debug("Available copies of ISBN {} changed by {}.", isbn, delta);
+                return true;
+            }
+            LOGGER.warn("Available copies of ISBN {} not changed by {}: book not found or change out of bounds.", isbn, delta);
+        } catch (SQLException e) {
+            LOGGER.error("Error changing available copies of ISBN {} by {}.", isbn, delta, e);
+        }
+        return false;
+    }
+
     public boolean deleteBook(String isbn) {
         String sql = "DELETE FROM Books WHERE isbn = ?";
         try (Connection conn = DatabaseUtil.getConnection();
@@ -135,7 +393,7 @@ public class BookDAO {
     public List<Book> findBooksByTitle(String title) {
         List<Book> books = new ArrayList<>();
         String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE title LIKE ?"; // Added book_id
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, "%" + title + "%");
             ResultSet rs = pstmt.executeQuery();
@@ -151,7 +409,7 @@ public class BookDAO {
     public List<Book> findBooksByAuthor(String author) {
         List<Book> books = new ArrayList<>();
         String sql = "SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE author LIKE ?"; // Added book_id
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, "%" + author + "%");
             ResultSet rs = pstmt.executeQuery();
@@ -165,6 +423,80 @@ public class BookDAO {
     }
 
 
+    /**
+     * Finds books matching all set criteria in a single parameterized query, ordered by title.
+     * Only the requested slice of matches is transferred, however large the catalog.
+     * Text criteria rely on the column collation for case-insensitivity (the MySQL default).
+     *
+     * @param criteria The filters, limit and offset.
+     * @return The matching books; empty if there are none or a database error occurred.
+     */
+    public List<Book> searchBooks(BookSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder("SELECT book_id, isbn, title, author, publication_year, genre, total_copies, available_copies FROM Books WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (criteria.getTitle() != null) {
+            sql.append(" AND title LIKE ? ESCAPE '!'");
+            params.add("%" + escapeLike(criteria.getTitle()) + "%");
+        }
+        if (criteria.getAuthor() != null) {
+            sql.append(" AND author LIKE ? ESCAPE '!'");
+            params.add("%" + escapeLike(criteria.getAuthor()) + "%");
+        }
+        if (criteria.getIsbn() != null) {
+            sql.append(" AND isbn LIKE ? ESCAPE '!'"); // Prefix match, so the unique ISBN index can be used
+            params.add(escapeLike(criteria.getIsbn()) + "%");
+        }
+        if (criteria.getGenre() != null) {
+            sql.append(" AND genre = ?");
+            params.add(criteria.getGenre());
+        }
+        if (!criteria.getGenres().isEmpty()) {
+            sql.append(" AND genre IN (").append(String.join(", ", Collections.nCopies(criteria.getGenres().size(), "?"))).append(')');
+            params.addAll(criteria.getGenres());
+        }
+        if (!criteria.getDecades().isEmpty()) {
+            sql.append(" AND (").append(String.join(" OR ", Collections.nCopies(criteria.getDecades().size(), "publication_year BETWEEN ? AND ?"))).append(')');
+            for (int decade : criteria.getDecades()) {
+                params.add(decade);
+                params.add(decade + 9);
+            }
+        }
+        if (criteria.getYearFrom() != null) {
+            sql.append(" AND publication_year >= ?");
+            params.add(criteria.getYearFrom().getValue());
+        }
+        if (criteria.getYearTo() != null) {
+            sql.append(" AND publication_year <= ?");
+            params.add(criteria.getYearTo().getValue());
+        }
+        if (criteria.isAvailableOnly()) {
+            sql.append(" AND available_copies > 0");
+        }
+        sql.append(" ORDER BY title, book_id LIMIT ? OFFSET ?");
+        params.add(criteria.getLimit());
+        params.add(criteria.getOffset());
+
+        List<Book> books = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                books.add(mapRowToBook(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error searching books: {}", criteria, e);
+        }
+        return books;
+    }
+
+    // Makes LIKE wildcards in user input match literally; '!' is the escape character declared in the query.
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     // Renamed to mapRowToBook and implemented correctly
     private Book mapRowToBook(ResultSet rs) throws SQLException {
         Book book = new Book(
@@ -2,6 +2,9 @@ package com.librarysystem.dao;
 
 import com.librarysystem.db.DatabaseUtil;
 import com.librarysystem.model.BorrowingRecord; // Assuming a BorrowingRecord model
+import com.librarysystem.model.LoanDetails;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // We need a model class for BorrowingRecord. Let's define a simple one here
 // or assume it will be created in the model package.
@@ -111,6 +115,85 @@ public class BorrowingHistoryDAO {
         return records;
     }
 
+    /**
+     * Returns one page of a book's borrowing history ordered by borrow_id (borrow order), seeking past the
+     * last key seen. Uses the (book_id) index, which also orders rows by primary key.
+     *
+     * @param bookId The book's primary key.
+     * @param request Page size, last-seen borrow_id and sort direction.
+     * @return The page; empty if there are no more rows or a database error occurred.
+     */
+    public Page<BorrowingRecord> getBorrowingHistoryForBookPage(int bookId, PageRequest request) {
+        String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory WHERE book_id = ? AND borrow_id " + (request.getDirection() == PageRequest.Direction.ASC ? ">" : "<") + " ? ORDER BY borrow_id " + request.getDirection().name() + " LIMIT ?";
+        return fetchHistoryPage(sql, bookId, request, "book_id");
+    }
+
+    /**
+     * Returns one page of a user's borrowing history ordered by borrow_id (borrow order), seeking past the
+     * last key seen. Uses the (user_id) index, which also orders rows by primary key.
+     *
+     * @param userId The user's ID.
+     * @param request Page size, last-seen borrow_id and sort direction.
+     * @return The page; empty if there are no more rows or a database error occurred.
+     */
+    public Page<BorrowingRecord> getBorrowingHistoryForUserPage(int userId, PageRequest request) {
+        String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory WHERE user_id = ? AND borrow_id " + (request.getDirection() == PageRequest.Direction.ASC ? ">" : "<") + " ? ORDER BY borrow_id " + request.getDirection().name() + " LIMIT ?";
+        return fetchHistoryPage(sql, userId, request, "user_id");
+    }
+
+    private Page<BorrowingRecord> fetchHistoryPage(String sql, int filterId, PageRequest request, String filterColumn) {
+        List<BorrowingRecord> records = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, filterId);
+            pstmt.setInt(2, request.getSeekKey());
+            pstmt.setInt(3, request.getPageSize() + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                records.add(mapRowToBorrowingRecord(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching page of borrowing history for {} {}: {}", filterColumn, filterId, request, e);
+            return Page.empty(request);
+        }
+        return Page.fromFetched(records, request, BorrowingRecord::getBorrowId);
+    }
+
+    /**
+     * Streams all borrowing records ordered by borrow_id without loading them into memory, for exports and reports.
+     * Rows are read through a fetch-size cursor; the stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     *
+     * @return A stream of all borrowing records; empty if the query could not be started.
+     * @throws DataAccessException if reading a row fails during iteration.
+     */
+    public Stream<BorrowingRecord> streamAllBorrowingRecords() {
+        String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory ORDER BY borrow_id";
+        try {
+            return ResultSetStreams.stream(DatabaseUtil.getReadConnection(), sql, pstmt -> { }, this::mapRowToBorrowingRecord);
+        } catch (SQLException e) {
+            LOGGER.error("Error opening connection to stream all borrowing records.", e);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Streams a book's borrowing records ordered by borrow_id; see {@link #streamAllBorrowingRecords()}.
+     *
+     * @param bookId The book's primary key.
+     * @return A stream of the book's borrowing records; empty if the query could not be started.
+     * @throws DataAccessException if reading a row fails during iteration.
+     */
+    public Stream<BorrowingRecord> streamBorrowingHistoryForBook(int bookId) {
+        String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory WHERE book_id = ? ORDER BY borrow_id";
+        try {
+            return ResultSetStreams.stream(DatabaseUtil.getReadConnection(), sql, pstmt -> pstmt.setInt(1, bookId), this::mapRowToBorrowingRecord);
+        } catch (SQLException e) {
+            LOGGER.error("Error opening connection to stream borrowing history for book_id: {}", bookId, e);
+            return Stream.empty();
+        }
+    }
+
     public List<BorrowingRecord> getCurrentlyBorrowedBooksByUser(int userId) {
         List<BorrowingRecord> records = new ArrayList<>();
         String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory WHERE user_id = ? AND return_date IS NULL ORDER BY due_date ASC";
@@ -127,6 +210,31 @@ public class BorrowingHistoryDAO {
         return records;
     }
 
+    /**
+     * Returns a user's active loans joined with the borrowed books' ISBN, title and author, ordered by due date.
+     * One query replaces fetching the records and then looking up each book separately.
+     *
+     * @param userId The user's ID.
+     * @return The active loans; empty if there are none or a database error occurred.
+     */
+    public List<LoanDetails> getActiveLoanDetailsForUser(int userId) {
+        List<LoanDetails> loans = new ArrayList<>();
+        String sql = "SELECT bh.borrow_id, bh.book_id, bh.user_id, bh.borrow_date, bh.due_date, bh.return_date, b.isbn, b.title, b.author "
+                + "FROM BorrowingHistory bh JOIN Books b ON b.book_id = bh.book_id "
+                + "WHERE bh.user_id = ? AND bh.return_date IS NULL ORDER BY bh.due_date ASC";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                loans.add(new LoanDetails(mapRowToBorrowingRecord(rs), rs.getString("isbn"), rs.getString("title"), rs.getString("author")));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching active loan details for user_id: {}", userId, e);
+        }
+        return loans;
+    }
+
     public Optional<BorrowingRecord> getLatestBorrowingRecordForBook(int bookId, int userId) {
         String sql = "SELECT borrow_id, book_id, user_id, borrow_date, due_date, return_date FROM BorrowingHistory " +
                      "WHERE book_id = ? AND user_id = ? AND return_date IS NULL ORDER BY borrow_date DESC LIMIT 1";
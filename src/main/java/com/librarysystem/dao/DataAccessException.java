@@ -0,0 +1,13 @@
+package com.librarysystem.dao;
+
+/**
+ * Thrown when a database error happens where a DAO cannot report it through its return value,
+ * e.g. while a caller is iterating a streamed result.
+ */
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
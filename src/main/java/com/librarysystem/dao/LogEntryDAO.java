@@ -2,6 +2,8 @@ package com.librarysystem.dao;
 
 import com.librarysystem.db.DatabaseUtil;
 import com.librarysystem.model.LogEntry;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,6 +11,7 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class LogEntryDAO {
     private static final Logger LOGGER = LoggerFactory.getLogger(LogEntryDAO.class);
@@ -50,12 +53,46 @@ public class LogEntryDAO {
         return false;
     }
 
+    /**
+     * Inserts several log entries in one JDBC batch (a single round trip and commit when the driver
+     * rewrites batches). Generated IDs are not read back; audit entries are not referenced after writing.
+     *
+     * @param logEntries The entries to insert.
+     * @return The number of entries inserted, or {@code 0} if the batch failed.
+     */
+    public int addLogEntries(List<LogEntry> logEntries) {
+        if (logEntries.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO Logging (log_timestamp, user_id, action_type, details) VALUES (?, ?, ?, ?)";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (LogEntry logEntry : logEntries) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(logEntry.getTimestamp()));
+                if (logEntry.getUserId() != null) {
+                    pstmt.setInt(2, logEntry.getUserId());
+                } else {
+                    pstmt.setNull(2, Types.INTEGER);
+                }
+                pstmt.setString(3, logEntry.getActionType().name());
+                pstmt.setString(4, logEntry.getDetails());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return logEntries.size();
+        } catch (SQLException e) {
+            // Only the audit log writer calls this, and SLF4J's appenders do not write to the database
+            LOGGER.error("Error adding batch of {} log entries.", logEntries.size(), e);
+        }
+        return 0;
+    }
+
     public List<LogEntry> getAllLogEntries() {
         List<LogEntry> logEntries = new ArrayList<>();
         String sql = "SELECT log_id, log_timestamp, user_id, action_type, details FROM Logging ORDER BY log_timestamp DESC";
-        try (Connection conn = DatabaseUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 logEntries.add(mapRowToLogEntry(rs));
             }
@@ -65,10 +102,54 @@ public class LogEntryDAO {
         return logEntries;
     }
 
+    /**
+     * Returns one page of log entries ordered by log_id (insertion order; {@code DESC} = newest first),
+     * seeking past the last key seen instead of using OFFSET, so every page costs the same no matter
+     * how large the Logging table grows.
+     *
+     * @param request Page size, last-seen log_id and sort direction.
+     * @return The page; empty if there are no more rows or a database error occurred.
+     */
+    public Page<LogEntry> getLogEntriesPage(PageRequest request) {
+        List<LogEntry> logEntries = new ArrayList<>();
+        String sql = "SELECT log_id, log_timestamp, user_id, action_type, details FROM Logging WHERE log_id " + (request.getDirection() == PageRequest.Direction.ASC ? ">" : "<") + " ? ORDER BY log_id " + request.getDirection().name() + " LIMIT ?";
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, request.getSeekKey());
+            pstmt.setInt(2, request.getPageSize() + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                logEntries.add(mapRowToLogEntry(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching page of log entries: {}", request, e);
+            return Page.empty(request);
+        }
+        return Page.fromFetched(logEntries, request, LogEntry::getLogId);
+    }
+
+    /**
+     * Streams all log entries ordered by log_id (oldest first) without loading them into memory, for exports and reports.
+     * Rows are read through a fetch-size cursor; the stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     *
+     * @return A stream of all log entries; empty if the query could not be started.
+     * @throws DataAccessException if reading a row fails during iteration.
+     */
+    public Stream<LogEntry> streamAllLogEntries() {
+        String sql = "SELECT log_id, log_timestamp, user_id, action_type, details FROM Logging ORDER BY log_id";
+        try {
+            return ResultSetStreams.stream(DatabaseUtil.getReadConnection(), sql, pstmt -> { }, this::mapRowToLogEntry);
+        } catch (SQLException e) {
+            LOGGER.error("Error opening connection to stream all log entries.", e);
+            return Stream.empty();
+        }
+    }
+
     public List<LogEntry> getLogEntriesByUserId(int userId) {
         List<LogEntry> logEntries = new ArrayList<>();
         String sql = "SELECT log_id, log_timestamp, user_id, action_type, details FROM Logging WHERE user_id = ? ORDER BY log_timestamp DESC";
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
@@ -84,7 +165,7 @@ public class LogEntryDAO {
     public List<LogEntry> getLogEntriesByActionType(LogEntry.ActionType actionType) {
         List<LogEntry> logEntries = new ArrayList<>();
         String sql = "SELECT log_id, log_timestamp, user_id, action_type, details FROM Logging WHERE action_type = ? ORDER BY log_timestamp DESC";
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, actionType.name());
             ResultSet rs = pstmt.executeQuery();
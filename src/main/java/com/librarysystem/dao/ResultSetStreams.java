@@ -0,0 +1,94 @@
+package com.librarysystem.dao;
+
+import com.librarysystem.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a query into a lazily evaluated {@link Stream} backed by an open cursor.
+ *
+ * Rows are fetched from the server {@code db.stream.fetchSize} at a time (a server-side cursor with
+ * MySQL's {@code useCursorFetch}), so only one fetch block is in memory however many rows are read.
+ * The stream owns the result set, statement and connection: close it (try-with-resources) to release them.
+ */
+final class ResultSetStreams {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultSetStreams.class);
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ParameterBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    private ResultSetStreams() {
+    }
+
+    static int fetchSize() {
+        return AppConfig.get().getInt("db.stream.fetchSize", 500);
+    }
+
+    /**
+     * Runs the query on the given connection and streams the mapped rows. If the query cannot be started the error
+     * is logged, the connection is released and an empty stream is returned. Errors while iterating are thrown as
+     * {@link DataAccessException}.
+     */
+    static <T> Stream<T> stream(Connection conn, String sql, ParameterBinder binder, RowMapper<T> mapper) {
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(fetchSize());
+            binder.bind(pstmt);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            LOGGER.error("Error starting streamed query: {}", sql, e);
+            closeQuietly(rs, pstmt, conn);
+            return Stream.empty();
+        }
+
+        ResultSet cursor = rs;
+        PreparedStatement statement = pstmt;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error reading streamed rows: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(cursor, statement, conn));
+    }
+
+    private static void closeQuietly(ResultSet rs, PreparedStatement pstmt, Connection conn) {
+        for (AutoCloseable resource : new AutoCloseable[]{rs, pstmt, conn}) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.warn("Error closing streamed query resource: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.librarysystem.dao;
 
 import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import com.librarysystem.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,8 +49,8 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT user_id, username, password_hash, role FROM Users";
         try (Connection conn = DatabaseUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 users.add(mapRowToUser(rs));
             }
@@ -58,6 +60,31 @@ public class UserDAO {
         return users;
     }
 
+    /**
+     * Returns one page of users ordered by user_id, seeking past the last key seen instead of using OFFSET,
+     * so every page costs the same no matter how far into the table it is.
+     *
+     * @param request Page size, last-seen user_id and sort direction.
+     * @return The page; empty if there are no more rows or a database error occurred.
+     */
+    public Page<User> getUsersPage(PageRequest request) {
+        List<User> users = new ArrayList<>();
+        String sql = "SELECT user_id, username, password_hash, role FROM Users WHERE user_id " + (request.getDirection() == PageRequest.Direction.ASC ? ">" : "<") + " ? ORDER BY user_id " + request.getDirection().name() + " LIMIT ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, request.getSeekKey());
+            pstmt.setInt(2, request.getPageSize() + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                users.add(mapRowToUser(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching page of users: {}", request, e);
+            return Page.empty(request);
+        }
+        return Page.fromFetched(users, request, User::getUserId);
+    }
+
     public boolean addUser(User user) {
         String sql = "INSERT INTO Users (username, password_hash, role) VALUES (?, ?, ?)";
         try (Connection conn = DatabaseUtil.getConnection();
@@ -0,0 +1,437 @@
+package com.librarysystem.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded JDBC connection pool.
+ * Connections handed out by {@link #getConnection()} are proxies; calling {@code close()} on them
+ * returns the physical connection to the pool instead of closing it.
+ *
+ * Features: min idle / max size bounds, validation on borrow, acquisition timeout,
+ * idle eviction and leak detection (both run by a background housekeeping thread),
+ * and an optional per-connection prepared statement cache (see {@link StatementCache}).
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+
+    /**
+     * Creates new physical connections for the pool (e.g. via DriverManager).
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionFactory connectionFactory;
+    private final int minIdle;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledEntry> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Counters for monitoring
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsDestroyed = new AtomicLong();
+    private final AtomicLong acquisitionTimeouts = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    public ConnectionPool(String name, ConnectionFactory connectionFactory, int minIdle, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakDetectionThresholdMillis) {
+        this(name, connectionFactory, minIdle, maxSize, acquireTimeoutMillis, idleTimeoutMillis, leakDetectionThresholdMillis, 0);
+    }
+
+    /**
+     * @param statementCacheSize Prepared statements cached per connection; {@code 0} disables the cache.
+     */
+    public ConnectionPool(String name, ConnectionFactory connectionFactory, int minIdle, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakDetectionThresholdMillis,
+                          int statementCacheSize) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool bounds: minIdle=" + minIdle + ", maxSize=" + maxSize);
+        }
+        this.name = name;
+        this.connectionFactory = connectionFactory;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-" + name + "-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, Math.min(HOUSEKEEPING_PERIOD_MILLIS, Math.min(
+                idleTimeoutMillis > 0 ? idleTimeoutMillis / 2 : HOUSEKEEPING_PERIOD_MILLIS,
+                leakDetectionThresholdMillis > 0 ? leakDetectionThresholdMillis / 2 : HOUSEKEEPING_PERIOD_MILLIS)));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        LOGGER.info("Connection pool '{}' started (minIdle={}, maxSize={}, acquireTimeout={}ms, statementCacheSize={}).",
+                name, minIdle, maxSize, acquireTimeoutMillis, statementCacheSize);
+    }
+
+    /**
+     * Borrows a connection from the pool, creating one if no idle connection is available and the pool is below its maximum size.
+     * Idle connections are validated before being handed out.
+     *
+     * @return A pooled connection. Closing it returns it to the pool.
+     * @throws SQLTimeoutException if no connection became available within the acquisition timeout.
+     * @throws SQLException if the pool is closed or a new connection could not be created.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquisitionTimeouts.incrementAndGet();
+                LOGGER.error("Timed out after {}ms waiting for a connection from pool '{}' (active={}, idle={}, max={}).",
+                        acquireTimeoutMillis, name, borrowedConnections.size(), idleConnections.size(), maxSize);
+                throw new SQLTimeoutException("Timed out waiting for a database connection from pool '" + name + "'.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idleConnections.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    return lend(entry);
+                }
+                destroy(entry);
+            }
+            return lend(createEntry());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            return !entry.physical.isClosed() && entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            LOGGER.debug("Validation failed for pooled connection in '{}': {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        Connection physical = connectionFactory.create();
+        if (physical == null) {
+            throw new SQLException("Could not establish database connection.");
+        }
+        totalConnections.incrementAndGet();
+        connectionsCreated.incrementAndGet();
+        LOGGER.debug("Opened new physical connection for pool '{}' (total={}).", name, totalConnections.get());
+        return new PooledEntry(physical);
+    }
+
+    private Connection lend(PooledEntry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.leakReported = false;
+        entry.borrowSite = leakDetectionThresholdMillis > 0 ? new Exception("Connection borrowed here") : null;
+        borrowedConnections.add(entry);
+        return entry.newHandle();
+    }
+
+    private void release(PooledEntry entry) {
+        if (!borrowedConnections.remove(entry)) {
+            return;
+        }
+        try {
+            if (entry.statementCache != null) {
+                entry.statementCache.reclaimAll();
+            }
+            boolean reusable = !closed && !entry.physical.isClosed() && totalConnections.get() <= maxSize;
+            if (reusable) {
+                resetState(entry);
+                entry.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerFirst(entry); // LIFO keeps hot connections hot and lets cold ones age out
+            } else {
+                destroy(entry);
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Discarding pooled connection from '{}' after failed reset: {}", name, e.getMessage());
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void resetState(PooledEntry entry) throws SQLException {
+        Connection physical = entry.physical;
+        if (!physical.getAutoCommit()) {
+            // A caller left a transaction open; never let uncommitted work leak to the next borrower.
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        if (physical.isReadOnly()) {
+            physical.setReadOnly(false);
+        }
+        physical.clearWarnings();
+    }
+
+    private void destroy(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        connectionsDestroyed.incrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Error closing physical connection for pool '{}': {}", name, e.getMessage());
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // Idle eviction: retire connections idle longer than the timeout, but keep minIdle around.
+            if (idleTimeoutMillis > 0) {
+                for (PooledEntry entry : idleConnections) {
+                    if (idleConnections.size() <= minIdle) {
+                        break;
+                    }
+                    if (now - entry.lastUsedAt > idleTimeoutMillis && idleConnections.remove(entry)) {
+                        LOGGER.debug("Evicting idle connection from pool '{}'.", name);
+                        destroy(entry);
+                    }
+                }
+            }
+
+            // Top up to minIdle so the first requests after a quiet period don't pay for the handshake.
+            while (!closed && idleConnections.size() < minIdle && totalConnections.get() < maxSize) {
+                idleConnections.offerLast(createEntry());
+            }
+
+            // Leak detection: report connections held longer than the threshold (once per borrow).
+            if (leakDetectionThresholdMillis > 0) {
+                for (PooledEntry entry : borrowedConnections) {
+                    if (!entry.leakReported && now - entry.borrowedAt > leakDetectionThresholdMillis) {
+                        entry.leakReported = true;
+                        leaksDetected.incrementAndGet();
+                        LOGGER.warn("Possible connection leak in pool '{}': connection held for {}ms.", name, now - entry.borrowedAt, entry.borrowSite);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Housekeeping for pool '{}' could not open a connection: {}", name, e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected error during housekeeping of pool '{}'.", name, e);
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeping thread.
+     * Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idleConnections.pollFirst()) != null) {
+            destroy(entry);
+        }
+        LOGGER.info("Connection pool '{}' closed ({} connections still borrowed).", name, borrowedConnections.size());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return borrowedConnections.size();
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public long getConnectionsCreated() {
+        return connectionsCreated.get();
+    }
+
+    public long getConnectionsDestroyed() {
+        return connectionsDestroyed.get();
+    }
+
+    public long getAcquisitionTimeouts() {
+        return acquisitionTimeouts.get();
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected.get();
+    }
+
+    /**
+     * Number of prepareStatement calls served from a connection's statement cache (no re-parse).
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    /**
+     * Number of prepareStatement calls that had to prepare a new statement.
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHits.get();
+        long total = hits + statementCacheMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "name='" + name + '\'' +
+                ", active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", total=" + getTotalCount() +
+                ", max=" + maxSize +
+                ", created=" + getConnectionsCreated() +
+                ", timeouts=" + getAcquisitionTimeouts() +
+                ", leaks=" + getLeaksDetected() +
+                ", stmtCacheHits=" + getStatementCacheHits() +
+                ", stmtCacheMisses=" + getStatementCacheMisses() +
+                '}';
+    }
+
+    /**
+     * A physical connection owned by the pool plus its bookkeeping.
+     */
+    private final class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long borrowedAt;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile boolean leakReported;
+        private volatile Exception borrowSite;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ConnectionHandle(this));
+        }
+    }
+
+    /**
+     * The proxy handed to callers for one borrow. After {@code close()} the handle is dead,
+     * so a caller holding on to it cannot interfere with the next borrower.
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean handleClosed;
+
+        private ConnectionHandle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || entry.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]" + (handleClosed ? " (closed)" : "");
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection is closed.");
+            }
+            if (entry.statementCache != null && "prepareStatement".equals(method.getName())) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length == 1) {
+                    return entry.statementCache.prepare((String) args[0], null);
+                }
+                if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                    return entry.statementCache.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.librarysystem.db;
+
+import com.librarysystem.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Database connection settings: the primary, optional read replicas, pool sizing and JDBC driver properties.
+ * Built from {@link AppConfig} keys prefixed with {@code db.} (see application.properties).
+ */
+public class DatabaseConfig {
+
+    private final String primaryUrl;
+    private final List<String> replicaUrls;
+    private final String user;
+    private final String password;
+    private final String replicaUser;
+    private final String replicaPassword;
+    private final Properties driverProperties;
+
+    private final int poolMinIdle;
+    private final int poolMaxSize;
+    private final long poolAcquireTimeoutMillis;
+    private final long poolIdleTimeoutMillis;
+    private final long poolLeakDetectionMillis;
+    private final int statementCacheSize;
+
+    private final long readYourWritesWindowMillis;
+
+    public DatabaseConfig(String primaryUrl, List<String> replicaUrls, String user, String password,
+                          String replicaUser, String replicaPassword, Properties driverProperties,
+                          int poolMinIdle, int poolMaxSize, long poolAcquireTimeoutMillis,
+                          long poolIdleTimeoutMillis, long poolLeakDetectionMillis,
+                          int statementCacheSize, long readYourWritesWindowMillis) {
+        this.primaryUrl = primaryUrl;
+        this.replicaUrls = Collections.unmodifiableList(new ArrayList<>(replicaUrls));
+        this.user = user;
+        this.password = password;
+        this.replicaUser = replicaUser;
+        this.replicaPassword = replicaPassword;
+        this.driverProperties = driverProperties;
+        this.poolMinIdle = poolMinIdle;
+        this.poolMaxSize = poolMaxSize;
+        this.poolAcquireTimeoutMillis = poolAcquireTimeoutMillis;
+        this.poolIdleTimeoutMillis = poolIdleTimeoutMillis;
+        this.poolLeakDetectionMillis = poolLeakDetectionMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.readYourWritesWindowMillis = readYourWritesWindowMillis;
+    }
+
+    /**
+     * Reads the database settings from the application configuration.
+     */
+    public static DatabaseConfig fromAppConfig(AppConfig config) {
+        String user = config.getString("db.user", "library_user");
+        String password = config.getString("db.password", "library_password");
+        return new DatabaseConfig(
+                config.getString("db.url", "jdbc:mysql://localhost:3306/library_db"),
+                config.getList("db.replica.urls"),
+                user,
+                password,
+                config.getString("db.replica.user", user),
+                config.getString("db.replica.password", password),
+                config.getPrefixed("db.driver."),
+                config.getInt("db.pool.minIdle", 2),
+                config.getInt("db.pool.maxSize", 10),
+                config.getLong("db.pool.acquireTimeoutMillis", 10_000),
+                config.getLong("db.pool.idleTimeoutMillis", 600_000),
+                config.getLong("db.pool.leakDetectionMillis", 60_000),
+                config.getInt("db.pool.statementCacheSize", 64),
+                config.getLong("db.readYourWrites.windowMillis", 5_000)
+        );
+    }
+
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getReplicaUser() {
+        return replicaUser;
+    }
+
+    public String getReplicaPassword() {
+        return replicaPassword;
+    }
+
+    /**
+     * Extra JDBC driver properties (keys under {@code db.driver.}), passed to every physical connection.
+     */
+    public Properties getDriverProperties() {
+        return driverProperties;
+    }
+
+    public int getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public long getPoolAcquireTimeoutMillis() {
+        return poolAcquireTimeoutMillis;
+    }
+
+    public long getPoolIdleTimeoutMillis() {
+        return poolIdleTimeoutMillis;
+    }
+
+    public long getPoolLeakDetectionMillis() {
+        return poolLeakDetectionMillis;
+    }
+
+    /**
+     * Prepared statements cached per pooled connection; {@code 0} disables statement caching.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * How long after using the primary a session keeps reading from the primary,
+     * so it sees its own writes even if the replicas lag behind.
+     */
+    public long getReadYourWritesWindowMillis() {
+        return readYourWritesWindowMillis;
+    }
+
+    @Override
+    public String toString() {
+        // Never include credentials
+        return "DatabaseConfig{" +
+                "primaryUrl='" + primaryUrl + '\'' +
+                ", replicaUrls=" + replicaUrls +
+                ", user='" + user + '\'' +
+                ", poolMinIdle=" + poolMinIdle +
+                ", poolMaxSize=" + poolMaxSize +
+                '}';
+    }
+}
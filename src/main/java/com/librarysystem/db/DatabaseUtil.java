@@ -3,11 +3,13 @@ package com.librarysystem.db;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.librarysystem.config.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,11 +17,13 @@ public class DatabaseUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseUtil.class);
 
-    // TODO: Externalize these connection details into a properties file
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/library_db";
-    private static final String DB_USER = "library_user"; // Replace with your DB username
-    private static final String DB_PASSWORD = "library_password"; // Replace with your DB password
-    private static final String SCHEMA_FILE_PATH = "src/main/resources/schema.sql"; // Path to your schema file
+    private static volatile DatabaseConfig config;
+    private static volatile ConnectionPool primaryPool;
+    private static volatile List<ConnectionPool> replicaPools = Collections.emptyList();
+    private static final AtomicInteger replicaCursor = new AtomicInteger();
+
+    // Read-your-writes: when this thread (the "session") last used the primary.
+    private static final ThreadLocal<Long> lastPrimaryUse = ThreadLocal.withInitial(() -> 0L);
 
     static {
         try {
@@ -34,55 +38,168 @@ public class DatabaseUtil {
         }
     }
 
+    /**
+     * Borrows a connection to the primary database from the shared connection pool.
+     * Use this for writes and for reads that must see the latest committed state.
+     * Callers must close the connection (try-with-resources) to return it to the pool.
+     * Inside a {@link TransactionManager} unit of work, the transaction's connection is returned instead.
+     *
+     * @return A pooled connection to the primary database.
+     * @throws SQLException if no connection could be obtained.
+     */
     public static Connection getConnection() throws SQLException {
-        Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        Connection transactionConnection = TransactionManager.currentTransactionConnection();
+        if (transactionConnection != null) {
+            return transactionConnection;
+        }
+        return borrowPrimaryConnection();
+    }
+
+    static Connection borrowPrimaryConnection() throws SQLException {
+        ensureInitialized();
+        lastPrimaryUse.set(System.currentTimeMillis());
+        return primaryPool.getConnection();
+    }
+
+    /**
+     * Borrows a connection for a read-only query that tolerates replica lag (catalog browsing, log viewing).
+     * Routes to a read replica in round-robin order when replicas are configured. Falls back to the primary when
+     * no replica is configured, when a replica is unreachable, or when this session used the primary within the
+     * read-your-writes window, so a read that follows a write still sees that write.
+     * Inside a {@link TransactionManager} unit of work, the transaction's connection is returned instead.
+     *
+     * @return A pooled connection to a replica or the primary.
+     * @throws SQLException if no connection could be obtained.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection transactionConnection = TransactionManager.currentTransactionConnection();
+        if (transactionConnection != null) {
+            return transactionConnection;
+        }
+        ensureInitialized();
+        List<ConnectionPool> replicas = replicaPools;
+        long sinceLastPrimaryUse = System.currentTimeMillis() - lastPrimaryUse.get();
+        if (replicas.isEmpty() || sinceLastPrimaryUse < config.getReadYourWritesWindowMillis()) {
+            return primaryPool.getConnection();
+        }
+        int start = Math.floorMod(replicaCursor.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ConnectionPool replica = replicas.get((start + i) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                LOGGER.warn("Read replica '{}' unavailable ({}). Trying next.", replica.getName(), e.getMessage());
+            }
+        }
+        LOGGER.warn("No read replica available; reading from the primary.");
+        return primaryPool.getConnection();
+    }
+
+    /**
+     * Returns the time (epoch millis) this thread's session last used the primary.
+     * Pass it to {@link #joinSessionWriteMark(long)} on another thread that continues the same session.
+     */
+    public static long getSessionWriteMark() {
+        return lastPrimaryUse.get();
+    }
+
+    /**
+     * Continues a session on the current thread, so reads here also observe writes made under the given mark.
+     */
+    public static void joinSessionWriteMark(long writeMark) {
+        if (writeMark > lastPrimaryUse.get()) {
+            lastPrimaryUse.set(writeMark);
+        }
+    }
+
+    private static void ensureInitialized() {
+        if (primaryPool == null) {
+            synchronized (DatabaseUtil.class) {
+                if (primaryPool == null) {
+                    start(DatabaseConfig.fromAppConfig(AppConfig.get()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the active database configuration, closing any existing pools.
+     * Normally configuration comes from application.properties; this is for alternate entry points and tests.
+     */
+    public static synchronized void configure(DatabaseConfig newConfig) {
+        shutdown();
+        start(newConfig);
+    }
+
+    private static void start(DatabaseConfig newConfig) {
+        LOGGER.info("Initializing database connectivity: {}", newConfig);
+        List<ConnectionPool> replicas = new ArrayList<>();
+        for (int i = 0; i < newConfig.getReplicaUrls().size(); i++) {
+            String url = newConfig.getReplicaUrls().get(i);
+            replicas.add(createPool(newConfig, "replica-" + (i + 1), url, newConfig.getReplicaUser(), newConfig.getReplicaPassword()));
+        }
+        config = newConfig;
+        replicaPools = Collections.unmodifiableList(replicas);
+        primaryPool = createPool(newConfig, "primary", newConfig.getPrimaryUrl(), newConfig.getUser(), newConfig.getPassword());
+    }
+
+    private static ConnectionPool createPool(DatabaseConfig cfg, String name, String url, String user, String password) {
+        Properties connectionProperties = new Properties();
+        connectionProperties.putAll(cfg.getDriverProperties());
+        connectionProperties.setProperty("user", user);
+        connectionProperties.setProperty("password", password);
+        return new ConnectionPool(name, () -> openPhysicalConnection(url, connectionProperties),
+                cfg.getPoolMinIdle(), cfg.getPoolMaxSize(), cfg.getPoolAcquireTimeoutMillis(),
+                cfg.getPoolIdleTimeoutMillis(), cfg.getPoolLeakDetectionMillis(), cfg.getStatementCacheSize());
+    }
+
+    private static Connection openPhysicalConnection(String url, Properties connectionProperties) throws SQLException {
+        Connection connection = DriverManager.getConnection(url, connectionProperties);
         if (connection == null) {
-            LOGGER.error("Failed to make connection to database at {} with user {}", DB_URL, DB_USER);
+            LOGGER.error("Failed to make connection to database at {} with user {}", url, connectionProperties.getProperty("user"));
             throw new SQLException("Could not establish database connection.");
         }
-        LOGGER.debug("Database connection established successfully to {}", DB_URL);
+        LOGGER.debug("Database connection established successfully to {}", url);
         return connection;
     }
 
     /**
-     * Initializes the database schema by executing the schema.sql file.
-     * This is a basic implementation. A more robust solution might involve versioning (e.g., Flyway, Liquibase).
-     * This method attempts to create tables if they don't exist.
+     * Returns the active connection pools (primary first, then replicas) for monitoring,
+     * e.g. pool occupancy and statement cache hit/miss counters.
      */
-    public static void initializeSchema() {
-        LOGGER.info("Attempting to initialize database schema from: {}", SCHEMA_FILE_PATH);
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            String sqlContent = Files.lines(Paths.get(SCHEMA_FILE_PATH)).collect(Collectors.joining("\n"));
-            // Split script into individual statements (basic split on ';')
-            // This might not work for complex scripts with ';' in comments or strings, or stored procedures.
-            String[] individualStatements = sqlContent.split(";\\s*(\\r?\\n|\\r)");
-
-            for (String statement : individualStatements) {
-                if (statement.trim().isEmpty()) {
-                    continue;
-                }
-                try {
-                    stmt.execute(statement);
-                    LOGGER.info("Executed SQL: {}", statement.substring(0, Math.min(statement.length(), 100)).replaceAll("\\s+", " ") + "...");
-                } catch (SQLException e) {
-                    // It's common for "CREATE TABLE IF NOT EXISTS" to succeed without issues,
-                    // but other errors might be important.
-                    if (e.getMessage().contains("already exists")) {
-                         LOGGER.warn("Table/Index in statement already exists (expected for IF NOT EXISTS): {}", statement.substring(0, Math.min(statement.length(),100)).replaceAll("\\s+", " ") + "...");
-                    } else {
-                        LOGGER.error("Error executing SQL statement: '{}'. Error: {}", statement.replaceAll("\\s+", " "), e.getMessage());
-                        // Optionally re-throw or handle more gracefully
-                    }
-                }
-            }
-            LOGGER.info("Database schema initialization script executed successfully.");
-        } catch (SQLException e) {
-            LOGGER.error("SQL error during schema initialization.", e);
-            // Consider if this should be a fatal error for the application
-        } catch (IOException e) {
-            LOGGER.error("Could not read schema file: {}", SCHEMA_FILE_PATH, e);
-            // Consider if this should be a fatal error
+    public static List<ConnectionPool> getPools() {
+        List<ConnectionPool> pools = new ArrayList<>();
+        if (primaryPool != null) {
+            pools.add(primaryPool);
+        }
+        pools.addAll(replicaPools);
+        return pools;
+    }
+
+    /**
+     * Closes all connection pools. Called once on application shutdown.
+     */
+    public static synchronized void shutdown() {
+        if (primaryPool != null) {
+            LOGGER.info("Shutting down connection pool: {}", primaryPool);
+            primaryPool.close();
+            primaryPool = null;
+        }
+        for (ConnectionPool replica : replicaPools) {
+            LOGGER.info("Shutting down connection pool: {}", replica);
+            replica.close();
         }
+        replicaPools = Collections.emptyList();
+    }
+
+    /**
+     * Brings the database schema up to date by applying pending migrations (see {@link SchemaMigrator}).
+     * When the schema is already current this is a single version query; no DDL is executed.
+     *
+     * @throws SchemaMigrator.MigrationException if a migration fails or an applied migration was modified.
+     */
+    public static void initializeSchema() {
+        new SchemaMigrator().migrate();
     }
 
     // Example of how it might be called, e.g., in Main.java or a setup routine
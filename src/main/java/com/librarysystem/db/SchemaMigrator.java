@@ -0,0 +1,328 @@
+package com.librarysystem.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the database schema up to date by applying versioned SQL migrations from the classpath.
+ *
+ * Migrations live under {@code db/migration/} and are listed, in order, in {@code migrations.txt}
+ * (classpath directories cannot be listed reliably from a jar). Each file is named
+ * {@code V<version>__<description>.sql}. Applied versions are recorded with a SHA-256 checksum in the
+ * {@code schema_version} table, so a released migration that is later edited is detected.
+ *
+ * When the schema is current, {@link #migrate()} costs a single query and runs no DDL.
+ */
+public class SchemaMigrator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    public static final String DEFAULT_LOCATION = "db/migration";
+    private static final String INDEX_FILE = "migrations.txt";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    // "Already exists" errors tolerated so migrations can run against databases created by the old schema.sql:
+    // 42S01 = table exists, 42S11 = index exists (standard SQLSTATEs), MySQL 1061 = duplicate key name (SQLSTATE 42000).
+    private static final Set<String> TOLERATED_SQL_STATES = new HashSet<>(Arrays.asList("42S01", "42S11"));
+    private static final int MYSQL_DUPLICATE_KEY_NAME = 1061;
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "checksum VARCHAR(64) NOT NULL, "
+            + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "execution_millis BIGINT NOT NULL)";
+
+    private final String location;
+    private final ConnectionPool.ConnectionFactory connectionSource;
+
+    public SchemaMigrator() {
+        this(DEFAULT_LOCATION, DatabaseUtil::getConnection);
+    }
+
+    // Constructor for testing with other migration sets or connection sources
+    public SchemaMigrator(String location, ConnectionPool.ConnectionFactory connectionSource) {
+        this.location = location;
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * One migration script found on the classpath.
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final String fileName;
+        private final String sql;
+        private final String checksum;
+
+        Migration(int version, String description, String fileName, String sql) {
+            this.version = version;
+            this.description = description;
+            this.fileName = fileName;
+            this.sql = sql;
+            this.checksum = sha256(sql);
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public String toString() {
+            return fileName;
+        }
+    }
+
+    /**
+     * Thrown when migrations cannot be loaded, applied or verified. The schema is then in an unknown state,
+     * so callers should not continue as if the database were usable.
+     */
+    public static class MigrationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public MigrationException(String message) {
+            super(message);
+        }
+
+        public MigrationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Applies all pending migrations in version order.
+     *
+     * @return The number of migrations applied; {@code 0} when the schema was already current.
+     * @throws MigrationException if a migration fails or an applied migration's checksum no longer matches.
+     */
+    public int migrate() {
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = connectionSource.create()) {
+            Map<Integer, String> applied = readAppliedVersions(conn);
+            verifyChecksums(migrations, applied);
+
+            List<Migration> pending = new ArrayList<>();
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.getVersion())) {
+                    pending.add(migration);
+                }
+            }
+            if (pending.isEmpty()) {
+                LOGGER.info("Database schema is current at version {}.", latestVersion(migrations));
+                return 0;
+            }
+
+            for (Migration migration : pending) {
+                apply(conn, migration);
+            }
+            LOGGER.info("Applied {} schema migration(s); schema is now at version {}.", pending.size(), latestVersion(migrations));
+            return pending.size();
+        } catch (SQLException e) {
+            throw new MigrationException("Schema migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads version and checksum of every applied migration in one query, creating the version table on first run.
+     */
+    private Map<Integer, String> readAppliedVersions(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version ORDER BY version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+            return applied;
+        } catch (SQLException e) {
+            // First run against this database: no version table yet.
+            LOGGER.info("No schema_version table found ({}); creating it.", e.getMessage());
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+        }
+        return applied;
+    }
+
+    private void verifyChecksums(List<Migration> migrations, Map<Integer, String> applied) {
+        for (Migration migration : migrations) {
+            String recorded = applied.get(migration.getVersion());
+            if (recorded != null && !recorded.equals(migration.getChecksum())) {
+                throw new MigrationException("Migration " + migration + " was modified after it was applied "
+                        + "(recorded checksum " + recorded + ", current " + migration.getChecksum() + "). "
+                        + "Restore the original file and add a new migration instead.");
+            }
+        }
+        int latestKnown = latestVersion(migrations);
+        for (Integer version : applied.keySet()) {
+            if (version > latestKnown) {
+                LOGGER.warn("Database has schema version {} applied, newer than this application knows ({}).", version, latestKnown);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        LOGGER.info("Applying schema migration {}...", migration);
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : splitStatements(migration.sql)) {
+                try {
+                    stmt.execute(statement);
+                } catch (SQLException e) {
+                    if (isAlreadyExists(e)) {
+                        LOGGER.warn("Object in migration {} already exists, skipping: {}", migration, summarize(statement));
+                    } else {
+                        throw new MigrationException("Migration " + migration + " failed at statement: " + summarize(statement)
+                                + ". Error: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_millis) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setString(3, migration.getChecksum());
+            pstmt.setLong(4, elapsed);
+            pstmt.executeUpdate();
+        }
+        LOGGER.info("Applied schema migration {} in {} ms.", migration, elapsed);
+    }
+
+    private static boolean isAlreadyExists(SQLException e) {
+        return TOLERATED_SQL_STATES.contains(e.getSQLState()) || e.getErrorCode() == MYSQL_DUPLICATE_KEY_NAME;
+    }
+
+    /**
+     * Loads the migrations listed in the index file, in version order.
+     */
+    List<Migration> loadMigrations() {
+        String index = readResource(location + "/" + INDEX_FILE);
+        List<Migration> migrations = new ArrayList<>();
+        int previousVersion = 0;
+        for (String line : index.split("\\r?\\n")) {
+            String fileName = line.trim();
+            if (fileName.isEmpty() || fileName.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new MigrationException("Migration file name must look like V<version>__<description>.sql: " + fileName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previousVersion) {
+                throw new MigrationException("Migrations must be listed in increasing version order: " + fileName);
+            }
+            previousVersion = version;
+            String description = matcher.group(2).replace('_', ' ');
+            migrations.add(new Migration(version, description, fileName, readResource(location + "/" + fileName)));
+        }
+        return migrations;
+    }
+
+    private static int latestVersion(List<Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    private static String readResource(String path) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new MigrationException("Migration resource not found on classpath: " + path);
+            }
+            // Normalize line endings so checksums do not depend on how the file was checked out.
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new MigrationException("Could not read migration resource: " + path, e);
+        }
+    }
+
+    /**
+     * Splits a script into statements on semicolons, ignoring semicolons inside quotes and comments.
+     * Comments are dropped.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            char next = i + 1 < script.length() ? script.charAt(i + 1) : 0;
+            if (quote != 0) {
+                current.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '-' && next == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end - 1; // Keep the newline as a separator
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? script.length() : end + 1;
+                current.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static String summarize(String statement) {
+        String oneLine = statement.replaceAll("\\s+", " ");
+        return oneLine.length() > 100 ? oneLine.substring(0, 100) + "..." : oneLine;
+    }
+
+    private static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.librarysystem.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection LRU cache of prepared statements keyed by SQL text.
+ * Lives with a pooled physical connection, so constant DAO queries are parsed once per connection
+ * (and, with server-side prepares enabled in the driver, prepared once on the server).
+ *
+ * Callers receive a proxy; closing it closes any result sets it produced, clears its parameters, resets the
+ * fetch size and row limit a streaming query may have set, and hands the physical statement back to the cache
+ * instead of closing it.
+ */
+class StatementCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection physicalConnection;
+    private final int maxSize;
+    private final AtomicLong hitCounter;
+    private final AtomicLong missCounter;
+    private final LinkedHashMap<StatementKey, CachedStatement> statements;
+
+    /**
+     * @param physicalConnection The connection that owns the statements.
+     * @param maxSize Maximum number of statements kept per connection.
+     * @param hitCounter Pool-wide hit counter, shared by all caches of a pool.
+     * @param missCounter Pool-wide miss counter, shared by all caches of a pool.
+     */
+    StatementCache(Connection physicalConnection, int maxSize, AtomicLong hitCounter, AtomicLong missCounter) {
+        this.physicalConnection = physicalConnection;
+        this.maxSize = maxSize;
+        this.hitCounter = hitCounter;
+        this.missCounter = missCounter;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, reusing a cached one when available.
+     *
+     * @param autoGeneratedKeys {@link java.sql.Statement#RETURN_GENERATED_KEYS}, {@link java.sql.Statement#NO_GENERATED_KEYS},
+     *                          or {@code null} for the plain {@code prepareStatement(sql)} call.
+     */
+    PreparedStatement prepare(String sql, Integer autoGeneratedKeys) throws SQLException {
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        CachedStatement cached;
+        synchronized (this) {
+            cached = statements.get(key);
+            if (cached != null && !cached.inUse) {
+                cached.inUse = true;
+                hitCounter.incrementAndGet();
+                return cached.newHandle();
+            }
+        }
+        missCounter.incrementAndGet();
+        PreparedStatement physical = autoGeneratedKeys == null
+                ? physicalConnection.prepareStatement(sql)
+                : physicalConnection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL already checked out on this connection (nested use); hand out an uncached statement.
+            return physical;
+        }
+        CachedStatement fresh = new CachedStatement(key, physical);
+        fresh.inUse = true;
+        synchronized (this) {
+            statements.put(key, fresh);
+            evictOverflow();
+        }
+        return fresh.newHandle();
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            it.remove();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                closeQuietly(eldest.physical);
+            }
+        }
+    }
+
+    private void checkIn(CachedStatement cached) {
+        boolean reusable = false;
+        try {
+            cached.closeOpenResultSets();
+            cached.physical.clearParameters();
+            cached.physical.clearBatch();
+            // A cursor fetch size left by a stream* method must not carry over to the next user of this SQL
+            cached.physical.setFetchSize(0);
+            cached.physical.setMaxRows(0);
+            reusable = true;
+        } catch (SQLException e) {
+            LOGGER.debug("Discarding cached statement after failed reset: {}", e.getMessage());
+        }
+        synchronized (this) {
+            cached.inUse = false;
+            if (!reusable && !cached.evicted) {
+                statements.remove(cached.key);
+                cached.evicted = true;
+            }
+        }
+        if (cached.evicted) {
+            closeQuietly(cached.physical);
+        }
+    }
+
+    /**
+     * Checks in statements a caller forgot to close. Called when the connection returns to the pool.
+     */
+    void reclaimAll() {
+        List<CachedStatement> inUse = new ArrayList<>();
+        synchronized (this) {
+            for (CachedStatement cached : statements.values()) {
+                if (cached.inUse) {
+                    inUse.add(cached);
+                }
+            }
+        }
+        for (CachedStatement cached : inUse) {
+            cached.handleClosed();
+        }
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Error closing evicted statement: {}", e.getMessage());
+        }
+    }
+
+    private static final class StatementKey {
+        private final String sql;
+        private final Integer autoGeneratedKeys;
+
+        private StatementKey(String sql, Integer autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StatementKey)) return false;
+            StatementKey that = (StatementKey) o;
+            return sql.equals(that.sql) && Objects.equals(autoGeneratedKeys, that.autoGeneratedKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+
+    private final class CachedStatement {
+        private final StatementKey key;
+        private final PreparedStatement physical;
+        private final List<ResultSet> openResultSets = new ArrayList<>();
+        private boolean inUse;
+        private boolean evicted;
+        private StatementHandle currentHandle;
+
+        private CachedStatement(StatementKey key, PreparedStatement physical) {
+            this.key = key;
+            this.physical = physical;
+        }
+
+        private PreparedStatement newHandle() {
+            currentHandle = new StatementHandle(this);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    currentHandle);
+        }
+
+        private void handleClosed() {
+            StatementHandle handle = currentHandle;
+            if (handle != null) {
+                handle.closeHandle();
+            }
+        }
+
+        private void closeOpenResultSets() throws SQLException {
+            for (ResultSet rs : openResultSets) {
+                if (!rs.isClosed()) {
+                    rs.close();
+                }
+            }
+            openResultSets.clear();
+        }
+    }
+
+    /**
+     * The proxy handed to a caller for one checkout of a cached statement.
+     */
+    private final class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean closed;
+
+        private StatementHandle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        private void closeHandle() {
+            if (!closed) {
+                closed = true;
+                checkIn(cached);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closeHandle();
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedPreparedStatement[" + cached.key.sql + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed.");
+            }
+            Object result;
+            try {
+                result = method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                cached.openResultSets.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
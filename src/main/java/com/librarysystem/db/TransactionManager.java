@@ -0,0 +1,208 @@
+package com.librarysystem.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs a unit of work that spans several DAO calls on a single connection and commits once.
+ *
+ * While a unit of work is active on the current thread, {@link DatabaseUtil#getConnection()} and
+ * {@link DatabaseUtil#getReadConnection()} hand out the transaction's connection, so existing DAO code
+ * joins the transaction without changes (closing the connection inside a DAO is a no-op).
+ * The connection is borrowed lazily on first use; a unit of work that never touches the database costs nothing.
+ *
+ * Because DAOs report failures through return values rather than exceptions, the work marks the
+ * transaction with {@link Transaction#setRollbackOnly()} when a step fails. Any exception thrown by the
+ * work also rolls the transaction back.
+ */
+public class TransactionManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionManager.class);
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    /**
+     * A unit of work executed inside a transaction.
+     */
+    @FunctionalInterface
+    public interface TransactionalWork<T> {
+        T execute(Transaction transaction);
+    }
+
+    private final ConnectionPool.ConnectionFactory connectionSource;
+
+    public TransactionManager() {
+        this(DatabaseUtil::borrowPrimaryConnection);
+    }
+
+    // Constructor for testing with a custom connection source
+    public TransactionManager(ConnectionPool.ConnectionFactory connectionSource) {
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * Runs the work in a transaction. If a transaction is already active on this thread, the work joins it
+     * and the outermost unit of work decides whether to commit.
+     *
+     * @param work The DAO calls to run atomically.
+     * @return The value returned by the work.
+     * @throws TransactionException if the transaction could not be started, committed or rolled back.
+     */
+    public <T> T inTransaction(TransactionalWork<T> work) {
+        Transaction existing = CURRENT.get();
+        if (existing != null) {
+            return work.execute(existing);
+        }
+
+        Transaction transaction = new Transaction(connectionSource);
+        CURRENT.set(transaction);
+        try {
+            T result = work.execute(transaction);
+            transaction.complete();
+            return result;
+        } catch (RuntimeException | Error e) {
+            transaction.setRollbackOnly();
+            transaction.completeQuietly();
+            throw e;
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Returns true if a unit of work is active on the current thread.
+     */
+    public static boolean isTransactionActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Returns the connection of the active transaction (borrowing it on first use), or {@code null} if none is active.
+     */
+    static Connection currentTransactionConnection() throws SQLException {
+        Transaction transaction = CURRENT.get();
+        return transaction == null ? null : transaction.getConnectionHandle();
+    }
+
+    /**
+     * State of one unit of work.
+     */
+    public static class Transaction {
+        private final ConnectionPool.ConnectionFactory connectionSource;
+        private Connection connection;
+        private Connection handle;
+        private boolean rollbackOnly;
+
+        private Transaction(ConnectionPool.ConnectionFactory connectionSource) {
+            this.connectionSource = connectionSource;
+        }
+
+        /**
+         * Marks the transaction so it is rolled back instead of committed when the unit of work ends.
+         */
+        public void setRollbackOnly() {
+            rollbackOnly = true;
+        }
+
+        public boolean isRollbackOnly() {
+            return rollbackOnly;
+        }
+
+        private Connection getConnectionHandle() throws SQLException {
+            if (connection == null) {
+                connection = connectionSource.create();
+                connection.setAutoCommit(false);
+                handle = nonClosingHandle(connection);
+            }
+            return handle;
+        }
+
+        private void complete() {
+            if (connection == null) {
+                return;
+            }
+            try {
+                if (rollbackOnly) {
+                    connection.rollback();
+                    LOGGER.debug("Transaction rolled back.");
+                } else {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Failed to {} transaction.", rollbackOnly ? "roll back" : "commit", e);
+                tryRollback();
+                throw new TransactionException("Failed to complete transaction: " + e.getMessage(), e);
+            } finally {
+                release();
+            }
+        }
+
+        private void completeQuietly() {
+            try {
+                complete();
+            } catch (TransactionException e) {
+                // Already logged; the original failure is more useful to the caller.
+            }
+        }
+
+        private void tryRollback() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                LOGGER.error("Rollback after failed commit also failed.", e);
+            }
+        }
+
+        private void release() {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOGGER.warn("Could not restore auto-commit on transaction connection: {}", e.getMessage());
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.warn("Could not release transaction connection: {}", e.getMessage());
+            }
+            connection = null;
+            handle = null;
+        }
+
+        private static Connection nonClosingHandle(Connection target) {
+            return (Connection) Proxy.newProxyInstance(
+                    TransactionManager.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null; // The unit of work owns the connection
+                            case "commit":
+                            case "rollback":
+                            case "setAutoCommit":
+                                throw new SQLException("Transaction boundaries are managed by TransactionManager.");
+                            default:
+                                try {
+                                    return method.invoke(target, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Thrown when a transaction cannot be started, committed or rolled back.
+     */
+    public static class TransactionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public TransactionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -24,6 +24,19 @@ public class Book {
         this.isAvailable = totalCopies > 0;
     }
 
+    // Copy constructor, used to hand out cached books without sharing the instance
+    public Book(Book other) {
+        this.isbn = other.isbn;
+        this.title = other.title;
+        this.author = other.author;
+        this.publicationYear = other.publicationYear;
+        this.genre = other.genre;
+        this.isAvailable = other.isAvailable;
+        this.totalCopies = other.totalCopies;
+        this.availableCopies = other.availableCopies;
+        this.bookIdPk = other.bookIdPk;
+    }
+
     // Getters
     public int getBookIdPk() {
         return bookIdPk;
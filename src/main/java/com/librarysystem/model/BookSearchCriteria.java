@@ -0,0 +1,238 @@
+package com.librarysystem.model;
+
+import java.time.Year;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Filters for a catalog search. Every criterion is optional; set ones are combined with AND.
+ * Text criteria are case-insensitive: title and author match anywhere in the field, ISBN matches a prefix.
+ *
+ * Results are ordered by title and limited, so a broad search returns the first {@code limit} matches
+ * rather than the whole catalog. Use {@code offset} to page through them.
+ */
+public class BookSearchCriteria {
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 1000;
+
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final String genre;
+    private final Set<String> genres;
+    private final Set<Integer> decades;
+    private final Year yearFrom;
+    private final Year yearTo;
+    private final boolean availableOnly;
+    private final int limit;
+    private final int offset;
+
+    private BookSearchCriteria(Builder builder) {
+        this.title = builder.title;
+        this.author = builder.author;
+        this.isbn = builder.isbn;
+        this.genre = builder.genre;
+        this.genres = Collections.unmodifiableSet(new LinkedHashSet<>(builder.genres));
+        this.decades = Collections.unmodifiableSet(new LinkedHashSet<>(builder.decades));
+        this.yearFrom = builder.yearFrom;
+        this.yearTo = builder.yearTo;
+        this.availableOnly = builder.availableOnly;
+        this.limit = builder.limit;
+        this.offset = builder.offset;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Title substring, or {@code null} for any title. */
+    public String getTitle() {
+        return title;
+    }
+
+    /** Author substring, or {@code null} for any author. */
+    public String getAuthor() {
+        return author;
+    }
+
+    /** ISBN prefix, or {@code null} for any ISBN. */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /** Exact genre, or {@code null} for any genre. */
+    public String getGenre() {
+        return genre;
+    }
+
+    /** Genres of which the book must have one, or empty for any genre. */
+    public Set<String> getGenres() {
+        return genres;
+    }
+
+    /** First years of the decades (e.g. 1950) in one of which the book was published, or empty for any year. */
+    public Set<Integer> getDecades() {
+        return decades;
+    }
+
+    /** Earliest publication year (inclusive), or {@code null}. */
+    public Year getYearFrom() {
+        return yearFrom;
+    }
+
+    /** Latest publication year (inclusive), or {@code null}. */
+    public Year getYearTo() {
+        return yearTo;
+    }
+
+    public boolean isAvailableOnly() {
+        return availableOnly;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns criteria for the next {@code limit} results of the same search.
+     */
+    public BookSearchCriteria nextPage() {
+        Builder builder = new Builder();
+        builder.title = title;
+        builder.author = author;
+        builder.isbn = isbn;
+        builder.genre = genre;
+        builder.genres.addAll(genres);
+        builder.decades.addAll(decades);
+        builder.yearFrom = yearFrom;
+        builder.yearTo = yearTo;
+        builder.availableOnly = availableOnly;
+        builder.limit = limit;
+        builder.offset = offset + limit;
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "BookSearchCriteria{" +
+                "title='" + title + '\'' +
+                ", author='" + author + '\'' +
+                ", isbn='" + isbn + '\'' +
+                ", genre='" + genre + '\'' +
+                ", genres=" + genres +
+                ", decades=" + decades +
+                ", yearFrom=" + yearFrom +
+                ", yearTo=" + yearTo +
+                ", availableOnly=" + availableOnly +
+                ", limit=" + limit +
+                ", offset=" + offset +
+                '}';
+    }
+
+    public static class Builder {
+        private String title;
+        private String author;
+        private String isbn;
+        private String genre;
+        private final Set<String> genres = new LinkedHashSet<>();
+        private final Set<Integer> decades = new LinkedHashSet<>();
+        private Year yearFrom;
+        private Year yearTo;
+        private boolean availableOnly;
+        private int limit = DEFAULT_LIMIT;
+        private int offset;
+
+        private Builder() {
+        }
+
+        public Builder title(String title) {
+            this.title = blankToNull(title);
+            return this;
+        }
+
+        public Builder author(String author) {
+            this.author = blankToNull(author);
+            return this;
+        }
+
+        public Builder isbn(String isbn) {
+            this.isbn = blankToNull(isbn);
+            return this;
+        }
+
+        public Builder genre(String genre) {
+            this.genre = blankToNull(genre);
+            return this;
+        }
+
+        /**
+         * Restricts the search to books of any of {@code genres}, as chosen in the genre facet.
+         */
+        public Builder genres(Collection<String> genres) {
+            this.genres.clear();
+            genres.forEach(genre -> {
+                if (blankToNull(genre) != null) {
+                    this.genres.add(genre.trim());
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Restricts the search to books published in any of {@code decades}, each given by its first year.
+         */
+        public Builder decades(Collection<Integer> decades) {
+            this.decades.clear();
+            this.decades.addAll(decades);
+            return this;
+        }
+
+        public Builder yearFrom(Year yearFrom) {
+            this.yearFrom = yearFrom;
+            return this;
+        }
+
+        public Builder yearTo(Year yearTo) {
+            this.yearTo = yearTo;
+            return this;
+        }
+
+        public Builder availableOnly(boolean availableOnly) {
+            this.availableOnly = availableOnly;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder offset(int offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public BookSearchCriteria build() {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+            }
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset must not be negative: " + offset);
+            }
+            if (yearFrom != null && yearTo != null && yearFrom.isAfter(yearTo)) {
+                throw new IllegalArgumentException("yearFrom " + yearFrom + " is after yearTo " + yearTo);
+            }
+            return new BookSearchCriteria(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.trim().isEmpty() ? null : value.trim();
+        }
+    }
+}
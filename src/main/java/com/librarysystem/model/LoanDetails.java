@@ -0,0 +1,54 @@
+package com.librarysystem.model;
+
+/**
+ * A borrowing record together with the catalog details needed to display it,
+ * read in one joined query instead of one book lookup per loan.
+ */
+public class LoanDetails {
+    private final BorrowingRecord record;
+    private final String isbn;
+    private final String title;
+    private final String author;
+
+    public LoanDetails(BorrowingRecord record, String isbn, String title, String author) {
+        this.record = record;
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+    }
+
+    // Copy constructor, used to hand out cached loans without sharing the record
+    public LoanDetails(LoanDetails other) {
+        BorrowingRecord r = other.record;
+        this.record = new BorrowingRecord(r.getBorrowId(), r.getBookId(), r.getUserId(), r.getBorrowDate(), r.getDueDate(), r.getReturnDate());
+        this.isbn = other.isbn;
+        this.title = other.title;
+        this.author = other.author;
+    }
+
+    public BorrowingRecord getRecord() {
+        return record;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanDetails{" +
+                "borrowId=" + record.getBorrowId() +
+                ", isbn='" + isbn + '\'' +
+                ", title='" + title + '\'' +
+                ", dueDate=" + record.getDueDate() +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package com.librarysystem.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * One page of a keyset-paginated query, plus what is needed to ask for the next one.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final PageRequest request;
+    private final Integer lastKey;
+    private final boolean hasMore;
+
+    public Page(List<T> items, PageRequest request, Integer lastKey, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.request = request;
+        this.lastKey = lastKey;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code LIMIT pageSize + 1}; the extra row only signals that more rows exist.
+     */
+    public static <T> Page<T> fromFetched(List<T> fetched, PageRequest request, ToIntFunction<T> keyOf) {
+        boolean hasMore = fetched.size() > request.getPageSize();
+        List<T> items = hasMore ? fetched.subList(0, request.getPageSize()) : fetched;
+        Integer lastKey = items.isEmpty() ? request.getAfterKey() : Integer.valueOf(keyOf.applyAsInt(items.get(items.size() - 1)));
+        return new Page<>(items, request, lastKey, hasMore);
+    }
+
+    public static <T> Page<T> empty(PageRequest request) {
+        return new Page<>(Collections.emptyList(), request, request.getAfterKey(), false);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * The key of the last row on this page, to pass to {@link PageRequest#after}.
+     */
+    public Integer getLastKey() {
+        return lastKey;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Returns the request for the following page in the same direction, or {@code null} if this is the last page.
+     */
+    public PageRequest nextPageRequest() {
+        if (!hasMore) {
+            return null;
+        }
+        return PageRequest.after(lastKey, request.getPageSize(), request.getDirection());
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", lastKey=" + lastKey +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.librarysystem.model;
+
+/**
+ * Asks for one page of a keyset-paginated query: at most {@code pageSize} rows whose key comes after
+ * {@code afterKey} in the requested direction. Keys are the table's primary key, so each page is an
+ * index range scan whose cost does not depend on how deep into the table the page is.
+ */
+public class PageRequest {
+
+    public enum Direction {
+        /** Oldest (lowest key) first. */
+        ASC,
+        /** Newest (highest key) first. */
+        DESC
+    }
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final int pageSize;
+    private final Integer afterKey; // null = first page
+    private final Direction direction;
+
+    private PageRequest(int pageSize, Integer afterKey, Direction direction) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.afterKey = afterKey;
+        this.direction = direction;
+    }
+
+    /**
+     * Requests the first page.
+     */
+    public static PageRequest first(int pageSize, Direction direction) {
+        return new PageRequest(pageSize, null, direction);
+    }
+
+    /**
+     * Requests the page that follows the row with key {@code lastSeenKey}.
+     */
+    public static PageRequest after(int lastSeenKey, int pageSize, Direction direction) {
+        return new PageRequest(pageSize, lastSeenKey, direction);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Integer getAfterKey() {
+        return afterKey;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * The key to compare against in SQL: {@code afterKey}, or a bound that includes every row on the first page.
+     */
+    public int getSeekKey() {
+        if (afterKey != null) {
+            return afterKey;
+        }
+        return direction == Direction.ASC ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "PageRequest{" +
+                "pageSize=" + pageSize +
+                ", afterKey=" + afterKey +
+                ", direction=" + direction +
+                '}';
+    }
+}
@@ -27,6 +27,14 @@ public class User {
         this.role = role;
     }
 
+    // Copy constructor, used to hand out cached users without sharing the instance
+    public User(User other) {
+        this.userId = other.userId;
+        this.username = other.username;
+        this.passwordHash = other.passwordHash;
+        this.role = other.role;
+    }
+
     // Getters
     public int getUserId() {
         return userId;
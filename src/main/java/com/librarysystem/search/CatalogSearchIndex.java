@@ -0,0 +1,329 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Trigram indexes over the title, author and ISBN of every book in the catalog, for substring search
+ * without a database scan, prefix indexes over the same fields for typeahead completion, a
+ * {@link FuzzyIndex} over title and author words for typo-tolerant search, and a {@link FacetIndex}
+ * for filtering and counting by genre, decade and availability.
+ * Search results are book IDs; callers load the books themselves.
+ *
+ * Completions are ranked by popularity: each book weighs one plus the number of times it has been borrowed,
+ * and a title or author weighs the sum over its books.
+ *
+ * The index is built once from a full read of the catalog and then kept current by the service that
+ * changes books. Until the first build finishes, {@link #isReady()} is {@code false} and callers should
+ * search the database instead. Changes made while a build is running win over the rows the build reads.
+ */
+public class CatalogSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    public enum Field {
+        TITLE,
+        AUTHOR,
+        ISBN,
+        /** Title, author or ISBN. */
+        ANY
+    }
+
+    private static volatile CatalogSearchIndex shared;
+
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex authors = new TrigramIndex();
+    private final TrigramIndex isbns = new TrigramIndex();
+    private final PrefixIndex titleCompletions = new PrefixIndex();
+    private final PrefixIndex authorCompletions = new PrefixIndex();
+    private final PrefixIndex isbnCompletions = new PrefixIndex();
+    private final FuzzyIndex fuzzy = new FuzzyIndex();
+    private final FacetIndex facets = new FacetIndex();
+
+    // Writes are guarded by "this"; the trigram indexes have their own locks for searches.
+    private final Map<String, Integer> idByIsbn = new HashMap<>();
+    private final Map<Integer, IndexedBook> indexed = new HashMap<>();
+    private Set<String> changedDuringBuild; // Non-null while a build is running
+    private final Set<String> staleAfterBuild = new HashSet<>();
+    private volatile boolean ready;
+
+    /**
+     * What was indexed for a book, so its completions can be withdrawn when it changes.
+     */
+    private static final class IndexedBook {
+        final String isbn;
+        final String title;
+        final String author;
+        final long weight;
+
+        IndexedBook(Book book, long weight) {
+            this.isbn = book.getIsbn();
+            this.title = book.getTitle();
+            this.author = book.getAuthor();
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Returns the process-wide index. It is empty and not ready until {@link #build(Stream)} is called.
+     */
+    public static CatalogSearchIndex shared() {
+        if (shared == null) {
+            synchronized (CatalogSearchIndex.class) {
+                if (shared == null) {
+                    shared = new CatalogSearchIndex();
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Whether the index holds the whole catalog and can answer searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the index contents with {@code books}, all with the same popularity.
+     */
+    public int build(Stream<Book> books) {
+        return build(books, Map.of());
+    }
+
+    /**
+     * Replaces the index contents with {@code books}. The index is not ready while building.
+     *
+     * @param borrowCounts Times each book (by ID) has been borrowed, used to rank completions.
+     * @return The number of books indexed.
+     */
+    public int build(Stream<Book> books, Map<Integer, Integer> borrowCounts) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            changedDuringBuild = new HashSet<>();
+            titles.clear();
+            authors.clear();
+            isbns.clear();
+            idByIsbn.clear();
+            indexed.clear();
+            titleCompletions.clear();
+            authorCompletions.clear();
+            isbnCompletions.clear();
+            fuzzy.clear();
+            facets.clear();
+            staleAfterBuild.clear();
+        }
+        int[] count = {0};
+        try {
+            books.forEach(book -> {
+                synchronized (this) {
+                    if (!changedDuringBuild.contains(book.getIsbn())) {
+                        put(book, 1 + borrowCounts.getOrDefault(book.getBookIdPk(), 0));
+                        count[0]++;
+                    }
+                }
+            });
+        } finally {
+            synchronized (this) {
+                changedDuringBuild = null;
+                titleCompletions.rebuild();
+                authorCompletions.rebuild();
+                isbnCompletions.rebuild();
+            }
+        }
+        ready = true;
+        LOGGER.info("Indexed {} books for search in {} ms ({} title trigrams).",
+                count[0], (System.nanoTime() - start) / 1_000_000, titles.getTrigramCount());
+        return count[0];
+    }
+
+    /**
+     * Adds or re-indexes a book. The book must have its database ID set.
+     */
+    public synchronized void index(Book book) {
+        if (book.getBookIdPk() == 0) {
+            LOGGER.warn("Not indexing book ISBN {} without a database ID.", book.getIsbn());
+            return;
+        }
+        if (changedDuringBuild != null) {
+            changedDuringBuild.add(book.getIsbn());
+        }
+        IndexedBook previous = indexed.get(book.getBookIdPk());
+        put(book, previous != null ? previous.weight : 1); // A re-indexed book keeps its popularity
+    }
+
+    private void put(Book book, long weight) {
+        Integer previousId = idByIsbn.put(book.getIsbn(), book.getBookIdPk());
+        if (previousId != null && previousId != book.getBookIdPk()) {
+            removeId(previousId);
+        }
+        titles.put(book.getBookIdPk(), book.getTitle());
+        authors.put(book.getBookIdPk(), book.getAuthor());
+        isbns.put(book.getBookIdPk(), book.getIsbn());
+        fuzzy.put(book.getBookIdPk(), book.getTitle() + " " + book.getAuthor());
+        facets.put(book);
+
+        IndexedBook previous = indexed.put(book.getBookIdPk(), new IndexedBook(book, weight));
+        if (previous != null) {
+            withdrawCompletions(previous);
+        }
+        titleCompletions.add(book.getTitle(), weight);
+        authorCompletions.add(book.getAuthor(), weight);
+        isbnCompletions.add(book.getIsbn(), weight);
+    }
+
+    private void withdrawCompletions(IndexedBook book) {
+        titleCompletions.remove(book.title, book.weight);
+        authorCompletions.remove(book.author, book.weight);
+        isbnCompletions.remove(book.isbn, book.weight);
+    }
+
+    public synchronized void remove(String isbn) {
+        if (changedDuringBuild != null) {
+            changedDuringBuild.add(isbn);
+        }
+        Integer id = idByIsbn.remove(isbn);
+        if (id != null) {
+            removeId(id);
+        }
+    }
+
+    /**
+     * Applies a committed change of {@code delta} available copies to a book's availability facet.
+     * While a build is running, the row it reads for the book may or may not include the change, so the
+     * book is reported by {@link #takeStaleAfterBuild()} to be re-read instead.
+     */
+    public synchronized void adjustAvailableCopies(String isbn, int delta) {
+        if (changedDuringBuild != null) {
+            staleAfterBuild.add(isbn);
+            return;
+        }
+        Integer id = idByIsbn.get(isbn);
+        if (id != null) {
+            facets.adjustAvailableCopies(id, delta);
+        }
+    }
+
+    /**
+     * Returns and forgets the ISBNs of books whose availability changed while the last build was reading them.
+     * They should be re-read and passed to {@link #index(Book)}.
+     */
+    public synchronized Set<String> takeStaleAfterBuild() {
+        Set<String> stale = new HashSet<>(staleAfterBuild);
+        staleAfterBuild.clear();
+        return stale;
+    }
+
+    private void removeId(int id) {
+        titles.remove(id);
+        authors.remove(id);
+        isbns.remove(id);
+        fuzzy.remove(id);
+        facets.remove(id);
+        IndexedBook previous = indexed.remove(id);
+        if (previous != null) {
+            withdrawCompletions(previous);
+        }
+    }
+
+    /**
+     * Returns the IDs of books whose field contains {@code query}, ignoring case and accents, in increasing ID order.
+     */
+    public List<Integer> search(String query, Field field, int limit) {
+        switch (field) {
+            case TITLE:
+                return titles.search(query, limit);
+            case AUTHOR:
+                return authors.search(query, limit);
+            case ISBN:
+                return isbns.search(query, limit);
+            default:
+                TreeSet<Integer> union = new TreeSet<>(titles.search(query, limit));
+                union.addAll(authors.search(query, limit));
+                union.addAll(isbns.search(query, limit));
+                List<Integer> ids = new ArrayList<>(limit);
+                for (Integer id : union) {
+                    if (ids.size() == limit) {
+                        break;
+                    }
+                    ids.add(id);
+                }
+                return ids;
+        }
+    }
+
+    /**
+     * Returns the IDs of books whose title and author words contain, for every word of {@code query}, a word
+     * within {@code maxDistance} edits of it; closest first. See {@link FuzzyIndex#search(String, int, int)}.
+     */
+    public List<Integer> searchFuzzy(String query, int maxDistance, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (FuzzyIndex.Match match : fuzzy.search(query, maxDistance, limit)) {
+            ids.add(match.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Like {@link #searchFuzzy(String, int, int)}, limited to books matching a facet selection. The facets are
+     * applied before the limit, so up to {@code limit} matching books are returned however few of the closest
+     * matches are in the selection.
+     */
+    public List<Integer> searchFuzzy(String query, int maxDistance, FacetIndex.Selection selection, int limit) {
+        BitSet allowed = facets.matching(selection);
+        List<Integer> ids = new ArrayList<>();
+        for (FuzzyIndex.Match match : fuzzy.search(query, maxDistance, allowed::get, limit)) {
+            ids.add(match.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of up to {@code limit} books matching a facet selection, in increasing ID order.
+     */
+    public List<Integer> searchFacets(FacetIndex.Selection selection, int limit) {
+        return facets.search(selection, limit);
+    }
+
+    /**
+     * Counts the books matching a facet selection, and the matches for each facet value.
+     */
+    public FacetIndex.Counts countFacets(FacetIndex.Selection selection) {
+        return facets.count(selection);
+    }
+
+    /**
+     * Returns up to {@code k} titles, authors or ISBNs starting with {@code prefix}, most popular first.
+     * Matching ignores case and accents.
+     *
+     * @throws IllegalArgumentException for {@link Field#ANY}.
+     */
+    public List<String> complete(String prefix, Field field, int k) {
+        switch (field) {
+            case TITLE:
+                return titleCompletions.complete(prefix, k);
+            case AUTHOR:
+                return authorCompletions.complete(prefix, k);
+            case ISBN:
+                return isbnCompletions.complete(prefix, k);
+            default:
+                throw new IllegalArgumentException("Completion needs a single field, not " + field);
+        }
+    }
+
+    public int size() {
+        return titles.size();
+    }
+}
@@ -0,0 +1,161 @@
+package com.librarysystem.search;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Probabilistic set membership with removal: {@link #mightContain(String)} never answers {@code false} for a
+ * string that was added and not removed, and answers {@code true} for an absent string with a small,
+ * configurable probability.
+ *
+ * Each string sets {@code k} of {@code m} slots, chosen by double hashing a 64-bit hash of the string. Slots are
+ * one-byte counters rather than bits, so a string can be removed by decrementing its slots. A counter that
+ * reaches 255 is never decremented again; that only leaves a false positive, never a false negative.
+ *
+ * With {@code n} strings, the expected false positive rate is {@code (1 - e^(-kn/m))^k}; the filter is sized so
+ * that this equals the requested rate at the expected number of strings, and it degrades gradually beyond it.
+ */
+public class CountingBloomFilter {
+    private static final int MAX_COUNT = 0xFF;
+
+    private final byte[] counters;
+    private final int hashCount;
+    private final int capacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long size; // Strings added minus strings removed
+
+    /**
+     * @param expectedInsertions Number of strings at which the false positive rate should be {@code falsePositiveRate}.
+     * @param falsePositiveRate Target probability of {@code mightContain} being {@code true} for an absent string.
+     */
+    public CountingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate in (0, 1)");
+        }
+        long slots = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filter for " + expectedInsertions + " strings at " + falsePositiveRate + " is too large");
+        }
+        this.counters = new byte[(int) Math.max(64, slots)];
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) counters.length / expectedInsertions * Math.log(2))));
+        this.capacity = expectedInsertions;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                int slot = slot(hash, i);
+                if ((counters[slot] & MAX_COUNT) < MAX_COUNT) {
+                    counters[slot]++;
+                }
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes one occurrence of a string that was added. Removing a string that was never added can cause
+     * false negatives for other strings, so only call this for strings known to be present.
+     */
+    public void remove(String value) {
+        long hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                if ((counters[slot(hash, i)] & MAX_COUNT) == 0) {
+                    return; // Never added; decrementing anything would corrupt other strings
+                }
+            }
+            for (int i = 0; i < hashCount; i++) {
+                int slot = slot(hash, i);
+                if ((counters[slot] & MAX_COUNT) < MAX_COUNT) {
+                    counters[slot]--;
+                }
+            }
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@code false} if the string is certainly absent; {@code true} if it is present or, rarely, absent.
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                if (counters[slot(hash, i)] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int slot(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return ((h1 + i * h2) & Integer.MAX_VALUE) % counters.length;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with MurmurHash3's mixer so both halves are well distributed.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Expected probability of a false positive at the current number of strings.
+     */
+    public double getExpectedFalsePositiveRate() {
+        lock.readLock().lock();
+        try {
+            return Math.pow(1 - Math.exp(-(double) hashCount * size / counters.length), hashCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of strings currently in the filter.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public int getSizeInBytes() {
+        return counters.length;
+    }
+}
@@ -0,0 +1,328 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap indexes over the genre, publication decade and availability of books, for combining facets and
+ * counting matches without touching the books themselves.
+ *
+ * Every facet value has a {@link BitSet} with one bit per book ID. A selection is the AND of its facets,
+ * each facet being the OR of its selected values, so filtering and counting cost a few word-wide
+ * operations per 64 books. Book IDs are dense auto-increment keys, which keeps the bitmaps compact.
+ *
+ * Available copies are tracked per book, so borrows and returns can adjust the availability bit in place.
+ */
+public class FacetIndex {
+
+    private final Map<String, BitSet> genres = new HashMap<>();
+    private final Map<Integer, BitSet> decades = new HashMap<>();
+    private final BitSet available = new BitSet();
+    private final BitSet all = new BitSet();
+    private final Map<Integer, Facets> books = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Facets {
+        final String genre;
+        final Integer decade;
+        int availableCopies;
+
+        Facets(String genre, Integer decade, int availableCopies) {
+            this.genre = genre;
+            this.decade = decade;
+            this.availableCopies = availableCopies;
+        }
+    }
+
+    /**
+     * Facet values to filter by. Values within a facet are alternatives; facets are combined with AND.
+     * An empty facet does not filter.
+     */
+    public static final class Selection {
+        private static final Selection ALL = new Selection(Collections.emptySet(), Collections.emptySet(), false);
+
+        private final Set<String> genres;
+        private final Set<Integer> decades;
+        private final boolean availableOnly;
+
+        public Selection(Collection<String> genres, Collection<Integer> decades, boolean availableOnly) {
+            this.genres = Collections.unmodifiableSet(new LinkedHashSet<>(genres));
+            this.decades = Collections.unmodifiableSet(new LinkedHashSet<>(decades));
+            this.availableOnly = availableOnly;
+        }
+
+        /**
+         * Selects every book.
+         */
+        public static Selection all() {
+            return ALL;
+        }
+
+        public Set<String> getGenres() {
+            return genres;
+        }
+
+        /**
+         * Selected decades, as their first year (1990 for the 1990s).
+         */
+        public Set<Integer> getDecades() {
+            return decades;
+        }
+
+        public boolean isAvailableOnly() {
+            return availableOnly;
+        }
+
+        @Override
+        public String toString() {
+            return "Selection{genres=" + genres + ", decades=" + decades + ", availableOnly=" + availableOnly + '}';
+        }
+    }
+
+    /**
+     * Match counts for a selection. The count shown for a facet value is the number of matches if that value
+     * were added to the selection's other facets, as is usual for facet navigation.
+     */
+    public static final class Counts {
+        private final int total;
+        private final Map<String, Integer> genres;
+        private final Map<Integer, Integer> decades;
+        private final int available;
+
+        Counts(int total, Map<String, Integer> genres, Map<Integer, Integer> decades, int available) {
+            this.total = total;
+            this.genres = Collections.unmodifiableMap(genres);
+            this.decades = Collections.unmodifiableMap(decades);
+            this.available = available;
+        }
+
+        /**
+         * Books matching the whole selection.
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Matches per genre, in genre order.
+         */
+        public Map<String, Integer> getGenres() {
+            return genres;
+        }
+
+        /**
+         * Matches per decade, oldest first.
+         */
+        public Map<Integer, Integer> getDecades() {
+            return decades;
+        }
+
+        /**
+         * Matches that are available now.
+         */
+        public int getAvailable() {
+            return available;
+        }
+    }
+
+    /**
+     * First year of the decade containing {@code year}.
+     */
+    public static int decadeOf(int year) {
+        return Math.floorDiv(year, 10) * 10;
+    }
+
+    /**
+     * Indexes or re-indexes a book under its database ID.
+     */
+    public void put(Book book) {
+        int id = book.getBookIdPk();
+        Integer decade = book.getPublicationYear() != null ? decadeOf(book.getPublicationYear().getValue()) : null;
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            books.put(id, new Facets(book.getGenre(), decade, book.getAvailableCopies()));
+            all.set(id);
+            if (book.getGenre() != null) {
+                genres.computeIfAbsent(book.getGenre(), g -> new BitSet()).set(id);
+            }
+            if (decade != null) {
+                decades.computeIfAbsent(decade, d -> new BitSet()).set(id);
+            }
+            available.set(id, book.getAvailableCopies() > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        Facets previous = books.remove(id);
+        if (previous == null) {
+            return;
+        }
+        all.clear(id);
+        available.clear(id);
+        if (previous.genre != null) {
+            clearBit(genres, previous.genre, id);
+        }
+        if (previous.decade != null) {
+            clearBit(decades, previous.decade, id);
+        }
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> bitmaps, K key, int id) {
+        BitSet bits = bitmaps.get(key);
+        bits.clear(id);
+        if (bits.isEmpty()) {
+            bitmaps.remove(key); // So values no book has any more are not offered as facets
+        }
+    }
+
+    /**
+     * Changes the available copies of an indexed book by {@code delta}, updating its availability bit.
+     *
+     * @return {@code false} if the book is not indexed.
+     */
+    public boolean adjustAvailableCopies(int id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Facets facets = books.get(id);
+            if (facets == null) {
+                return false;
+            }
+            facets.availableCopies += delta;
+            available.set(id, facets.availableCopies > 0);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            genres.clear();
+            decades.clear();
+            available.clear();
+            all.clear();
+            books.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of up to {@code limit} books matching {@code selection}, in increasing ID order.
+     */
+    public List<Integer> search(Selection selection, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet matches = filter(selection, true, true, true);
+            for (int id = matches.nextSetBit(0); id >= 0 && ids.size() < limit; id = matches.nextSetBit(id + 1)) {
+                ids.add(id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of all books matching {@code selection}, to narrow another search to them. The set is a copy.
+     */
+    public BitSet matching(Selection selection) {
+        lock.readLock().lock();
+        try {
+            return filter(selection, true, true, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the books matching {@code selection}, and the matches for every genre, decade and availability.
+     */
+    public Counts count(Selection selection) {
+        lock.readLock().lock();
+        try {
+            int total = filter(selection, true, true, true).cardinality();
+
+            Map<String, Integer> genreCounts = new TreeMap<>();
+            BitSet withoutGenre = filter(selection, false, true, true);
+            for (Map.Entry<String, BitSet> genre : genres.entrySet()) {
+                genreCounts.put(genre.getKey(), intersectionSize(withoutGenre, genre.getValue()));
+            }
+            Map<Integer, Integer> decadeCounts = new TreeMap<>();
+            BitSet withoutDecade = filter(selection, true, false, true);
+            for (Map.Entry<Integer, BitSet> decade : decades.entrySet()) {
+                decadeCounts.put(decade.getKey(), intersectionSize(withoutDecade, decade.getValue()));
+            }
+            int availableCount = intersectionSize(filter(selection, true, true, false), available);
+            return new Counts(total, genreCounts, decadeCounts, availableCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet filter(Selection selection, boolean byGenre, boolean byDecade, boolean byAvailability) {
+        BitSet result = (BitSet) all.clone();
+        if (byGenre && !selection.getGenres().isEmpty()) {
+            result.and(union(genres, selection.getGenres()));
+        }
+        if (byDecade && !selection.getDecades().isEmpty()) {
+            result.and(union(decades, selection.getDecades()));
+        }
+        if (byAvailability && selection.isAvailableOnly()) {
+            result.and(available);
+        }
+        return result;
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> bitmaps, Set<K> keys) {
+        BitSet union = new BitSet();
+        for (K key : keys) {
+            BitSet bits = bitmaps.get(key);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        return union;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet intersection = (BitSet) b.clone();
+        intersection.and(a);
+        return intersection.cardinality();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
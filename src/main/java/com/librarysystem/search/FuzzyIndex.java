@@ -0,0 +1,335 @@
+package com.librarysystem.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Typo-tolerant word search: finds documents containing, for every query word, a word within a
+ * bounded edit distance of it ("tolkein hobit" finds "The Hobbit" by "J.R.R. Tolkien").
+ *
+ * Distinct words of all documents are kept in a BK-tree keyed by Levenshtein distance, so the words near a
+ * query word are found by visiting only the subtrees the triangle inequality allows, not the whole
+ * vocabulary. Each word has a sorted posting list of the documents containing it. A query starts from
+ * the query word with the fewest matching documents and checks the remaining words against each
+ * candidate's own word list, so common words never expand into large unions.
+ *
+ * Results are ranked by the total edit distance over all query words, then by document ID.
+ */
+public class FuzzyIndex {
+
+    private final Map<String, TrigramIndex.PostingList> postings = new HashMap<>();
+    private final Map<Integer, String[]> documentWords = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BkNode root;
+
+    /**
+     * BK-tree node: children are keyed by their distance to this node's word.
+     * Words are never removed from the tree; a word without documents is simply skipped.
+     */
+    private static final class BkNode {
+        final String word;
+        final Map<Integer, BkNode> children = new HashMap<>(4);
+        int maxChildDistance; // Once the query is further than maxDistance + this, no child can match
+
+        BkNode(String word) {
+            this.word = word;
+        }
+    }
+
+    /**
+     * A document with its total edit distance to the query.
+     */
+    public static final class Match {
+        private final int id;
+        private final int distance;
+
+        Match(int id, int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return id + "@" + distance;
+        }
+    }
+
+    /**
+     * Indexes the words of {@code text} under {@code id}, replacing whatever was indexed under that ID before.
+     */
+    public void put(int id, String text) {
+        String[] words = words(text);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            documentWords.put(id, words);
+            for (String word : words) {
+                TrigramIndex.PostingList list = postings.get(word);
+                if (list == null) {
+                    list = new TrigramIndex.PostingList();
+                    postings.put(word, list);
+                    addToTree(word);
+                }
+                list.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        String[] previous = documentWords.remove(id);
+        if (previous != null) {
+            for (String word : previous) {
+                TrigramIndex.PostingList list = postings.get(word);
+                if (list != null) {
+                    list.remove(id); // Empty lists stay, as their word stays in the tree
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentWords.clear();
+            root = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addToTree(String word) {
+        if (root == null) {
+            root = new BkNode(word);
+            return;
+        }
+        BkNode node = root;
+        while (true) {
+            int distance = distance(word, node.word, Integer.MAX_VALUE);
+            BkNode child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new BkNode(word));
+                node.maxChildDistance = Math.max(node.maxChildDistance, distance);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds documents in which every query word is within its allowed edit distance of some document word.
+     * Words of up to two characters must match exactly and words of up to five characters allow one edit,
+     * so short words do not match half the vocabulary.
+     *
+     * @param query The words to look for.
+     * @param maxDistance Maximum edits allowed per word.
+     * @param limit Maximum number of matches returned.
+     * @return Matches, closest first.
+     */
+    public List<Match> search(String query, int maxDistance, int limit) {
+        return search(query, maxDistance, id -> true, limit);
+    }
+
+    /**
+     * Like {@link #search(String, int, int)}, but only documents accepted by {@code filter} are matched, so a
+     * selective filter does not leave the limited result short.
+     */
+    public List<Match> search(String query, int maxDistance, IntPredicate filter, int limit) {
+        String[] queryWords = words(query);
+        List<Match> matches = new ArrayList<>();
+        if (queryWords.length == 0 || limit <= 0) {
+            return matches;
+        }
+        lock.readLock().lock();
+        try {
+            // For each query word, the vocabulary words it may match and at what distance
+            List<Map<String, Integer>> nearWords = new ArrayList<>();
+            List<Integer> candidateCounts = new ArrayList<>();
+            for (String queryWord : queryWords) {
+                Map<String, Integer> near = new HashMap<>();
+                collect(root, queryWord, allowedDistance(queryWord, maxDistance), near);
+                int count = 0;
+                for (String word : near.keySet()) {
+                    count += postings.get(word).size();
+                }
+                if (count == 0) {
+                    return matches;
+                }
+                nearWords.add(near);
+                candidateCounts.add(count);
+            }
+
+            int seed = 0;
+            for (int q = 1; q < queryWords.length; q++) {
+                if (candidateCounts.get(q) < candidateCounts.get(seed)) {
+                    seed = q;
+                }
+            }
+            Map<Integer, Integer> seedDistances = new HashMap<>();
+            for (Map.Entry<String, Integer> near : nearWords.get(seed).entrySet()) {
+                TrigramIndex.PostingList list = postings.get(near.getKey());
+                for (int i = 0; i < list.size(); i++) {
+                    seedDistances.merge(list.get(i), near.getValue(), Math::min);
+                }
+            }
+
+            for (Map.Entry<Integer, Integer> candidate : seedDistances.entrySet()) {
+                if (!filter.test(candidate.getKey())) {
+                    continue;
+                }
+                int total = candidate.getValue();
+                String[] words = documentWords.get(candidate.getKey());
+                for (int q = 0; q < queryWords.length && total >= 0; q++) {
+                    if (q != seed) {
+                        int best = bestDistance(words, nearWords.get(q));
+                        total = best < 0 ? -1 : total + best;
+                    }
+                }
+                if (total >= 0) {
+                    matches.add(new Match(candidate.getKey(), total));
+                }
+            }
+            matches.sort(Comparator.comparingInt(Match::getDistance).thenComparingInt(Match::getId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int bestDistance(String[] documentWords, Map<String, Integer> near) {
+        int best = -1;
+        for (String word : documentWords) {
+            Integer distance = near.get(word);
+            if (distance != null && (best < 0 || distance < best)) {
+                best = distance;
+            }
+        }
+        return best;
+    }
+
+    private void collect(BkNode node, String word, int maxDistance, Map<String, Integer> near) {
+        // Iterative walk; a degenerate tree could be deep enough to overflow the stack
+        List<BkNode> pending = new ArrayList<>();
+        if (node != null) {
+            pending.add(node);
+        }
+        int[][] rows = {new int[word.length() + 1], new int[word.length() + 1]};
+        while (!pending.isEmpty()) {
+            BkNode current = pending.remove(pending.size() - 1);
+            // The exact distance is only needed up to the point where no child could be in range
+            int distance = distance(current.word, word, maxDistance + current.maxChildDistance, rows);
+            if (distance <= maxDistance && postings.get(current.word).size() > 0) {
+                near.put(current.word, distance);
+            }
+            for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                BkNode child = current.children.get(d);
+                if (child != null) {
+                    pending.add(child);
+                }
+            }
+        }
+    }
+
+    static int allowedDistance(String word, int maxDistance) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? Math.min(1, maxDistance) : maxDistance;
+    }
+
+    /**
+     * Levenshtein distance between {@code a} and {@code b}, or any value above {@code bound} once it is known to exceed it.
+     */
+    static int distance(String a, String b, int bound) {
+        return distance(a, b, bound, new int[][]{new int[b.length() + 1], new int[b.length() + 1]});
+    }
+
+    /**
+     * As {@link #distance(String, String, int)}, using two reusable rows of at least {@code b.length() + 1} entries.
+     */
+    private static int distance(String a, String b, int bound, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound == Integer.MAX_VALUE ? bound : bound + 1;
+        }
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * The distinct folded words of {@code text}, split on anything that is not a letter or digit.
+     */
+    static String[] words(String text) {
+        Set<String> words = new LinkedHashSet<>(Arrays.asList(TextNormalizer.fold(text).split("[^\\p{L}\\p{N}]+")));
+        words.remove("");
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Number of distinct words in the vocabulary, including words no document uses any more.
+     */
+    public int getVocabularySize() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.librarysystem.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix completion over a set of weighted strings, returning the top-K heaviest completions of a prefix.
+ *
+ * Strings are folded with {@link TextNormalizer} and kept in a sorted array, so the completions of a prefix
+ * form one contiguous range found by binary search. A segment tree over the weights yields the heaviest
+ * entry of any range, and the top K are taken from a heap of sub-ranges, in O(K log n) however many
+ * strings share the prefix.
+ *
+ * The same string added several times (two books with one title) is a single entry whose weight is the sum.
+ * Changes go to a small sorted overlay that queries merge with the array; the array is rebuilt once the
+ * overlay grows past a fraction of its size.
+ */
+public class PrefixIndex {
+    private static final int MIN_REBUILD_THRESHOLD = 1024;
+
+    private static final class Entry {
+        String display;
+        long weight;
+        int references;
+
+        Entry(String display) {
+            this.display = display;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Snapshot of the entries, sorted by key, as of the last rebuild
+    private String[] keys = new String[0];
+    private String[] displays = new String[0];
+    private long[] weights = new long[0];
+    private int[] tree = new int[0]; // tree[n + i] = i; tree[j] = index of the heaviest leaf under node j
+
+    // Keys changed since the snapshot; their snapshot rows are stale and the live entry is used instead
+    private final TreeMap<String, Entry> changed = new TreeMap<>();
+    private boolean deferRebuild;
+
+    /**
+     * Adds one reference to {@code text} with the given weight.
+     */
+    public void add(String text, long weight) {
+        String key = TextNormalizer.fold(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry(text.trim()));
+            if (entry.references == 0) {
+                entry.display = text.trim();
+            }
+            entry.references++;
+            entry.weight += weight;
+            markChanged(key, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes one reference to {@code text} that was added with the given weight.
+     */
+    public void remove(String text, long weight) {
+        String key = TextNormalizer.fold(text);
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return;
+            }
+            entry.references--;
+            entry.weight -= weight;
+            if (entry.references <= 0) {
+                entries.remove(key);
+            }
+            markChanged(key, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markChanged(String key, Entry entry) {
+        changed.put(key, entry);
+        if (!deferRebuild && changed.size() > Math.max(MIN_REBUILD_THRESHOLD, keys.length / 64)) {
+            rebuildLocked();
+        }
+    }
+
+    /**
+     * Removes everything and defers rebuilding until {@link #rebuild()}, for bulk loading.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            changed.clear();
+            keys = new String[0];
+            displays = new String[0];
+            weights = new long[0];
+            tree = new int[0];
+            deferRebuild = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Folds all pending changes into the sorted array.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuildLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        int n = entries.size();
+        String[] newKeys = entries.keySet().toArray(new String[0]);
+        Arrays.sort(newKeys);
+        String[] newDisplays = new String[n];
+        long[] newWeights = new long[n];
+        for (int i = 0; i < n; i++) {
+            Entry entry = entries.get(newKeys[i]);
+            newDisplays[i] = entry.display;
+            newWeights[i] = entry.weight;
+        }
+        int[] newTree = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            newTree[n + i] = i;
+        }
+        for (int j = n - 1; j > 0; j--) {
+            newTree[j] = heavier(newWeights, newTree[2 * j], newTree[2 * j + 1]);
+        }
+        keys = newKeys;
+        displays = newDisplays;
+        weights = newWeights;
+        tree = newTree;
+        changed.clear();
+        deferRebuild = false;
+    }
+
+    private static int heavier(long[] weights, int a, int b) {
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b] ? a : b;
+        }
+        return Math.min(a, b); // Ties go to the alphabetically first
+    }
+
+    /**
+     * Index of the heaviest snapshot entry in [from, to), which must not be empty.
+     */
+    private int heaviest(int from, int to) {
+        int n = keys.length;
+        int best = from;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                best = heavier(weights, best, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                best = heavier(weights, best, tree[--r]);
+            }
+        }
+        return best;
+    }
+
+    private static final class Range {
+        final int from;
+        final int to;
+        final int best;
+
+        Range(int from, int to, int best) {
+            this.from = from;
+            this.to = to;
+            this.best = best;
+        }
+    }
+
+    /**
+     * Returns up to {@code k} completions of {@code prefix}, heaviest first, ties in alphabetical order.
+     * Matching ignores case and accents; completions are returned as first added.
+     */
+    public List<String> complete(String prefix, int k) {
+        String key = TextNormalizer.fold(prefix);
+        List<String> completions = new ArrayList<>();
+        if (key.isEmpty() || k <= 0) {
+            return completions;
+        }
+        lock.readLock().lock();
+        try {
+            List<String> candidateKeys = new ArrayList<>();
+            List<Entry> candidates = new ArrayList<>();
+
+            int from = lowerBound(key);
+            int to = lowerBound(key + Character.MAX_VALUE);
+            PriorityQueue<Range> ranges = new PriorityQueue<>((a, b) -> heavier(weights, a.best, b.best) == a.best ? -1 : 1);
+            if (from < to) {
+                ranges.add(new Range(from, to, heaviest(from, to)));
+            }
+            int fromSnapshot = 0;
+            while (!ranges.isEmpty() && fromSnapshot < k) {
+                Range range = ranges.poll();
+                int i = range.best;
+                if (!changed.containsKey(keys[i])) {
+                    Entry entry = new Entry(displays[i]);
+                    entry.weight = weights[i];
+                    candidateKeys.add(keys[i]);
+                    candidates.add(entry);
+                    fromSnapshot++;
+                }
+                if (range.from < i) {
+                    ranges.add(new Range(range.from, i, heaviest(range.from, i)));
+                }
+                if (i + 1 < range.to) {
+                    ranges.add(new Range(i + 1, range.to, heaviest(i + 1, range.to)));
+                }
+            }
+
+            SortedMap<String, Entry> overlay = changed.subMap(key, key + Character.MAX_VALUE);
+            for (Map.Entry<String, Entry> change : overlay.entrySet()) {
+                if (change.getValue().references > 0) {
+                    candidateKeys.add(change.getKey());
+                    candidates.add(change.getValue());
+                }
+            }
+
+            Integer[] order = new Integer[candidates.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byWeight = Long.compare(candidates.get(b).weight, candidates.get(a).weight);
+                return byWeight != 0 ? byWeight : candidateKeys.get(a).compareTo(candidateKeys.get(b));
+            });
+            for (int i = 0; i < order.length && completions.size() < k; i++) {
+                completions.add(candidates.get(order[i]).display);
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Number of distinct strings.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.librarysystem.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text for in-memory search: accents are stripped, case is folded and runs of whitespace
+ * become a single space, so "Gabriel García Márquez" and "gabriel garcia  marquez" index the same.
+ */
+public final class TextNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Returns the folded form of {@code text}; {@code null} folds to the empty string.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = text;
+        if (!isAscii(folded)) {
+            folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        }
+        folded = folded.toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    // Most catalog text is plain ASCII; skipping normalization for it keeps index builds fast.
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,237 @@
+package com.librarysystem.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from character trigrams to document IDs, for substring search on one text field.
+ *
+ * Text is folded with {@link TextNormalizer}. A query is answered by intersecting the posting lists of its
+ * trigrams, smallest first, and then checking each remaining candidate with a plain substring test, so
+ * results are exact. Queries shorter than three characters have no trigrams and scan every document.
+ *
+ * Posting lists are sorted int arrays, so documents can be added, replaced and removed one at a time.
+ * Safe for concurrent use; searches share a read lock.
+ */
+public class TrigramIndex {
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Integer, String> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Sorted, growable list of document IDs.
+     */
+    static final class PostingList {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+            } else {
+                insertAt(size, id); // IDs usually arrive in increasing order
+            }
+        }
+
+        private void insertAt(int pos, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int id, int fromIndex) {
+            return Arrays.binarySearch(ids, fromIndex, size, id) >= 0;
+        }
+
+        int get(int index) {
+            return ids[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Indexes {@code text} under {@code id}, replacing whatever was indexed under that ID before.
+     */
+    public void put(int id, String text) {
+        String folded = TextNormalizer.fold(text);
+        lock.writeLock().lock();
+        try {
+            String previous = documents.put(id, folded);
+            Set<Long> oldGrams = previous != null ? trigrams(previous) : Set.of();
+            Set<Long> newGrams = trigrams(folded);
+            for (Long gram : oldGrams) {
+                if (!newGrams.contains(gram)) {
+                    removePosting(gram, id);
+                }
+            }
+            for (Long gram : newGrams) {
+                if (!oldGrams.contains(gram)) {
+                    postings.computeIfAbsent(gram, g -> new PostingList()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String previous = documents.remove(id);
+            if (previous != null) {
+                for (Long gram : trigrams(previous)) {
+                    removePosting(gram, id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removePosting(Long gram, int id) {
+        PostingList list = postings.get(gram);
+        if (list != null) {
+            list.remove(id);
+            if (list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of documents whose folded text contains the folded query, in increasing ID order.
+     *
+     * @param query The substring to look for. A blank query matches nothing.
+     * @param limit Maximum number of IDs returned.
+     */
+    public List<Integer> search(String query, int limit) {
+        String folded = TextNormalizer.fold(query);
+        List<Integer> matches = new ArrayList<>();
+        if (folded.isEmpty() || limit <= 0) {
+            return matches;
+        }
+        lock.readLock().lock();
+        try {
+            if (folded.length() < 3) {
+                return scan(folded, limit);
+            }
+            List<PostingList> lists = new ArrayList<>();
+            for (Long gram : trigrams(folded)) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return matches; // A trigram no document has
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            PostingList smallest = lists.get(0);
+            int[] cursors = new int[lists.size()]; // Candidates arrive in increasing order, so searches only move forward
+            for (int i = 0; i < smallest.size && matches.size() < limit; i++) {
+                int id = smallest.ids[i];
+                if (inAll(lists, cursors, id) && documents.get(id).contains(folded)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean inAll(List<PostingList> lists, int[] cursors, int id) {
+        for (int l = 1; l < lists.size(); l++) {
+            PostingList list = lists.get(l);
+            int pos = Arrays.binarySearch(list.ids, cursors[l], list.size, id);
+            if (pos < 0) {
+                cursors[l] = -pos - 1;
+                return false;
+            }
+            cursors[l] = pos + 1;
+        }
+        return true;
+    }
+
+    private List<Integer> scan(String folded, int limit) {
+        List<Integer> matches = new ArrayList<>();
+        for (Map.Entry<Integer, String> document : documents.entrySet()) {
+            if (document.getValue().contains(folded)) {
+                matches.add(document.getKey());
+            }
+        }
+        matches.sort(null);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Number of indexed documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct trigrams, i.e. posting lists.
+     */
+    public int getTrigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The distinct trigrams of already-folded text, each packed into a long (three 16-bit chars).
+     */
+    static Set<Long> trigrams(String folded) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= folded.length(); i++) {
+            grams.add(((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,155 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.model.LoanDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, least-recently-used cache of each user's active loans, keyed by user ID.
+ *
+ * A user's loans are read once, lazily, with the joined query behind the My Books tab, and then kept current
+ * in place by {@link LibraryService}: a committed borrow adds the loan and a committed return removes it.
+ * The duplicate-borrow check and the My Books tab are then answered without a query.
+ *
+ * Entries expire after a fixed time to live, which bounds how long a loan made by another client goes unseen.
+ * When a borrow or return fails to commit, its outcome is unknown and the user's entry is dropped instead.
+ * Callers always receive copies.
+ */
+public class ActiveLoanCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActiveLoanCache.class);
+
+    private static final Comparator<LoanDetails> BY_DUE_DATE = Comparator
+            .comparing((LoanDetails loan) -> loan.getRecord().getDueDate())
+            .thenComparingInt(loan -> loan.getRecord().getBorrowId());
+
+    private static volatile ActiveLoanCache shared;
+
+    private final TtlLruCache<Integer, Map<Integer, LoanDetails>> byUser;
+
+    /**
+     * @param maxUsers Maximum number of users whose loans are kept; {@code 0} disables caching.
+     * @param ttlMillis How long a user's loans are served before they are read from the database again.
+     */
+    public ActiveLoanCache(int maxUsers, long ttlMillis) {
+        this(maxUsers, ttlMillis, System::nanoTime);
+    }
+
+    // Constructor for testing with a controllable clock
+    ActiveLoanCache(int maxUsers, long ttlMillis, LongSupplier clock) {
+        this.byUser = new TtlLruCache<>(maxUsers, ttlMillis, clock, LinkedHashMap::new, (userId, loans) -> { });
+    }
+
+    /**
+     * Returns the process-wide cache configured from {@code cache.loans.*} keys.
+     */
+    public static ActiveLoanCache shared() {
+        if (shared == null) {
+            synchronized (ActiveLoanCache.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    int maxUsers = config.getBoolean("cache.loans.enabled", true) ? config.getInt("cache.loans.maxUsers", 5_000) : 0;
+                    shared = new ActiveLoanCache(maxUsers, config.getLong("cache.loans.ttlMillis", 600_000));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the user's active loans, soonest due first, calling {@code loader} if they are not cached.
+     */
+    public List<LoanDetails> getLoans(int userId, Function<Integer, List<LoanDetails>> loader) {
+        List<LoanDetails> loans = new ArrayList<>();
+        for (LoanDetails loan : loansByBorrowId(userId, loader).values()) {
+            loans.add(new LoanDetails(loan));
+        }
+        loans.sort(BY_DUE_DATE);
+        return loans;
+    }
+
+    /**
+     * Whether the user has an active loan of the book, calling {@code loader} if their loans are not cached.
+     */
+    public boolean hasLoan(int userId, int bookId, Function<Integer, List<LoanDetails>> loader) {
+        for (LoanDetails loan : loansByBorrowId(userId, loader).values()) {
+            if (loan.getRecord().getBookId() == bookId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Integer, LoanDetails> loansByBorrowId(int userId, Function<Integer, List<LoanDetails>> loader) {
+        Map<Integer, LoanDetails> cached = byUser.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = byUser.startLoad();
+        Map<Integer, LoanDetails> loaded = new LinkedHashMap<>();
+        for (LoanDetails loan : loader.apply(userId)) {
+            loaded.put(loan.getRecord().getBorrowId(), loan);
+        }
+        byUser.putLoaded(userId, loaded, loadGeneration);
+        return loaded;
+    }
+
+    /**
+     * Adds a committed loan to the user's cached loans, if they are cached.
+     */
+    public void recordBorrow(int userId, LoanDetails loan) {
+        LoanDetails copy = new LoanDetails(loan);
+        byUser.update(userId, loans -> loans.put(copy.getRecord().getBorrowId(), copy));
+    }
+
+    /**
+     * Removes a committed return from the user's cached loans, if they are cached.
+     */
+    public void recordReturn(int userId, int borrowId) {
+        byUser.update(userId, loans -> loans.remove(borrowId));
+    }
+
+    /**
+     * Drops the user's loans, so they are read again on next use.
+     */
+    public void invalidate(int userId) {
+        byUser.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        byUser.invalidateAll();
+    }
+
+    public int size() {
+        return byUser.size();
+    }
+
+    public long getHitCount() {
+        return byUser.getHitCount();
+    }
+
+    public long getMissCount() {
+        return byUser.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return byUser.getEvictionCount();
+    }
+
+    public void logStats() {
+        LOGGER.info("Active loan cache: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return "ActiveLoanCache{" + byUser.stats() + '}';
+    }
+}
@@ -0,0 +1,424 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.dao.LogEntryDAO;
+import com.librarysystem.model.LogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit log entries to the database on a background thread, so callers of
+ * {@link LogService#recordLog} do not wait for an INSERT.
+ *
+ * Entries go into a bounded queue. The writer thread takes whatever is queued and writes it with one
+ * JDBC batch once {@code batchSize} entries are waiting or {@code flushIntervalMillis} has passed since
+ * the first entry of the batch arrived (group commit). When the queue is full the {@link OverflowPolicy}
+ * decides what happens. {@link #close()} writes everything still queued before returning.
+ */
+public class AsyncLogWriter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncLogWriter.class);
+
+    /**
+     * What {@link #enqueue(LogEntry)} does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait for the writer to make room. No entry is lost, but the caller is delayed. */
+        BLOCK,
+        /** Discard the oldest queued entry (it is still written to the application log). */
+        DROP_OLDEST,
+        /** Append the entry to a local spill file; the writer loads it into the database once it catches up. */
+        SPILL_TO_DISK
+    }
+
+    private static volatile AsyncLogWriter shared;
+
+    private final LogEntryDAO logEntryDAO;
+    private final BlockingQueue<LogEntry> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final Object progressLock = new Object();
+    private final Object spillLock = new Object();
+    private long accepted; // Entries handed to the writer (queued), guarded by progressLock
+    private long completed; // Accepted entries written, failed or dropped, guarded by progressLock
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public AsyncLogWriter(LogEntryDAO logEntryDAO, int queueCapacity, int batchSize, long flushIntervalMillis,
+                          OverflowPolicy overflowPolicy, Path spillFile) {
+        if (queueCapacity < 1 || batchSize < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("queueCapacity, batchSize and flushIntervalMillis must be positive");
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK && spillFile == null) {
+            throw new IllegalArgumentException("SPILL_TO_DISK requires a spill file");
+        }
+        this.logEntryDAO = logEntryDAO;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+        this.writerThread = new Thread(this::runWriter, "audit-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Returns the process-wide writer configured from {@code log.async.*} keys, or {@code null} if
+     * asynchronous logging is disabled ({@code log.async.enabled=false}).
+     */
+    public static AsyncLogWriter shared() {
+        if (shared == null) {
+            synchronized (AsyncLogWriter.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    if (!config.getBoolean("log.async.enabled", true)) {
+                        return null;
+                    }
+                    shared = new AsyncLogWriter(
+                            new LogEntryDAO(),
+                            config.getInt("log.async.queueCapacity", 10_000),
+                            config.getInt("log.async.batchSize", 100),
+                            config.getLong("log.async.flushIntervalMillis", 200),
+                            OverflowPolicy.valueOf(config.getString("log.async.overflowPolicy", "SPILL_TO_DISK").trim()),
+                            Paths.get(config.getString("log.async.spillFile", "audit-log-spill.tsv")));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Flushes and stops the process-wide writer, if one was started. Call before shutting down the database.
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Queues an entry for writing. Returns immediately unless the queue is full and the policy is {@link OverflowPolicy#BLOCK}.
+     */
+    public void enqueue(LogEntry entry) {
+        if (!running) {
+            LOGGER.warn("Audit log writer is closed; writing entry synchronously: {}", entry);
+            writeBatch(List.of(entry), false);
+            return;
+        }
+        synchronized (progressLock) {
+            accepted++; // Counted before the writer can possibly complete it
+        }
+        if (queue.offer(entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(entry);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.error("Interrupted while waiting to queue audit log entry; entry not saved: {}", entry);
+                    markCompleted(1);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(entry)) {
+                    LogEntry oldest = queue.poll();
+                    if (oldest != null) {
+                        dropped.incrementAndGet();
+                        LOGGER.warn("Audit log queue full; dropped oldest entry: {}", oldest);
+                        markCompleted(1);
+                    }
+                }
+                break;
+            case SPILL_TO_DISK:
+                markCompleted(1); // Not queued; the spill file takes over
+                spill(List.of(entry));
+                break;
+            default:
+                throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+        }
+    }
+
+    /**
+     * Waits until every entry queued before this call has been written (or has failed).
+     *
+     * @return {@code true} if everything was flushed within the timeout.
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (progressLock) {
+            long target = accepted;
+            while (completed < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    progressLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops accepting new entries, writes everything still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            LOGGER.error("Audit log writer did not finish within 30s; {} entries may be lost.", queue.size());
+        } else {
+            // Entries queued by callers that raced with close()
+            List<LogEntry> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                writeBatch(remaining, true);
+            }
+        }
+        LOGGER.info("Audit log writer stopped: {}", this);
+    }
+
+    private void runWriter() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LogEntry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpillFile();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    LogEntry next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch, true);
+            } catch (InterruptedException e) {
+                // Only close() stops the writer; keep draining.
+            } catch (RuntimeException e) {
+                LOGGER.error("Unexpected error in audit log writer; {} entries affected.", batch.size(), e);
+                failed.addAndGet(batch.size());
+                markCompleted(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+        replaySpillFile();
+    }
+
+    private void writeBatch(List<LogEntry> batch, boolean accepted) {
+        int inserted = logEntryDAO.addLogEntries(batch);
+        batches.incrementAndGet();
+        if (inserted == batch.size()) {
+            written.addAndGet(inserted);
+        } else if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK) {
+            LOGGER.warn("Failed to write {} audit log entries; spilling them to {} for a later retry.", batch.size(), spillFile);
+            spill(batch);
+        } else {
+            failed.addAndGet(batch.size());
+            // Same fallback as the synchronous path: the application log keeps the information.
+            for (LogEntry entry : batch) {
+                LOGGER.error("Failed to save log to database! Log details - UserID: {}, Action: {}, Details: {}",
+                        entry.getUserId(), entry.getActionType(), entry.getDetails());
+            }
+        }
+        if (accepted) {
+            markCompleted(batch.size());
+        }
+    }
+
+    private void markCompleted(int count) {
+        synchronized (progressLock) {
+            completed += count;
+            progressLock.notifyAll();
+        }
+    }
+
+    private void spill(List<LogEntry> entries) {
+        synchronized (spillLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (LogEntry entry : entries) {
+                    writer.write(encode(entry));
+                    writer.newLine();
+                }
+                spilled.addAndGet(entries.size());
+            } catch (IOException e) {
+                failed.addAndGet(entries.size());
+                LOGGER.error("Could not spill {} audit log entries to {}: {}", entries.size(), spillFile, e.getMessage());
+                for (LogEntry entry : entries) {
+                    LOGGER.error("Unsaved audit log entry: {}", entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads spilled entries back into the database while the writer is idle. The file is moved aside first so
+     * new spills go to a fresh file; entries that still cannot be written are spilled again.
+     */
+    private void replaySpillFile() {
+        if (spillFile == null) {
+            return;
+        }
+        List<LogEntry> entries = new ArrayList<>();
+        synchronized (spillLock) {
+            if (!Files.exists(spillFile)) {
+                return;
+            }
+            try {
+                Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+                Files.move(spillFile, replaying, StandardCopyOption.REPLACE_EXISTING);
+                for (String line : Files.readAllLines(replaying, StandardCharsets.UTF_8)) {
+                    if (!line.isEmpty()) {
+                        entries.add(decode(line));
+                    }
+                }
+                Files.delete(replaying);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Could not replay audit log spill file {}: {}", spillFile, e.getMessage());
+                return;
+            }
+        }
+        for (int start = 0; start < entries.size(); start += batchSize) {
+            List<LogEntry> chunk = entries.subList(start, Math.min(start + batchSize, entries.size()));
+            if (logEntryDAO.addLogEntries(chunk) == chunk.size()) {
+                written.addAndGet(chunk.size());
+            } else {
+                spill(new ArrayList<>(entries.subList(start, entries.size())));
+                return; // Database still unavailable; try again on the next idle cycle
+            }
+        }
+        if (!entries.isEmpty()) {
+            LOGGER.info("Replayed {} spilled audit log entries.", entries.size());
+        }
+    }
+
+    // Spill format: one entry per line, tab-separated timestamp, user ID (empty if none), action type and escaped details.
+    static String encode(LogEntry entry) {
+        return entry.getTimestamp() + "\t" + (entry.getUserId() == null ? "" : entry.getUserId()) + "\t"
+                + entry.getActionType().name() + "\t" + escape(entry.getDetails());
+    }
+
+    static LogEntry decode(String line) {
+        String[] fields = line.split("\t", 4);
+        Integer userId = fields[1].isEmpty() ? null : Integer.valueOf(fields[1]);
+        LogEntry entry = new LogEntry(userId, LogEntry.ActionType.valueOf(fields[2]), unescape(fields[3]));
+        entry.setTimestamp(LocalDateTime.parse(fields[0]));
+        return entry;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\0";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\0")) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncLogWriter{" +
+                "policy=" + overflowPolicy +
+                ", queued=" + queue.size() +
+                ", written=" + written.get() +
+                ", batches=" + batches.get() +
+                ", failed=" + failed.get() +
+                ", dropped=" + dropped.get() +
+                ", spilled=" + spilled.get() +
+                '}';
+    }
+}
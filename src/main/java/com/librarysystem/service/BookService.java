@@ -1,7 +1,15 @@
 package com.librarysystem.service;
 
+import com.librarysystem.config.AppConfig;
 import com.librarysystem.dao.BookDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.db.TransactionManager.TransactionException;
 import com.librarysystem.model.Book;
+import com.librarysystem.model.BookSearchCriteria;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
+import com.librarysystem.search.CatalogSearchIndex;
+import com.librarysystem.search.FacetIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,7 +17,17 @@ import java.time.Year;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 import com.github.javafaker.Faker; // Will add this dependency to pom.xml
 
 public class BookService {
@@ -17,25 +35,80 @@ public class BookService {
     private final BookDAO bookDAO;
     private final Faker faker; // For generating sample data
     private final LogService logService; // Added LogService
+    private final CatalogCache catalogCache;
+    private final CatalogSearchIndex searchIndex;
+    private final IsbnFilter isbnFilter;
+    private final IsbnLocks isbnLocks; // Shared with LibraryService, so edits and borrows of a book run one at a time
+    private final Executor executor; // Runs the ...Async methods
+    private final TransactionManager transactionManager;
+    private final int fuzzyMaxEditDistance = AppConfig.get().getInt("search.fuzzy.maxEditDistance", 2);
     private static final int MIN_BOOKS_TO_POPULATE = 100;
 
 
     public BookService() {
-        this.bookDAO = new BookDAO(); // In a real app, use dependency injection
-        this.faker = new Faker();
-        this.logService = new LogService(); // Initialize LogService
+        // In a real app, use dependency injection
+        this(new BookDAO(), new LogService(), CatalogCache.shared(), CatalogSearchIndex.shared(), IsbnFilter.shared(),
+                IsbnLocks.shared(), ServiceExecutor.shared(), new TransactionManager());
     }
 
-    // Constructor for testing with a mock DAO and LogService
-    public BookService(BookDAO bookDAO, LogService logService) {
-        this.bookDAO = bookDAO;
+    /**
+     * Constructor taking every collaborator, for tests and alternative wiring. A test that does not exercise the
+     * cache, index or filter can pass disabled ones: {@code new CatalogCache(0, 0)}, {@code new CatalogSearchIndex()}
+     * (never ready, so searches go to the DAO) and {@code new IsbnFilter(0.01, 1)} (never loaded, so every ISBN is checked).
+     * Pass the same {@link IsbnLocks} as any LibraryService working on the same books.
+     *
+     * @param executor Runs the ...Async methods; {@code Runnable::run} runs them on the caller.
+     */
+    public BookService(BookDAO bookDAO, LogService logService, CatalogCache catalogCache, CatalogSearchIndex searchIndex,
+                       IsbnFilter isbnFilter, IsbnLocks isbnLocks, Executor executor, TransactionManager transactionManager) {
+        this.bookDAO = Objects.requireNonNull(bookDAO, "bookDAO");
         this.faker = new Faker();
-        this.logService = logService;
+        this.logService = Objects.requireNonNull(logService, "logService");
+        this.catalogCache = Objects.requireNonNull(catalogCache, "catalogCache");
+        this.searchIndex = Objects.requireNonNull(searchIndex, "searchIndex");
+        this.isbnFilter = Objects.requireNonNull(isbnFilter, "isbnFilter");
+        this.isbnLocks = Objects.requireNonNull(isbnLocks, "isbnLocks");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.transactionManager = Objects.requireNonNull(transactionManager, "transactionManager");
+    }
+
+    // --- Asynchronous variants, run on the service executor. Independent calls can be started together and combined. ---
+
+    public CompletableFuture<Optional<Book>> findBookByIsbnAsync(String isbn) {
+        return ServiceExecutor.supplyAsync(() -> findBookByIsbn(isbn), executor);
+    }
+
+    public CompletableFuture<List<Book>> getAllBooksAsync() {
+        return ServiceExecutor.supplyAsync(this::getAllBooks, executor);
+    }
+
+    public CompletableFuture<List<Book>> searchBooksAsync(BookSearchCriteria criteria) {
+        return ServiceExecutor.supplyAsync(() -> searchBooks(criteria), executor);
+    }
+
+    public CompletableFuture<List<Book>> findBooksFuzzyAsync(String text, int limit) {
+        return ServiceExecutor.supplyAsync(() -> findBooksFuzzy(text, limit), executor);
+    }
+
+    public CompletableFuture<List<Book>> findBooksByFacetsAsync(FacetIndex.Selection selection, int limit) {
+        return ServiceExecutor.supplyAsync(() -> findBooksByFacets(selection, limit), executor);
+    }
+
+    public CompletableFuture<Boolean> addBookAsync(String isbn, String title, String author, Year publicationYear, String genre, int totalCopies) {
+        return ServiceExecutor.supplyAsync(() -> addBook(isbn, title, author, publicationYear, genre, totalCopies), executor);
+    }
+
+    public CompletableFuture<Boolean> updateBookDetailsAsync(String isbn, String newTitle, String newAuthor, Year newPublicationYear, String newGenre, Integer newTotalCopies) {
+        return ServiceExecutor.supplyAsync(() -> updateBookDetails(isbn, newTitle, newAuthor, newPublicationYear, newGenre, newTotalCopies), executor);
+    }
+
+    public CompletableFuture<Boolean> removeBookAsync(String isbn) {
+        return ServiceExecutor.supplyAsync(() -> removeBook(isbn), executor);
     }
 
     // Method to get Book by its DB Primary Key - needed for BorrowedBookView
     public Optional<Book> getBookById(int bookIdPk) {
-        return bookDAO.getBookById(bookIdPk);
+        return catalogCache.getById(bookIdPk, bookDAO::getBookById);
     }
 
     /**
@@ -56,14 +129,20 @@ public class BookService {
             LOGGER.warn("Attempted to add book with invalid parameters.");
             return false;
         }
-        if (bookDAO.getBookByIsbn(isbn).isPresent()) {
-            LOGGER.warn("Attempted to add book with duplicate ISBN: {}", isbn);
-            // Optionally, could update existing book's copy count here or throw specific exception
-            return false;
+        if (isbnFilter.mightExist(isbn)) { // Otherwise certainly new, and the lookup is skipped
+            if (bookDAO.getBookByIsbn(isbn).isPresent()) {
+                LOGGER.warn("Attempted to add book with duplicate ISBN: {}", isbn);
+                // Optionally, could update existing book's copy count here or throw specific exception
+                return false;
+            }
+            isbnFilter.recordFalsePositive();
         }
         Book book = new Book(isbn, title, author, publicationYear, genre, totalCopies);
         boolean success = bookDAO.addBook(book);
+        catalogCache.invalidate(isbn);
         if (success) {
+            isbnFilter.add(isbn);
+            searchIndex.index(book);
             LOGGER.info("Book added successfully: {} by {}", title, author);
             logService.recordLog(null, com.librarysystem.model.LogEntry.ActionType.BOOK_ADDED, "Book added: ISBN " + isbn + ", Title: " + title);
         } else {
@@ -72,65 +151,346 @@ public class BookService {
         return success;
     }
 
+    /**
+     * Adds many books in one transaction using batched inserts. Intended for bulk catalog loading.
+     * Books with invalid fields, ISBNs repeated in the list, or ISBNs already in the catalog are skipped.
+     * The whole load is logged as a single entry rather than one entry per book.
+     *
+     * @param books The books to add. On success each added book has its database ID set.
+     * @return The number of books added; {@code 0} if the load failed and was rolled back.
+     */
+    public int addBooks(List<Book> books) {
+        List<Book> valid = new ArrayList<>();
+        Set<String> seenIsbns = new HashSet<>();
+        for (Book book : books) {
+            if (book.getIsbn() == null || book.getIsbn().trim().isEmpty() || book.getTitle() == null || book.getTitle().trim().isEmpty()
+                    || book.getAuthor() == null || book.getAuthor().trim().isEmpty() || book.getPublicationYear() == null || book.getTotalCopies() < 0) {
+                LOGGER.warn("Skipping book with invalid parameters in bulk load: ISBN {}", book.getIsbn());
+            } else if (!seenIsbns.add(book.getIsbn())) {
+                LOGGER.warn("Skipping duplicate ISBN {} in bulk load.", book.getIsbn());
+            } else {
+                valid.add(book);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        int added;
+        try {
+            added = transactionManager.inTransaction(tx -> {
+                Set<String> maybeExisting = new HashSet<>();
+                for (String isbn : seenIsbns) {
+                    if (isbnFilter.mightExist(isbn)) {
+                        maybeExisting.add(isbn);
+                    }
+                }
+                // Only ISBNs the filter cannot rule out are looked up; a fresh catalog needs no lookup at all
+                Set<String> existing = bookDAO.getExistingIsbns(maybeExisting);
+                for (int i = existing.size(); i < maybeExisting.size(); i++) {
+                    isbnFilter.recordFalsePositive();
+                }
+                List<Book> toInsert = new ArrayList<>(valid.size());
+                for (Book book : valid) {
+                    if (existing.contains(book.getIsbn())) {
+                        LOGGER.warn("Skipping book with existing ISBN {} in bulk load.", book.getIsbn());
+                    } else {
+                        toInsert.add(book);
+                    }
+                }
+                int inserted = bookDAO.addBooks(toInsert);
+                if (inserted != toInsert.size()) {
+                    tx.setRollbackOnly();
+                    return 0;
+                }
+                return inserted;
+            });
+        } catch (TransactionException e) {
+            LOGGER.error("Bulk load of {} books failed to commit.", valid.size(), e);
+            return 0;
+        }
+
+        if (added > 0) {
+            for (Book book : valid) {
+                if (book.getBookIdPk() != 0) {
+                    isbnFilter.add(book.getIsbn());
+                    searchIndex.index(book);
+                }
+            }
+            LOGGER.info("Bulk-added {} books.", added);
+            logService.recordLog(null, com.librarysystem.model.LogEntry.ActionType.BOOK_ADDED, "Bulk load: " + added + " books added");
+        } else {
+            LOGGER.error("Bulk load of {} books added nothing.", valid.size());
+        }
+        return added;
+    }
+
+    /**
+     * Looks up a book by ISBN, served from the catalog cache when possible.
+     * Availability may lag changes made by other clients by up to the cache's time to live, so
+     * borrowing and returning always re-read the book from the database.
+     */
     public Optional<Book> findBookByIsbn(String isbn) {
         if (isbn == null || isbn.trim().isEmpty()) {
             LOGGER.debug("ISBN for search is null or empty.");
             return Optional.empty();
         }
-        return bookDAO.getBookByIsbn(isbn);
+        return catalogCache.getByIsbn(isbn, bookDAO::getBookByIsbn);
     }
 
     public List<Book> getAllBooks() {
         return bookDAO.getAllBooks();
     }
 
+    /**
+     * Returns one page of the catalog ordered by book ID. Pass {@link Page#nextPageRequest()} to get the next page.
+     */
+    public Page<Book> getBooksPage(PageRequest request) {
+        return bookDAO.getBooksPage(request);
+    }
+
+    /**
+     * Searches the catalog by any combination of title, author, ISBN prefix, genre, publication years and availability.
+     * Filtering and limiting happen in the database, so only matching books are transferred.
+     */
+    public List<Book> searchBooks(BookSearchCriteria criteria) {
+        return bookDAO.searchBooks(criteria);
+    }
+
+    /**
+     * Finds books whose title contains the given text, ignoring case and accents.
+     * Served from the in-memory search index once it is built; until then a LIKE query is used.
+     */
     public List<Book> findBooksByTitle(String title) {
         if (title == null || title.trim().isEmpty()) {
             return new ArrayList<>(); // Return empty list if search term is invalid
         }
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.search(title, CatalogSearchIndex.Field.TITLE, Integer.MAX_VALUE));
+        }
         return bookDAO.findBooksByTitle(title);
     }
 
+    /**
+     * Finds books whose author contains the given text; see {@link #findBooksByTitle(String)}.
+     */
     public List<Book> findBooksByAuthor(String author) {
          if (author == null || author.trim().isEmpty()) {
             return new ArrayList<>();
         }
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.search(author, CatalogSearchIndex.Field.AUTHOR, Integer.MAX_VALUE));
+        }
         return bookDAO.findBooksByAuthor(author);
     }
 
+    /**
+     * Finds books whose title, author or ISBN contains the given text, ignoring case and accents.
+     * Needs the search index; while it is still being built, title and author are searched in the database.
+     *
+     * @param text The text to look for.
+     * @param limit Maximum number of books returned.
+     * @return Matching books in catalog order.
+     */
+    public List<Book> findBooksContaining(String text, int limit) {
+        if (text == null || text.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.search(text, CatalogSearchIndex.Field.ANY, limit));
+        }
+        Map<Integer, Book> matches = new LinkedHashMap<>();
+        for (Book book : bookDAO.findBooksByTitle(text)) {
+            matches.putIfAbsent(book.getBookIdPk(), book);
+        }
+        for (Book book : bookDAO.findBooksByAuthor(text)) {
+            matches.putIfAbsent(book.getBookIdPk(), book);
+        }
+        List<Book> books = new ArrayList<>(matches.values());
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+    /**
+     * Finds books by title and author words, tolerating typos: "tolkein hobit" finds "The Hobbit".
+     * Allows up to {@code search.fuzzy.maxEditDistance} edits per word; see {@link #findBooksFuzzy(String, int, int)}.
+     */
+    public List<Book> findBooksFuzzy(String text, int limit) {
+        return findBooksFuzzy(text, fuzzyMaxEditDistance, limit);
+    }
+
+    /**
+     * Finds books whose title or author has, for every word of {@code text}, a word within {@code maxDistance}
+     * edits of it. Words of up to five characters allow at most one edit and words of one or two none.
+     * Needs the search index; while it is still being built, this is an exact title search in the database.
+     *
+     * @param text The words to look for.
+     * @param maxDistance Maximum edits (insertions, deletions, substitutions) per word.
+     * @param limit Maximum number of books returned.
+     * @return Matching books, closest first.
+     */
+    public List<Book> findBooksFuzzy(String text, int maxDistance, int limit) {
+        if (text == null || text.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.searchFuzzy(text, maxDistance, limit));
+        }
+        List<Book> books = bookDAO.findBooksByTitle(text);
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+    /**
+     * Like {@link #findBooksFuzzy(String, int)}, limited to books matching a facet selection of genres, decades
+     * and availability. The facets narrow the search before the limit is applied, so a narrow selection still
+     * gets up to {@code limit} matches. Until the search index is built, this is an exact title search in the
+     * database with the facets in the query.
+     */
+    public List<Book> findBooksFuzzy(String text, FacetIndex.Selection selection, int limit) {
+        if (text == null || text.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.searchFuzzy(text, fuzzyMaxEditDistance, selection, limit));
+        }
+        return bookDAO.searchBooks(BookSearchCriteria.builder()
+                .title(text)
+                .genres(selection.getGenres())
+                .decades(selection.getDecades())
+                .availableOnly(selection.isAvailableOnly())
+                .limit(Math.min(limit, BookSearchCriteria.MAX_LIMIT))
+                .build());
+    }
+
+    /**
+     * Finds up to {@code limit} books matching a facet selection of genres, decades and availability, in catalog order.
+     * Served from the search index's bitmaps once it is built; until then each genre and decade combination
+     * is searched in the database.
+     */
+    public List<Book> findBooksByFacets(FacetIndex.Selection selection, int limit) {
+        if (searchIndex.isReady()) {
+            return bookDAO.getBooksByIds(searchIndex.searchFacets(selection, limit));
+        }
+        Map<Integer, Book> matches = new TreeMap<>();
+        for (String genre : selection.getGenres().isEmpty() ? Collections.<String>singleton(null) : selection.getGenres()) {
+            for (Integer decade : selection.getDecades().isEmpty() ? Collections.<Integer>singleton(null) : selection.getDecades()) {
+                BookSearchCriteria criteria = BookSearchCriteria.builder()
+                        .genre(genre)
+                        .yearFrom(decade != null ? Year.of(decade) : null)
+                        .yearTo(decade != null ? Year.of(decade + 9) : null)
+                        .availableOnly(selection.isAvailableOnly())
+                        .limit(Math.min(limit, BookSearchCriteria.MAX_LIMIT))
+                        .build();
+                for (Book book : bookDAO.searchBooks(criteria)) {
+                    matches.put(book.getBookIdPk(), book);
+                }
+            }
+        }
+        List<Book> books = new ArrayList<>(matches.values());
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+    /**
+     * Counts the books matching a facet selection, and the matches for each genre, decade and availability.
+     * Empty until the search index has been built.
+     */
+    public Optional<FacetIndex.Counts> getFacetCounts(FacetIndex.Selection selection) {
+        if (!searchIndex.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(searchIndex.countFacets(selection));
+    }
+
+    /**
+     * Returns up to {@code limit} completions of {@code prefix} for a search field, most borrowed first.
+     * Empty until the search index has been built, so typeahead never falls back to the database.
+     *
+     * @param field {@link CatalogSearchIndex.Field#TITLE}, {@code AUTHOR} or {@code ISBN}.
+     */
+    public List<String> suggest(CatalogSearchIndex.Field field, String prefix, int limit) {
+        if (!searchIndex.isReady() || prefix == null || prefix.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return searchIndex.complete(prefix, field, limit);
+    }
+
+    /**
+     * Loads every ISBN in the catalog into the duplicate-check filter. Until loaded, every duplicate check
+     * reads the database.
+     *
+     * @return The number of ISBNs loaded, or {@code 0} if the catalog could not be read.
+     */
+    public int loadIsbnFilter() {
+        int count = bookDAO.countBooks();
+        if (count < 0) {
+            LOGGER.error("Could not count books; duplicate checks will keep using the database.");
+            return 0;
+        }
+        try (Stream<String> isbns = bookDAO.streamAllIsbns()) {
+            return isbnFilter.load(isbns, count);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to load the ISBN filter; duplicate checks will keep using the database.", e);
+            return 0;
+        }
+    }
+
+    /**
+     * (Re)builds the in-memory search and completion indexes from a streamed read of the whole catalog.
+     * Searches use the database until the first build completes.
+     *
+     * @return The number of books indexed, or {@code 0} if the catalog could not be read.
+     */
+    public int rebuildSearchIndex() {
+        Map<Integer, Integer> borrowCounts = bookDAO.getBorrowCountsByBook();
+        int count;
+        try (Stream<Book> books = bookDAO.streamAllBooks()) {
+            count = searchIndex.build(books, borrowCounts);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to build the catalog search index; searches will keep using the database.", e);
+            return 0;
+        }
+        for (String isbn : searchIndex.takeStaleAfterBuild()) { // Borrowed or returned while being read
+            bookDAO.getBookByIsbn(isbn).ifPresent(searchIndex::index);
+        }
+        return count;
+    }
+
+    /**
+     * Updates the given details of a book; {@code null} or blank values are left unchanged. A new total number of
+     * copies changes the available copies by the same amount, and is refused if it is below the copies on loan.
+     *
+     * Holds the book's ISBN lock, so borrows and returns in this JVM cannot change the search index's copy count
+     * between the update and the re-read that re-indexes the book.
+     *
+     * @return {@code true} if the book was updated.
+     */
     public boolean updateBookDetails(String isbn, String newTitle, String newAuthor, Year newPublicationYear, String newGenre, Integer newTotalCopies) {
-        Optional<Book> existingBookOpt = bookDAO.getBookByIsbn(isbn);
-        if (existingBookOpt.isEmpty()) {
-            LOGGER.warn("Attempted to update non-existent book with ISBN: {}", isbn);
+        if (newTotalCopies != null && newTotalCopies < 0) {
+            LOGGER.warn("Refusing negative total copies ({}) for ISBN {}.", newTotalCopies, isbn);
             return false;
         }
-        Book existingBook = existingBookOpt.get();
-
-        // Update fields if new values are provided
-        if (newTitle != null && !newTitle.trim().isEmpty()) existingBook.setTitle(newTitle);
-        if (newAuthor != null && !newAuthor.trim().isEmpty()) existingBook.setAuthor(newAuthor);
-        if (newPublicationYear != null) existingBook.setPublicationYear(newPublicationYear);
-        if (newGenre != null && !newGenre.trim().isEmpty()) existingBook.setGenre(newGenre);
-
-        if (newTotalCopies != null) {
-            if (newTotalCopies < existingBook.getAvailableCopies() - (existingBook.getTotalCopies() - existingBook.getAvailableCopies())) {
-                 LOGGER.warn("New total copies ({}) for ISBN {} cannot be less than currently borrowed copies.", newTotalCopies, isbn);
-                 // This logic is a bit complex: newTotalCopies must be >= (totalCopies - availableCopies) which is borrowedCount
-                 // So, newTotalCopies must be >= borrowedCount. The available copies will then be newTotalCopies - borrowedCount.
-                 // A simpler check: if newTotalCopies < (existingBook.getTotalCopies() - existingBook.getAvailableCopies())
-                 // For now, let's enforce newTotalCopies >= current available_copies if we are reducing,
-                 // or more simply, ensure total copies is not less than checked out books.
-                 // The Book model's setTotalCopies and setAvailableCopies should handle internal consistency.
-                 // Let's assume setTotalCopies will adjust availableCopies appropriately or throw error.
+        boolean success = isbnLocks.withLock(isbn, () -> {
+            Optional<Book> existingBookOpt = bookDAO.getBookByIsbn(isbn);
+            if (existingBookOpt.isEmpty()) {
+                LOGGER.warn("Attempted to update non-existent book with ISBN: {}", isbn);
+                return false;
             }
-             existingBook.setTotalCopies(newTotalCopies); // This will also update isAvailable via setter logic if needed
-             // If total copies is reduced, available copies might need adjustment:
-             // available_copies should be total_copies - (old_total_copies - old_available_copies)
-             // The Book.setTotalCopies should ideally handle this adjustment with setAvailableCopies.
-             // For now, we assume the Book model's setters are robust.
-        }
+            Book existingBook = existingBookOpt.get();
 
-        boolean success = bookDAO.updateBook(existingBook);
+            // Update fields if new values are provided
+            if (newTitle != null && !newTitle.trim().isEmpty()) existingBook.setTitle(newTitle);
+            if (newAuthor != null && !newAuthor.trim().isEmpty()) existingBook.setAuthor(newAuthor);
+            if (newPublicationYear != null) existingBook.setPublicationYear(newPublicationYear);
+            if (newGenre != null && !newGenre.trim().isEmpty()) existingBook.setGenre(newGenre);
+            if (newTotalCopies != null) existingBook.setTotalCopies(newTotalCopies);
+
+            boolean updated = bookDAO.updateBook(existingBook); // Refused if the total is below the copies on loan
+            catalogCache.invalidate(isbn);
+            if (updated) {
+                // The available copies were changed in the database, relative to borrows the read above may predate
+                bookDAO.getBookByIsbn(isbn).ifPresent(searchIndex::index);
+            }
+            return updated;
+        });
         if (success) {
             LOGGER.info("Book updated successfully: {}", isbn);
             logService.recordLog(null, com.librarysystem.model.LogEntry.ActionType.BOOK_UPDATED, "Book updated: ISBN " + isbn);
@@ -140,20 +500,22 @@ public class BookService {
         return success;
     }
 
+    /**
+     * Changes the number of available copies of a book by the given amount.
+     * The change is applied atomically in the database and is rejected if it would take the
+     * available copies below zero or above the total copies.
+     *
+     * @param isbn The ISBN of the book.
+     * @param changeInAvailableCopies The amount to add (negative to remove copies).
+     * @return {@code true} if the availability was updated, {@code false} otherwise.
+     */
     public boolean updateBookAvailability(String isbn, int changeInAvailableCopies) {
-        Optional<Book> bookOpt = bookDAO.getBookByIsbn(isbn);
-        if (bookOpt.isEmpty()) {
-            LOGGER.warn("Cannot update availability, book not found with ISBN: {}", isbn);
-            return false;
-        }
-        Book book = bookOpt.get();
-        int newAvailableCopies = book.getAvailableCopies() + changeInAvailableCopies;
-        if (newAvailableCopies < 0 || newAvailableCopies > book.getTotalCopies()) {
-            LOGGER.error("Invalid change in availability for ISBN {}. New available copies ({}) would be out of bounds [0, {}]", isbn, newAvailableCopies, book.getTotalCopies());
-            return false;
+        boolean updated = bookDAO.adjustAvailableCopies(isbn, changeInAvailableCopies);
+        catalogCache.invalidate(isbn);
+        if (!updated) {
+            LOGGER.error("Could not change availability of ISBN {} by {}: book not found or new count out of bounds.", isbn, changeInAvailableCopies);
         }
-        book.setAvailableCopies(newAvailableCopies);
-        return bookDAO.updateBook(book);
+        return updated;
     }
 
 
@@ -172,7 +534,10 @@ public class BookService {
         // }
 
         boolean success = bookDAO.deleteBook(isbn);
+        catalogCache.invalidate(isbn);
         if (success) {
+            isbnFilter.remove(isbn);
+            searchIndex.remove(isbn);
             LOGGER.info("Book removed successfully: {}", isbn);
             logService.recordLog(null, com.librarysystem.model.LogEntry.ActionType.BOOK_REMOVED, "Book removed: ISBN " + isbn);
         } else {
@@ -181,37 +546,17 @@ public class BookService {
         return success;
     }
 
+    /**
+     * Populates the database with a minimum number of sample books if the book table is currently empty.
+     * Uses JavaFaker to generate realistic book data. This method is typically called on application startup.
+     * Ensures that generated ISBNs are unique for the batch of books being added, and inserts the
+     * whole batch in a single {@link #addBooks(List)} call.
+     * Logs the outcome of the population process.
+     */
     public void populateDatabaseWithSampleBooksIfEmpty() {
-        if (bookDAO.getAllBooks().isEmpty()) {
+        if (bookDAO.countBooks() == 0) { // -1, a failed count, must not trigger a load either
             LOGGER.info("Book table is empty. Populating with {} sample books...", MIN_BOOKS_TO_POPULATE);
-            Random random = new Random();
-            int booksAdded = 0;
-            for (int i = 0; i < MIN_BOOKS_TO_POPULATE; i++) {
-                String isbn = faker.code().isbn13();
-                // Ensure ISBN is unique for this batch, very basic check
-                int attempt = 0;
-                while(bookDAO.getBookByIsbn(isbn).isPresent() && attempt < 5) {
-                    isbn = faker.code().isbn13();
-                    attempt++;
-                }
-                if (attempt >= 5 && bookDAO.getBookByIsbn(isbn).isPresent()) {
-                    LOGGER.warn("Could not generate unique ISBN after multiple attempts, skipping book {}/{}", i+1, MIN_BOOKS_TO_POPULATE);
-                    continue;
-                }
-
-                String title = faker.book().title();
-                String author = faker.book().author();
-                int yearValue = 1950 + random.nextInt(75); // Year between 1950 and 2024
-                Year publicationYear = Year.of(yearValue);
-                String genre = faker.book().genre();
-                int totalCopies = 1 + random.nextInt(5); // 1 to 5 copies
-
-                if (addBook(isbn, title, author, publicationYear, genre, totalCopies)) {
-                    booksAdded++;
-                } else {
-                    LOGGER.warn("Failed to add sample book: ISBN {}, Title {}", isbn, title);
-                }
-            }
+            int booksAdded = addBooks(generateSampleBooks(MIN_BOOKS_TO_POPULATE));
             LOGGER.info("Successfully added {} sample books to the database.", booksAdded);
         } else {
             LOGGER.info("Book table is not empty. Skipping sample data population.");
@@ -219,45 +564,28 @@ public class BookService {
     }
 
     /**
-     * Populates the database with a minimum number of sample books if the book table is currently empty.
-     * Uses JavaFaker to generate realistic book data. This method is typically called on application startup.
-     * Ensures that generated ISBNs are unique for the batch of books being added.
-     * Logs the outcome of the population process.
+     * Generates sample books with ISBNs that are unique within the returned list.
+     *
+     * @param count The number of books to generate.
+     * @return The generated books; not yet saved.
      */
-    public void populateDatabaseWithSampleBooksIfEmpty() {
-        if (bookDAO.getAllBooks().isEmpty()) {
-            LOGGER.info("Book table is empty. Populating with {} sample books...", MIN_BOOKS_TO_POPULATE);
-            Random random = new Random();
-            int booksAdded = 0;
-            for (int i = 0; i < MIN_BOOKS_TO_POPULATE; i++) {
-                String isbn = faker.code().isbn13();
-                // Ensure ISBN is unique for this batch, very basic check
-                int attempt = 0;
-                while(bookDAO.getBookByIsbn(isbn).isPresent() && attempt < 5) {
-                    isbn = faker.code().isbn13();
-                    attempt++;
-                }
-                if (attempt >= 5 && bookDAO.getBookByIsbn(isbn).isPresent()) {
-                    LOGGER.warn("Could not generate unique ISBN after multiple attempts, skipping book {}/{}", i+1, MIN_BOOKS_TO_POPULATE);
-                    continue;
-                }
-
-                String title = faker.book().title();
-                String author = faker.book().author();
-                int yearValue = 1950 + random.nextInt(75); // Year between 1950 and 2024
-                Year publicationYear = Year.of(yearValue);
-                String genre = faker.book().genre();
-                int totalCopies = 1 + random.nextInt(5); // 1 to 5 copies
-
-                if (addBook(isbn, title, author, publicationYear, genre, totalCopies)) {
-                    booksAdded++;
-                } else {
-                    LOGGER.warn("Failed to add sample book: ISBN {}, Title {}", isbn, title);
-                }
+    public List<Book> generateSampleBooks(int count) {
+        Random random = new Random();
+        List<Book> books = new ArrayList<>(count);
+        Set<String> isbns = new HashSet<>();
+        while (books.size() < count) {
+            String isbn = faker.code().isbn13();
+            if (!isbns.add(isbn)) {
+                continue; // Already generated in this batch
             }
-            LOGGER.info("Successfully added {} sample books to the database.", booksAdded);
-        } else {
-            LOGGER.info("Book table is not empty. Skipping sample data population.");
+            String title = faker.book().title();
+            String author = faker.book().author();
+            int yearValue = 1950 + random.nextInt(75); // Year between 1950 and 2024
+            Year publicationYear = Year.of(yearValue);
+            String genre = faker.book().genre();
+            int totalCopies = 1 + random.nextInt(5); // 1 to 5 copies
+            books.add(new Book(isbn, title, author, publicationYear, genre, totalCopies));
         }
+        return books;
     }
 }
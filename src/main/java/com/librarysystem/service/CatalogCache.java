@@ -0,0 +1,170 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, least-recently-used cache of catalog entries, looked up by ISBN or by database ID.
+ *
+ * Entries expire after a fixed time to live, which bounds how stale a book can be when another
+ * client changes it; changes made through this process invalidate the entry immediately.
+ * Callers always receive copies, so mutating a returned {@link Book} never changes the cache.
+ *
+ * Only found books are cached. A missing ISBN is looked up again each time, so a book added
+ * by another client becomes visible at once.
+ */
+public class CatalogCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCache.class);
+
+    private static volatile CatalogCache shared;
+
+    private final TtlLruCache<Integer, Book> byId;
+    // Guarded by byId; entries leave it together with the book they point to
+    private final Map<String, Integer> idByIsbn = new HashMap<>();
+
+    /**
+     * @param maxEntries Maximum number of books kept; {@code 0} disables caching.
+     * @param ttlMillis How long an entry is served before it is read from the database again.
+     */
+    public CatalogCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::nanoTime);
+    }
+
+    // Constructor for testing with a controllable clock
+    CatalogCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.byId = new TtlLruCache<>(maxEntries, ttlMillis, clock, Book::new,
+                (bookIdPk, book) -> idByIsbn.remove(book.getIsbn(), bookIdPk));
+    }
+
+    /**
+     * Returns the process-wide cache configured from {@code cache.catalog.*} keys.
+     */
+    public static CatalogCache shared() {
+        if (shared == null) {
+            synchronized (CatalogCache.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    int maxEntries = config.getBoolean("cache.catalog.enabled", true) ? config.getInt("cache.catalog.maxEntries", 10_000) : 0;
+                    shared = new CatalogCache(maxEntries, config.getLong("cache.catalog.ttlMillis", 300_000));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the book with the given database ID, calling {@code loader} on a miss.
+     */
+    public Optional<Book> getById(int bookIdPk, Function<Integer, Optional<Book>> loader) {
+        Book cached = byId.get(bookIdPk);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadGeneration = byId.startLoad();
+        return load(loader.apply(bookIdPk), loadGeneration);
+    }
+
+    /**
+     * Returns the book with the given ISBN, calling {@code loader} on a miss.
+     */
+    public Optional<Book> getByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+        long loadGeneration;
+        synchronized (byId) {
+            Integer bookIdPk = idByIsbn.get(isbn);
+            Book cached = bookIdPk != null ? byId.get(bookIdPk) : null;
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            if (bookIdPk == null) {
+                byId.recordMiss();
+            }
+            loadGeneration = byId.startLoad();
+        }
+        return load(loader.apply(isbn), loadGeneration);
+    }
+
+    private Optional<Book> load(Optional<Book> loaded, long loadGeneration) {
+        if (loaded.isEmpty() || loaded.get().getBookIdPk() == 0) {
+            return loaded;
+        }
+        Book book = loaded.get();
+        synchronized (byId) {
+            if (byId.putLoaded(book.getBookIdPk(), book, loadGeneration)) {
+                Integer previousId = idByIsbn.put(book.getIsbn(), book.getBookIdPk());
+                if (previousId != null && previousId != book.getBookIdPk()) {
+                    byId.invalidate(previousId); // The ISBN moved to another row
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the book with the given ISBN. Call after any change to the book, including its available copies.
+     */
+    public void invalidate(String isbn) {
+        synchronized (byId) {
+            Integer bookIdPk = idByIsbn.get(isbn);
+            if (bookIdPk != null) {
+                byId.invalidate(bookIdPk);
+            } else {
+                byId.cancelLoads(); // Not cached, but a load in flight may have read the old book
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public int getMaxEntries() {
+        return byId.getMaxEntries();
+    }
+
+    public long getHitCount() {
+        return byId.getHitCount();
+    }
+
+    public long getMissCount() {
+        return byId.getMissCount();
+    }
+
+    /**
+     * Number of entries dropped to stay within {@code maxEntries}. A high count with a low hit ratio means the cache is too small.
+     */
+    public long getEvictionCount() {
+        return byId.getEvictionCount();
+    }
+
+    public long getExpiredCount() {
+        return byId.getExpiredCount();
+    }
+
+    /**
+     * Fraction of lookups served from the cache, or {@code 0} before the first lookup.
+     */
+    public double getHitRatio() {
+        return byId.getHitRatio();
+    }
+
+    public void logStats() {
+        LOGGER.info("Catalog cache: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogCache{" + byId.stats() + '}';
+    }
+}
@@ -0,0 +1,183 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.search.CountingBloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.stream.Stream;
+
+/**
+ * In-memory filter over the ISBNs in the catalog, so duplicate checks can skip the database for ISBNs that are
+ * certainly new. {@link #mightExist(String)} is {@code false} only when the ISBN is not in the catalog; when it
+ * is {@code true} the caller must ask the database.
+ *
+ * Until {@link #load(Stream, int)} has run, every ISBN might exist. ISBNs added by another client after the load
+ * are not known here; inserting one anyway fails on the unique ISBN constraint, so no duplicate is created.
+ *
+ * Lookups are counted, so the share of checks that skipped the database and the observed false positive rate
+ * (ISBNs that might exist but turned out to be new) can be compared with the configured rate.
+ */
+public class IsbnFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IsbnFilter.class);
+
+    private static volatile IsbnFilter shared;
+
+    private final double falsePositiveRate;
+    private final int minCapacity;
+    private volatile CountingBloomFilter filter; // Null until a load starts
+    private volatile boolean ready;
+
+    private long checks;
+    private long skipped;
+    private long falsePositives;
+
+    /**
+     * @param falsePositiveRate Target share of new ISBNs that still need a database check.
+     * @param minCapacity Minimum number of ISBNs the filter is sized for, leaving room for a small catalog to grow.
+     */
+    public IsbnFilter(double falsePositiveRate, int minCapacity) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1 || minCapacity <= 0) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1) and minCapacity positive");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+    }
+
+    /**
+     * Returns the process-wide filter configured from {@code filter.isbn.*} keys.
+     */
+    public static IsbnFilter shared() {
+        if (shared == null) {
+            synchronized (IsbnFilter.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    shared = new IsbnFilter(config.getDouble("filter.isbn.falsePositiveRate", 0.01),
+                            config.getInt("filter.isbn.minCapacity", 100_000));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Replaces the filter contents with {@code isbns}. The filter is sized for twice {@code expectedCount}, so the
+     * catalog can double before the false positive rate rises above the configured one.
+     *
+     * @return The number of ISBNs loaded.
+     */
+    public int load(Stream<String> isbns, int expectedCount) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            filter = new CountingBloomFilter((int) Math.min(Integer.MAX_VALUE / 16, Math.max(minCapacity, 2L * expectedCount)), falsePositiveRate);
+        }
+        CountingBloomFilter loading = filter;
+        int[] count = {0};
+        isbns.forEach(isbn -> {
+            loading.add(isbn);
+            count[0]++;
+        });
+        ready = true;
+        LOGGER.info("Loaded {} ISBNs into the duplicate filter in {} ms ({} KB, {} hashes, expected false positive rate {}).",
+                count[0], (System.nanoTime() - start) / 1_000_000, loading.getSizeInBytes() / 1024, loading.getHashCount(),
+                String.format("%.4f", loading.getExpectedFalsePositiveRate()));
+        return count[0];
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * {@code false} if no book has this ISBN; {@code true} if one might, and the database must be checked.
+     */
+    public boolean mightExist(String isbn) {
+        boolean might = !ready || filter.mightContain(isbn);
+        synchronized (this) {
+            checks++;
+            if (!might) {
+                skipped++;
+            }
+        }
+        return might;
+    }
+
+    /**
+     * Records that an ISBN reported by {@link #mightExist(String)} was not in the catalog after all.
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            synchronized (this) {
+                falsePositives++;
+            }
+        }
+    }
+
+    /**
+     * Records a committed insert. Safe to call while loading: the ISBN may then be added twice, which only
+     * keeps it in the filter after one removal.
+     */
+    public void add(String isbn) {
+        CountingBloomFilter current = filter;
+        if (current != null) {
+            current.add(isbn);
+        }
+    }
+
+    /**
+     * Records a committed delete. Ignored while loading, as the load may not have read the ISBN;
+     * the ISBN then merely stays a possible duplicate.
+     */
+    public void remove(String isbn) {
+        if (ready) {
+            filter.remove(isbn);
+        }
+    }
+
+    public synchronized long getCheckCount() {
+        return checks;
+    }
+
+    /**
+     * Number of checks answered without the database.
+     */
+    public synchronized long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Share of new ISBNs that still needed a database check, or {@code 0} before any new ISBN was checked.
+     */
+    public synchronized double getObservedFalsePositiveRate() {
+        long newIsbns = skipped + falsePositives;
+        return newIsbns == 0 ? 0 : (double) falsePositives / newIsbns;
+    }
+
+    /**
+     * False positive rate expected from the filter's current fill, or {@code 1} before it is loaded.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return ready ? filter.getExpectedFalsePositiveRate() : 1;
+    }
+
+    public void logStats() {
+        LOGGER.info("ISBN filter: {}", this);
+    }
+
+    @Override
+    public synchronized String toString() {
+        CountingBloomFilter current = filter;
+        return "IsbnFilter{" +
+                "ready=" + ready +
+                ", isbns=" + (current != null ? current.size() : 0) +
+                ", capacity=" + (current != null ? current.getCapacity() : 0) +
+                ", checks=" + checks +
+                ", skipped=" + skipped +
+                ", falsePositives=" + falsePositives +
+                ", targetFalsePositiveRate=" + falsePositiveRate +
+                ", expectedFalsePositiveRate=" + String.format("%.4f", getExpectedFalsePositiveRate()) +
+                ", observedFalsePositiveRate=" + String.format("%.4f", getObservedFalsePositiveRate()) +
+                '}';
+    }
+}
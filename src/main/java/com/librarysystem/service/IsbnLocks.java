@@ -0,0 +1,148 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks keyed by ISBN, so borrows and returns of the same book in this JVM run one at a time while
+ * those of different books run in parallel. Each ISBN maps to one of a fixed number of locks by its hash; two
+ * ISBNs sharing a lock only wait for each other, so more stripes mean fewer such collisions.
+ *
+ * The locks are {@link ReentrantLock}s, which a virtual thread releases its carrier on while waiting. They only
+ * order work inside this JVM; other clients are still kept in line by the guarded update in the database.
+ *
+ * Acquisitions are counted, and so are those that had to wait, with the time spent waiting and the stripe that
+ * waited most, to tell whether the stripe count is too low or a single title is hot.
+ */
+public class IsbnLocks {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IsbnLocks.class);
+
+    private static volatile IsbnLocks shared;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLongArray contendedByStripe;
+
+    /**
+     * @param stripes Number of locks, rounded up to a power of two. 1 makes every ISBN share one lock.
+     */
+    public IsbnLocks(int stripes) {
+        if (stripes < 1 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("stripes must be between 1 and 65536");
+        }
+        int count = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = count - 1;
+        this.contendedByStripe = new AtomicLongArray(count);
+    }
+
+    /**
+     * Returns the process-wide lock table configured from {@code lock.isbn.stripes}.
+     */
+    public static IsbnLocks shared() {
+        if (shared == null) {
+            synchronized (IsbnLocks.class) {
+                if (shared == null) {
+                    shared = new IsbnLocks(AppConfig.get().getInt("lock.isbn.stripes", 64));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Runs {@code action} holding the lock for {@code isbn}.
+     */
+    public <T> T withLock(String isbn, Supplier<T> action) {
+        int stripe = stripeOf(isbn);
+        ReentrantLock lock = stripes[stripe];
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            long waited = System.nanoTime() - start;
+            contended.increment();
+            contendedByStripe.incrementAndGet(stripe);
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+        acquisitions.increment();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeOf(String isbn) {
+        int hash = isbn.hashCode();
+        return (hash ^ (hash >>> 16)) & mask; // Mixes the high bits in, as ISBNs often differ only near the end
+    }
+
+    /**
+     * Number of threads waiting for the lock that {@code isbn} maps to.
+     */
+    int getQueueLength(String isbn) {
+        return stripes[stripeOf(isbn)].getQueueLength();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Acquisitions that found the lock held and had to wait.
+     */
+    public long getContendedAcquisitions() {
+        return contended.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    public void logStats() {
+        LOGGER.info("ISBN locks: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        int hottest = 0;
+        for (int i = 1; i < stripes.length; i++) {
+            if (contendedByStripe.get(i) > contendedByStripe.get(hottest)) {
+                hottest = i;
+            }
+        }
+        long waits = getContendedAcquisitions();
+        return "IsbnLocks{" +
+                "stripes=" + stripes.length +
+                ", acquisitions=" + getAcquisitions() +
+                ", contended=" + waits +
+                ", avgWaitMillis=" + (waits == 0 ? 0 : getTotalWaitNanos() / waits / 1_000_000.0) +
+                ", maxWaitMillis=" + getMaxWaitNanos() / 1_000_000.0 +
+                ", hottestStripe=" + hottest + " (" + contendedByStripe.get(hottest) + " waits)" +
+                '}';
+    }
+}
@@ -2,6 +2,8 @@ package com.librarysystem.service;
 
 import com.librarysystem.dao.LogEntryDAO;
 import com.librarysystem.model.LogEntry;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,19 +12,29 @@ import java.util.List;
 public class LogService {
     private static final Logger LOGGER = LoggerFactory.getLogger(LogService.class);
     private final LogEntryDAO logEntryDAO;
+    private final AsyncLogWriter asyncWriter; // null = write synchronously on the caller's thread
 
     public LogService() {
         // In a real app, use dependency injection
         this.logEntryDAO = new LogEntryDAO();
+        this.asyncWriter = AsyncLogWriter.shared();
     }
 
     // Constructor for testing with mocks
     public LogService(LogEntryDAO logEntryDAO) {
+        this(logEntryDAO, null);
+    }
+
+    // Constructor for testing with an explicit (or no) background writer
+    public LogService(LogEntryDAO logEntryDAO, AsyncLogWriter asyncWriter) {
         this.logEntryDAO = logEntryDAO;
+        this.asyncWriter = asyncWriter;
     }
 
     /**
      * Records a log entry into the database.
+     * When asynchronous logging is enabled the entry is handed to the background {@link AsyncLogWriter}
+     * and this method returns without a database round trip; otherwise it is inserted immediately.
      * If saving to the database fails, an error is logged to the application's fallback logger (e.g., console).
      *
      * @param userId      The ID of the user performing the action. Can be null for system actions.
@@ -37,6 +49,10 @@ public class LogService {
         }
 
         LogEntry logEntry = new LogEntry(userId, actionType, details);
+        if (asyncWriter != null) {
+            asyncWriter.enqueue(logEntry);
+            return;
+        }
         boolean success = logEntryDAO.addLogEntry(logEntry);
 
         if (!success) {
@@ -61,6 +77,21 @@ public class LogService {
         return logEntryDAO.getAllLogEntries();
     }
 
+    /**
+     * Retrieves one page of log entries; {@link PageRequest.Direction#DESC} lists the newest first.
+     * Entries still queued in the background writer are flushed first so recent actions show up.
+     * Primarily for admin use.
+     *
+     * @param request Page size, last-seen log ID and direction. Use {@link Page#nextPageRequest()} for the next page.
+     * @return One page of log entries.
+     */
+    public Page<LogEntry> getLogsPage(PageRequest request) {
+        if (asyncWriter != null && !asyncWriter.flush(1_000)) {
+            LOGGER.debug("Audit log writer still busy; newest entries may not be listed yet.");
+        }
+        return logEntryDAO.getLogEntriesPage(request);
+    }
+
     /**
      * Retrieves log entries for a specific user.
      * @param userId The ID of the user.
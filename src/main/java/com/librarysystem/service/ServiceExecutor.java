@@ -0,0 +1,200 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.db.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor behind the {@code ...Async} methods of the services.
+ *
+ * By default this is a bounded pool of platform threads: when all threads are busy and the queue is full, further
+ * calls are rejected and their futures complete exceptionally with a {@link RejectedExecutionException}. Running
+ * them on the caller instead would throttle a fast producer, but the call would then silently join any
+ * transaction the caller has open on its thread, committing or rolling back with it.
+ *
+ * With {@code service.async.virtualThreads=true} on Java 21 or later, every call gets its own virtual thread
+ * instead. At most {@code service.async.maxConcurrent} of them (by default the connection pool size) run at once;
+ * the rest park cheaply on a permit rather than queueing inside the connection pool, where they would run into its
+ * acquire timeout. The executor is looked up reflectively, so the application still builds and runs on Java 11.
+ *
+ * A virtual thread waiting on JDBC does not always free its carrier thread, though. MySQL Connector/J 8.0.28
+ * does its socket I/O inside {@code synchronized} blocks, and on Java 21 to 23 a virtual thread blocking there
+ * stays pinned to its carrier. Database calls then run no more concurrently than there are carriers, by default
+ * one per CPU core; set {@code -Djdk.virtualThreadScheduler.parallelism} to at least {@code maxConcurrent}, or
+ * run on Java 24+, where {@code synchronized} no longer pins. {@code -Djdk.tracePinnedThreads=full} reports
+ * pinning on Java 21.
+ */
+public final class ServiceExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceExecutor.class);
+
+    private static volatile ExecutorService shared;
+
+    private ServiceExecutor() {
+    }
+
+    /**
+     * Creates a pool of {@code threads} daemon threads with room for {@code queueCapacity} waiting calls; calls
+     * beyond that are rejected.
+     */
+    public static ThreadPoolExecutor create(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "service-async-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor running at most {@code maxConcurrent} calls at once, or returns
+     * {@code null} if this JVM has no virtual threads (before Java 21).
+     */
+    public static ExecutorService createVirtual(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new PermitExecutor(virtual, maxConcurrent);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the process-wide executor configured from {@code service.async.*} keys.
+     */
+    public static Executor shared() {
+        if (shared == null) {
+            synchronized (ServiceExecutor.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    if (config.getBoolean("service.async.virtualThreads", false)) {
+                        int maxConcurrent = config.getInt("service.async.maxConcurrent", config.getInt("db.pool.maxSize", 10));
+                        shared = createVirtual(maxConcurrent);
+                        if (shared != null) {
+                            LOGGER.info("Running asynchronous service calls on virtual threads (at most {} at once).", maxConcurrent);
+                        } else {
+                            LOGGER.warn("service.async.virtualThreads is set, but Java {} has no virtual threads (Java 21+ needed). Using platform threads.",
+                                    System.getProperty("java.specification.version"));
+                        }
+                    }
+                    if (shared == null) {
+                        shared = create(config.getInt("service.async.threads", 8), config.getInt("service.async.queueCapacity", 1_000));
+                    }
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Stops the process-wide pool, if one was started, letting queued calls finish. Call before shutting down the database.
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.shutdown();
+            try {
+                if (!shared.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Asynchronous service calls still running after 10 seconds; abandoning them.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            shared = null;
+        }
+    }
+
+    /**
+     * Runs each task on the wrapped executor once one of a fixed number of permits is free. Tasks wait for a
+     * permit on their own (virtual) thread, so submitting never blocks.
+     */
+    private static final class PermitExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        PermitExecutor(ExecutorService delegate, int permits) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(permits, true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Runs {@code call} on {@code executor}. The call continues the caller's database session, so it reads the
+     * caller's earlier writes even when reads go to a replica. If the executor is saturated or shut down, the
+     * returned future completes exceptionally with a {@link RejectedExecutionException}.
+     */
+    static <T> CompletableFuture<T> supplyAsync(Supplier<T> call, Executor executor) {
+        long writeMark = DatabaseUtil.getSessionWriteMark();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                DatabaseUtil.joinSessionWriteMark(writeMark);
+                return call.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Asynchronous service call rejected: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.librarysystem.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded, least-recently-used map whose entries expire after a fixed time to live: the mechanics shared by
+ * {@link CatalogCache}, {@link UserCache} and {@link ActiveLoanCache}.
+ *
+ * Values are copied on the way in and out, so a caller never shares an instance with the cache. A load that
+ * started before an invalidation is not cached: {@link #startLoad()} returns the current generation, which
+ * every invalidation and update bumps, and {@link #putLoaded} only stores the value if it is unchanged.
+ *
+ * Every method locks the cache itself. A wrapper keeping a secondary index up to date in {@code onRemoval}
+ * synchronizes on the cache to read that index.
+ */
+final class TtlLruCache<K, V> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final UnaryOperator<V> copy;
+    private final BiConsumer<K, V> onRemoval;
+
+    // In access order, so the first entry is the least recently used
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param maxEntries Maximum number of entries kept; {@code 0} disables caching.
+     * @param ttlMillis How long an entry is served before it has to be loaded again.
+     * @param clock Time source in nanoseconds, {@code System::nanoTime} outside tests.
+     * @param copy Copies a value, so the cache and its callers never share one.
+     * @param onRemoval Called, holding the lock, for every entry that leaves the cache however it leaves.
+     */
+    TtlLruCache(int maxEntries, long ttlMillis, LongSupplier clock, UnaryOperator<V> copy, BiConsumer<K, V> onRemoval) {
+        if (maxEntries < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMillis must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.copy = copy;
+        this.onRemoval = onRemoval;
+    }
+
+    /**
+     * Returns a copy of the live value for {@code key}, or {@code null}, counting the hit or miss.
+     */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAt >= 0) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy.apply(entry.value);
+    }
+
+    /**
+     * Counts a miss found without calling {@link #get}, e.g. for a secondary key that is not indexed.
+     */
+    synchronized void recordMiss() {
+        misses++;
+    }
+
+    /**
+     * Returns the generation to pass to {@link #putLoaded} once the value has been loaded.
+     */
+    synchronized long startLoad() {
+        return generation;
+    }
+
+    /**
+     * Caches a copy of a loaded value, unless the cache is disabled or was invalidated since {@code loadGeneration}.
+     *
+     * @return Whether the value was cached.
+     */
+    synchronized boolean putLoaded(K key, V value, long loadGeneration) {
+        if (maxEntries == 0 || loadGeneration != generation) {
+            return false;
+        }
+        remove(key);
+        entries.put(key, new Entry<>(copy.apply(value), clock.getAsLong() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            Map.Entry<K, Entry<V>> evicted = eldest.next();
+            eldest.remove();
+            onRemoval.accept(evicted.getKey(), evicted.getValue().value);
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Applies {@code change} to the cached value for {@code key} in place, if there is one. Loads in flight are
+     * not cached, as they may have read the value from before the change.
+     */
+    synchronized void update(K key, Consumer<V> change) {
+        generation++;
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            change.accept(entry.value);
+        }
+    }
+
+    /**
+     * Stops loads in flight from being cached, for a change to a value that is not cached itself.
+     */
+    synchronized void cancelLoads() {
+        generation++;
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.forEach((key, entry) -> onRemoval.accept(key, entry.value));
+        entries.clear();
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            onRemoval.accept(key, entry.value);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    synchronized long getHitCount() {
+        return hits;
+    }
+
+    synchronized long getMissCount() {
+        return misses;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    synchronized long getExpiredCount() {
+        return expirations;
+    }
+
+    /**
+     * Fraction of lookups served from the cache, or {@code 0} before the first lookup.
+     */
+    synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Size, bound and counters, for the wrappers' {@code toString}.
+     */
+    synchronized String stats() {
+        return "size=" + entries.size() +
+                ", maxEntries=" + maxEntries +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations;
+    }
+}
@@ -0,0 +1,164 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, least-recently-used cache of users, looked up by user ID or by username.
+ *
+ * Serves the existence checks on the borrow and return path and the user lookups of {@link UserService}.
+ * Entries expire after a fixed time to live, which bounds how long a user deleted or changed by another
+ * client is still seen; changes made through {@link UserService} invalidate the entry immediately.
+ * Callers always receive copies, so mutating a returned {@link User} never changes the cache.
+ *
+ * Only found users are cached. Logins and registrations read the database directly, so a password or
+ * username change is never checked against a cached copy.
+ */
+public class UserCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserCache.class);
+
+    private static volatile UserCache shared;
+
+    private final TtlLruCache<Integer, User> byId;
+    // Guarded by byId; entries leave it together with the user they point to
+    private final Map<String, Integer> idByUsername = new HashMap<>();
+
+    /**
+     * @param maxEntries Maximum number of users kept; {@code 0} disables caching.
+     * @param ttlMillis How long an entry is served before it is read from the database again.
+     */
+    public UserCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::nanoTime);
+    }
+
+    // Constructor for testing with a controllable clock
+    UserCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.byId = new TtlLruCache<>(maxEntries, ttlMillis, clock, User::new,
+                (userId, user) -> idByUsername.remove(user.getUsername(), userId));
+    }
+
+    /**
+     * Returns the process-wide cache configured from {@code cache.user.*} keys.
+     */
+    public static UserCache shared() {
+        if (shared == null) {
+            synchronized (UserCache.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    int maxEntries = config.getBoolean("cache.user.enabled", true) ? config.getInt("cache.user.maxEntries", 5_000) : 0;
+                    shared = new UserCache(maxEntries, config.getLong("cache.user.ttlMillis", 120_000));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the user with the given ID, calling {@code loader} on a miss.
+     */
+    public Optional<User> getById(int userId, Function<Integer, Optional<User>> loader) {
+        User cached = byId.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadGeneration = byId.startLoad();
+        return load(loader.apply(userId), loadGeneration);
+    }
+
+    /**
+     * Returns the user with the given username, calling {@code loader} on a miss.
+     */
+    public Optional<User> getByUsername(String username, Function<String, Optional<User>> loader) {
+        long loadGeneration;
+        synchronized (byId) {
+            Integer userId = idByUsername.get(username);
+            User cached = userId != null ? byId.get(userId) : null;
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            if (userId == null) {
+                byId.recordMiss();
+            }
+            loadGeneration = byId.startLoad();
+        }
+        return load(loader.apply(username), loadGeneration);
+    }
+
+    private Optional<User> load(Optional<User> loaded, long loadGeneration) {
+        if (loaded.isEmpty() || loaded.get().getUserId() == 0) {
+            return loaded;
+        }
+        User user = loaded.get();
+        synchronized (byId) {
+            if (byId.putLoaded(user.getUserId(), user, loadGeneration)) {
+                Integer previousId = idByUsername.put(user.getUsername(), user.getUserId());
+                if (previousId != null && previousId != user.getUserId()) {
+                    byId.invalidate(previousId); // The username moved to another user
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the user with the given ID. Call after any change to the user, including deletion.
+     */
+    public void invalidate(int userId) {
+        byId.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public int getMaxEntries() {
+        return byId.getMaxEntries();
+    }
+
+    public long getHitCount() {
+        return byId.getHitCount();
+    }
+
+    public long getMissCount() {
+        return byId.getMissCount();
+    }
+
+    /**
+     * Number of entries dropped to stay within {@code maxEntries}.
+     */
+    public long getEvictionCount() {
+        return byId.getEvictionCount();
+    }
+
+    public long getExpiredCount() {
+        return byId.getExpiredCount();
+    }
+
+    /**
+     * Fraction of lookups served from the cache, or {@code 0} before the first lookup.
+     */
+    public double getHitRatio() {
+        return byId.getHitRatio();
+    }
+
+    public void logStats() {
+        LOGGER.info("User cache: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return "UserCache{" + byId.stats() + '}';
+    }
+}
@@ -2,39 +2,84 @@ package com.librarysystem.service;
 
 import com.librarysystem.dao.UserDAO;
 import com.librarysystem.dao.AccountDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.db.TransactionManager.Transaction;
+import com.librarysystem.db.TransactionManager.TransactionException;
 import com.librarysystem.model.User;
 import com.librarysystem.model.Account;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.List; // Added import
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class UserService {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
     private final UserDAO userDAO;
     private final AccountDAO accountDAO;
     private final LogService logService; // For logging actions
+    private final UserCache userCache;
+    private final ActiveLoanCache activeLoans; // Dropped for a deleted user
+    private final Executor executor; // Runs the ...Async methods
+    private final TransactionManager transactionManager;
 
     public UserService() {
         // In a real app, use dependency injection (e.g., Spring)
-        this.userDAO = new UserDAO();
-        this.accountDAO = new AccountDAO();
-        this.logService = new LogService();
+        this(new UserDAO(), new AccountDAO(), new LogService(), UserCache.shared(), ActiveLoanCache.shared(),
+                ServiceExecutor.shared(), new TransactionManager());
     }
 
-    // Constructor for testing with mocks
-    public UserService(UserDAO userDAO, AccountDAO accountDAO, LogService logService) {
-        this.userDAO = userDAO;
-        this.accountDAO = accountDAO;
-        this.logService = logService;
+    /**
+     * Constructor taking every collaborator, for tests and alternative wiring. A test that does not exercise the
+     * caches can pass disabled ones, {@code new UserCache(0, 0)} and {@code new ActiveLoanCache(0, 0)}; caches
+     * shared with a LibraryService see its lookups and loans.
+     *
+     * @param executor Runs the ...Async methods; {@code Runnable::run} runs them on the caller.
+     */
+    public UserService(UserDAO userDAO, AccountDAO accountDAO, LogService logService, UserCache userCache,
+                       ActiveLoanCache activeLoans, Executor executor, TransactionManager transactionManager) {
+        this.userDAO = Objects.requireNonNull(userDAO, "userDAO");
+        this.accountDAO = Objects.requireNonNull(accountDAO, "accountDAO");
+        this.logService = Objects.requireNonNull(logService, "logService");
+        this.userCache = Objects.requireNonNull(userCache, "userCache");
+        this.activeLoans = Objects.requireNonNull(activeLoans, "activeLoans");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.transactionManager = Objects.requireNonNull(transactionManager, "transactionManager");
+    }
+
+    // --- Asynchronous variants, run on the service executor ---
+
+    public CompletableFuture<Boolean> registerUserAsync(String username, String password, User.Role role) {
+        return ServiceExecutor.supplyAsync(() -> registerUser(username, password, role), executor);
+    }
+
+    public CompletableFuture<Optional<User>> loginUserAsync(String username, String password) {
+        return ServiceExecutor.supplyAsync(() -> loginUser(username, password), executor);
+    }
+
+    public CompletableFuture<Optional<User>> findUserByIdAsync(int userId) {
+        return ServiceExecutor.supplyAsync(() -> findUserById(userId), executor);
+    }
+
+    public CompletableFuture<Optional<User>> findUserByUsernameAsync(String username) {
+        return ServiceExecutor.supplyAsync(() -> findUserByUsername(username), executor);
+    }
+
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return ServiceExecutor.supplyAsync(this::getAllUsers, executor);
     }
 
     /**
      * Registers a new user in the system.
      * Validates username and password, checks for existing username, hashes the password,
-     * adds the user to the database, and creates an associated account.
+     * adds the user to the database, and creates an associated account. The user and account are
+     * created in a single transaction, so a failure leaves neither behind.
      * Logs the registration action.
      *
      * @param username The username for the new user. Must not be null or empty.
@@ -54,6 +99,23 @@ public class UserService {
         }
 
         String passwordHash = PasswordUtil.hashPassword(password);
+        Optional<User> registered;
+        try {
+            registered = transactionManager.inTransaction(tx -> createUserWithAccount(tx, username, passwordHash, role));
+        } catch (TransactionException e) {
+            LOGGER.error("Registration of user {} failed to commit.", username, e);
+            return false;
+        }
+        if (registered.isEmpty()) {
+            return false;
+        }
+        // Audited only once committed, so a rolled-back registration leaves no entry
+        LOGGER.info("User registered successfully: {}", username);
+        logService.recordLog(registered.get().getUserId(), com.librarysystem.model.LogEntry.ActionType.ACCOUNT_CREATED, "User registered: " + username);
+        return true;
+    }
+
+    private Optional<User> createUserWithAccount(Transaction tx, String username, String passwordHash, User.Role role) {
         User newUser = new User(username, passwordHash, role);
 
         boolean userAdded = userDAO.addUser(newUser);
@@ -64,45 +126,17 @@ public class UserService {
             boolean accountCreated = accountDAO.createAccount(newAccount);
 
             if (accountCreated) {
-                LOGGER.info("User registered successfully: {}", username);
-                logService.recordLog(newUser.getUserId(), com.librarysystem.model.LogEntry.ActionType.ACCOUNT_CREATED, "User registered: " + username);
-                return true;
+                return Optional.of(newUser);
             } else {
-                LOGGER.error("User {} registered, but failed to create associated account. Rolling back user creation is recommended.", username);
-                // In a real transactional system, user creation would be rolled back.
-                // For now, we'll delete the user if account creation fails.
-                userDAO.deleteUser(newUser.getUserId());
-                LOGGER.info("Rolled back user creation for {} due to account creation failure.", username);
-                return false;
+                LOGGER.error("Failed to create associated account for user {}. Rolling back user creation.", username);
+                tx.setRollbackOnly();
+                return Optional.empty();
             }
         } else {
             LOGGER.error("Failed to register user: {}", username);
-            return false;
-        }
-    }
-
-    public Optional<User> loginUser(String username, String password) {
-        if (username == null || username.trim().isEmpty() || password == null || password.isEmpty()) {
-            LOGGER.warn("Login attempt with invalid username or password.");
+            tx.setRollbackOnly();
             return Optional.empty();
         }
-
-        Optional<User> userOpt = userDAO.getUserByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (PasswordUtil.verifyPassword(password, user.getPasswordHash())) {
-                LOGGER.info("User login successful: {}", username);
-                logService.recordLog(user.getUserId(), com.librarysystem.model.LogEntry.ActionType.LOGIN_SUCCESS, "User login: " + username);
-                return Optional.of(user);
-            } else {
-                LOGGER.warn("User login failed (incorrect password) for username: {}", username);
-                logService.recordLog(user.getUserId(), com.librarysystem.model.LogEntry.ActionType.LOGIN_FAILURE, "Failed login attempt (incorrect password) for username: " + username);
-            }
-        } else {
-            LOGGER.warn("User login failed (user not found) for username: {}", username);
-            logService.recordLog(null, com.librarysystem.model.LogEntry.ActionType.LOGIN_FAILURE, "Failed login attempt (user not found): " + username);
-        }
-        return Optional.empty();
     }
 
     /**
@@ -139,18 +173,31 @@ public class UserService {
         return Optional.empty();
     }
 
+    /**
+     * Finds a user by username, served from the user cache when possible.
+     */
     public Optional<User> findUserByUsername(String username) {
-        return userDAO.getUserByUsername(username);
+        return userCache.getByUsername(username, userDAO::getUserByUsername);
     }
 
+    /**
+     * Finds a user by ID, served from the user cache when possible.
+     */
     public Optional<User> findUserById(int userId) {
-        return userDAO.getUserById(userId);
+        return userCache.getById(userId, userDAO::getUserById);
     }
 
     public List<User> getAllUsers() { // Added for Admin UI
         return userDAO.getAllUsers();
     }
 
+    /**
+     * Returns one page of users ordered by user ID. Pass {@link Page#nextPageRequest()} to get the next page.
+     */
+    public Page<User> getUsersPage(PageRequest request) {
+        return userDAO.getUsersPage(request);
+    }
+
     public boolean changeUserPassword(int userId, String oldPassword, String newPassword) {
         if (newPassword == null || newPassword.isEmpty()) {
             LOGGER.warn("Attempt to change password to an empty password for user ID: {}", userId);
@@ -169,6 +216,7 @@ public class UserService {
 
         user.setPasswordHash(PasswordUtil.hashPassword(newPassword));
         boolean updated = userDAO.updateUser(user);
+        userCache.invalidate(userId);
         if (updated) {
             LOGGER.info("Password changed successfully for user ID: {}", userId);
             logService.recordLog(userId, com.librarysystem.model.LogEntry.ActionType.ACCOUNT_UPDATED, "Password changed for user ID: " + userId);
@@ -194,6 +242,7 @@ public class UserService {
         User userToUpdate = userOpt.get();
         userToUpdate.setRole(newRole);
         boolean updated = userDAO.updateUser(userToUpdate);
+        userCache.invalidate(userId);
 
         if (updated) {
             LOGGER.info("Admin (ID: {}) successfully changed role for user ID: {} to {}", adminUser.getUserId(), userId, newRole);
@@ -203,4 +252,27 @@ public class UserService {
         }
         return updated;
     }
+
+    // Admin function
+    public boolean deleteUser(int userId, User adminUser) {
+        if (adminUser == null || adminUser.getRole() != User.Role.ADMIN) {
+            LOGGER.warn("Non-admin user (ID: {}) attempted to delete user ID: {}", adminUser != null ? adminUser.getUserId() : "null", userId);
+            return false;
+        }
+        if (adminUser.getUserId() == userId) {
+            LOGGER.warn("Admin (ID: {}) attempted to delete their own account.", userId);
+            return false;
+        }
+
+        boolean deleted = userDAO.deleteUser(userId);
+        userCache.invalidate(userId);
+        activeLoans.invalidate(userId);
+        if (deleted) {
+            LOGGER.info("Admin (ID: {}) deleted user ID: {}", adminUser.getUserId(), userId);
+            logService.recordLog(adminUser.getUserId(), com.librarysystem.model.LogEntry.ActionType.ACCOUNT_DELETED, "Admin (ID: " + adminUser.getUserId() + ") deleted user ID: " + userId);
+        } else {
+            LOGGER.error("Admin (ID: {}) failed to delete user ID: {}", adminUser.getUserId(), userId);
+        }
+        return deleted;
+    }
 }
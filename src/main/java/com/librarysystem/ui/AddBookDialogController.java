@@ -71,7 +71,7 @@ public class AddBookDialogController {
              setErrorMessage("Total copies must be a non-negative number.");
             return;
         }
-        if (totalCopies == 0 && bookService.findBookByIsbn(isbn).isEmpty()) {
+        if (totalCopies == 0) {
             // If it's a new book, it should have at least 1 copy if totalCopies is set to 0.
             // However, our spinner min is 1. So this check is more for robustness.
             // For adding new book, totalCopies must be > 0.
@@ -79,17 +79,24 @@ public class AddBookDialogController {
         }
 
 
-        boolean success = bookService.addBook(isbn, title, author, publicationYear, genre, totalCopies);
-
-        if (success) {
-            saved = true;
-            showAlert(Alert.AlertType.INFORMATION, "Success", "Book added successfully!");
-            dialogStage.close();
-        } else {
-            // BookService might log specific errors (e.g., duplicate ISBN)
-            setErrorMessage("Failed to add book. ISBN might already exist or invalid data.");
-            // showAlert(Alert.AlertType.ERROR, "Error", "Could not add book. Check console for details.");
-        }
+        saveButton.setDisable(true);
+        setErrorMessage("Saving...");
+        UiTaskRunner.shared().submit(null, "Adding '" + title + "'",
+                () -> bookService.addBook(isbn, title, author, publicationYear, genre, totalCopies), success -> {
+            saveButton.setDisable(false);
+            if (success) {
+                saved = true;
+                showAlert(Alert.AlertType.INFORMATION, "Success", "Book added successfully!");
+                dialogStage.close();
+            } else {
+                // BookService might log specific errors (e.g., duplicate ISBN)
+                setErrorMessage("Failed to add book. ISBN might already exist or invalid data.");
+                // showAlert(Alert.AlertType.ERROR, "Error", "Could not add book. Check console for details.");
+            }
+        }, error -> {
+            saveButton.setDisable(false);
+            setErrorMessage("Failed to add book. Please try again.");
+        });
     }
 
     @FXML
@@ -1,6 +1,7 @@
 package com.librarysystem.ui;
 
 import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.LoanDetails;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -27,6 +28,10 @@ public class BorrowedBookView {
         this.dueDate = new SimpleObjectProperty<>(record.getDueDate());
     }
 
+    public BorrowedBookView(LoanDetails loan) {
+        this(loan.getRecord(), loan.getIsbn(), loan.getTitle(), loan.getAuthor());
+    }
+
     public int getBorrowId() {
         return borrowId.get();
     }
@@ -88,23 +88,29 @@ public class EditBookDialogController {
         }
 
 
-        boolean success = bookService.updateBookDetails(
+        saveButton.setDisable(true);
+        setErrorMessage("Saving...");
+        UiTaskRunner.shared().submit(null, "Updating '" + title + "'", () -> bookService.updateBookDetails(
                 bookToEdit.getIsbn(),
                 title,
                 author,
                 publicationYear,
                 genre,
                 totalCopies
-        );
-
-        if (success) {
-            saved = true;
-            showAlert(Alert.AlertType.INFORMATION, "Success", "Book details updated successfully!");
-            dialogStage.close();
-        } else {
-            setErrorMessage("Failed to update book. Please check data or console for errors.");
-            // showAlert(Alert.AlertType.ERROR, "Error", "Could not update book. Check console for details.");
-        }
+        ), success -> {
+            saveButton.setDisable(false);
+            if (success) {
+                saved = true;
+                showAlert(Alert.AlertType.INFORMATION, "Success", "Book details updated successfully!");
+                dialogStage.close();
+            } else {
+                setErrorMessage("Failed to update book. Please check data or console for errors.");
+                // showAlert(Alert.AlertType.ERROR, "Error", "Could not update book. Check console for details.");
+            }
+        }, error -> {
+            saveButton.setDisable(false);
+            setErrorMessage("Failed to update book. Please try again.");
+        });
     }
 
     @FXML
@@ -35,6 +35,7 @@ public class LoginController {
     private Label messageLabel;
 
     private UserService userService;
+    private final UiTaskRunner tasks = UiTaskRunner.shared(); // Password hashing and lookups stay off the FX thread
     private Main app; // To call method for changing scene
 
 
@@ -57,22 +58,27 @@ public class LoginController {
             return;
         }
 
-        Optional<User> userOptional = userService.loginUser(username, password);
-
-        if (userOptional.isPresent()) {
-            showMessage("Login successful!", Color.GREEN);
-            // Proceed to the main application window
-            // This requires a method in Main.java to switch scenes
-            if (app != null) {
-                app.showMainAppView(userOptional.get());
+        setBusy(true, "Signing in...");
+        tasks.submit(null, "Signing in", () -> userService.loginUser(username, password), userOptional -> {
+            setBusy(false, "");
+            if (userOptional.isPresent()) {
+                showMessage("Login successful!", Color.GREEN);
+                // Proceed to the main application window
+                // This requires a method in Main.java to switch scenes
+                if (app != null) {
+                    app.showMainAppView(userOptional.get());
+                } else {
+                     // Fallback or error if app reference isn't set
+                    System.err.println("Main application reference not set in LoginController.");
+                    showMessage("Error: Application context not found.", Color.RED);
+                }
             } else {
-                 // Fallback or error if app reference isn't set
-                System.err.println("Main application reference not set in LoginController.");
-                showMessage("Error: Application context not found.", Color.RED);
+                showMessage("Invalid username or password.", Color.RED);
             }
-        } else {
-            showMessage("Invalid username or password.", Color.RED);
-        }
+        }, error -> {
+            setBusy(false, "");
+            showMessage("Login failed. Please try again.", Color.RED);
+        });
     }
 
     @FXML
@@ -88,15 +94,28 @@ public class LoginController {
         }
 
         // Default new users to MEMBER role. Admin creation would be manual or a separate process.
-        boolean success = userService.registerUser(username, password, User.Role.MEMBER);
-
-        if (success) {
-            showMessage("Registration successful! You can now log in.", Color.GREEN);
-            usernameField.clear();
-            passwordField.clear();
-        } else {
-            // UserService logs specific reasons (e.g., username exists)
-            showMessage("Registration failed. Username might be taken or an error occurred.", Color.RED);
+        setBusy(true, "Registering...");
+        tasks.submit(null, "Registering", () -> userService.registerUser(username, password, User.Role.MEMBER), success -> {
+            setBusy(false, "");
+            if (success) {
+                showMessage("Registration successful! You can now log in.", Color.GREEN);
+                usernameField.clear();
+                passwordField.clear();
+            } else {
+                // UserService logs specific reasons (e.g., username exists)
+                showMessage("Registration failed. Username might be taken or an error occurred.", Color.RED);
+            }
+        }, error -> {
+            setBusy(false, "");
+            showMessage("Registration failed. Please try again.", Color.RED);
+        });
+    }
+
+    private void setBusy(boolean busy, String message) {
+        loginButton.setDisable(busy);
+        registerButton.setDisable(busy);
+        if (busy) {
+            showMessage(message, Color.GRAY);
         }
     }
 
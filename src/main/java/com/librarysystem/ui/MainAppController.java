@@ -2,11 +2,14 @@ package com.librarysystem.ui;
 
 import com.librarysystem.Main;
 import com.librarysystem.model.*;
+import com.librarysystem.search.CatalogSearchIndex;
+import com.librarysystem.search.FacetIndex;
 import com.librarysystem.service.*;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.paint.Color;
@@ -16,16 +19,20 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.layout.VBox;
-import javafx.application.Platform;
 
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.Year;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream; // Added import
 import org.slf4j.Logger; // Added import
 import org.slf4j.LoggerFactory; // Added import
 
@@ -35,6 +42,8 @@ public class MainAppController {
 
     @FXML private Label welcomeLabel;
     @FXML private Button logoutButton;
+    @FXML private ProgressIndicator busyIndicator;
+    @FXML private Label busyLabel;
     @FXML private TabPane mainTabPane;
     @FXML private Tab browseBooksTab;
     @FXML private Tab myBooksTab;
@@ -45,6 +54,11 @@ public class MainAppController {
     @FXML private TextField searchTitleField;
     @FXML private TextField searchAuthorField;
     @FXML private TextField searchIsbnField;
+    @FXML private CheckBox availableOnlyCheckBox;
+    @FXML private CheckBox allowTyposCheckBox;
+    @FXML private MenuButton genreFacetMenu;
+    @FXML private MenuButton decadeFacetMenu;
+    @FXML private Label facetSummaryLabel;
     @FXML private TableView<Book> booksTableView;
     @FXML private TableColumn<Book, String> bookIsbnColumn;
     @FXML private TableColumn<Book, String> bookTitleColumn;
@@ -54,6 +68,7 @@ public class MainAppController {
     @FXML private TableColumn<Book, Integer> bookAvailableCopiesColumn;
     @FXML private TableColumn<Book, Integer> bookTotalCopiesColumn;
     @FXML private Button borrowButton;
+    @FXML private Button loadMoreBooksButton;
 
     // My Borrowed Books Tab
     @FXML private TableView<BorrowedBookView> borrowedBooksTableView; // Custom view model
@@ -77,6 +92,12 @@ public class MainAppController {
     @FXML private TableColumn<LogEntry, Integer> logUserIdColumn;
     @FXML private TableColumn<LogEntry, LogEntry.ActionType> logActionColumn;
     @FXML private TableColumn<LogEntry, String> logDetailsColumn;
+    @FXML private Button loadMoreLogsButton;
+
+    private static final int LOGS_PAGE_SIZE = 200;
+    private static final int MAX_SUGGESTIONS = 8;
+    private PageRequest nextLogsPage; // null when the oldest log entry is already shown
+    private BookSearchCriteria nextBooksPage; // null when the Browse tab shows search results or the last page
 
 
     private Main app;
@@ -85,6 +106,7 @@ public class MainAppController {
     private LibraryService libraryService;
     private UserService userService;
     private LogService logService;
+    private final UiTaskRunner tasks = UiTaskRunner.shared(); // Every service call runs here, off the FX thread
 
     private final ObservableList<Book> booksData = FXCollections.observableArrayList();
     private final ObservableList<BorrowedBookView> borrowedBooksData = FXCollections.observableArrayList();
@@ -160,6 +182,17 @@ public class MainAppController {
         logDetailsColumn.setCellValueFactory(new PropertyValueFactory<>("details"));
         logsTableView.setItems(logsData);
 
+        // Busy indicator for background loads and actions
+        tasks.setBusyListener((pendingTasks, description) -> {
+            busyIndicator.setVisible(pendingTasks > 0);
+            busyLabel.setText(pendingTasks == 0 ? "" : description + "..." + (pendingTasks > 1 ? " (+" + (pendingTasks - 1) + " more)" : ""));
+        });
+
+        // Typeahead for the search fields
+        installAutocomplete(searchTitleField, CatalogSearchIndex.Field.TITLE);
+        installAutocomplete(searchAuthorField, CatalogSearchIndex.Field.AUTHOR);
+        installAutocomplete(searchIsbnField, CatalogSearchIndex.Field.ISBN);
+
         // Add listeners to tab changes to refresh data
         mainTabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> {
             if (newTab == browseBooksTab) {
@@ -188,6 +221,42 @@ public class MainAppController {
         // or better, in setCurrentUser after currentUser is confirmed.
     }
 
+    /**
+     * Shows the most popular completions under the field as the user types; picking one runs the search.
+     * Suggestions come from the in-memory search index, so they are computed on the FX thread.
+     */
+    private void installAutocomplete(TextField field, CatalogSearchIndex.Field searchField) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+        field.textProperty().addListener((obs, oldText, newText) -> {
+            if (!field.isFocused()) {
+                suggestionsMenu.hide(); // Text set programmatically, e.g. by picking a suggestion
+                return;
+            }
+            List<String> suggestions = bookService.suggest(searchField, newText, MAX_SUGGESTIONS);
+            if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.get(0).equalsIgnoreCase(newText.trim()))) {
+                suggestionsMenu.hide();
+                return;
+            }
+            suggestionsMenu.getItems().setAll(suggestions.stream().map(suggestion -> {
+                MenuItem item = new MenuItem(suggestion);
+                item.setOnAction(e -> {
+                    field.setText(suggestion);
+                    field.positionCaret(suggestion.length());
+                    handleSearchBooks();
+                });
+                return item;
+            }).collect(Collectors.toList()));
+            if (!suggestionsMenu.isShowing()) {
+                suggestionsMenu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+        field.focusedProperty().addListener((obs, wasFocused, isFocused) -> {
+            if (!isFocused) {
+                suggestionsMenu.hide();
+            }
+        });
+    }
+
     private void handleAdminSubTabChange(Tab selectedSubTab) {
         if (selectedSubTab.getId().equals("manageBooksAdminTab")) {
             // No specific data to load here directly, actions are on selected books from main list
@@ -199,58 +268,215 @@ public class MainAppController {
     }
 
     public void initializeData() {
-        Platform.runLater(() -> { // Ensure UI updates are on JavaFX Application Thread
-            loadAllBooks();
-            if (currentUser != null) {
-                loadBorrowedBooks();
-                if (currentUser.getRole() == User.Role.ADMIN) {
-                    // Pre-load data for the initially selected admin tab if any
-                    Tab selectedAdminSubTab = adminSubTabPane.getSelectionModel().getSelectedItem();
-                    if (selectedAdminSubTab == null && !adminSubTabPane.getTabs().isEmpty()) {
-                        selectedAdminSubTab = adminSubTabPane.getTabs().get(0);
-                        adminSubTabPane.getSelectionModel().select(selectedAdminSubTab); // Also triggers listener
-                    } else if (selectedAdminSubTab != null) {
-                         handleAdminSubTabChange(selectedAdminSubTab); // Manually trigger for initial load
-                    }
+        // Each load runs in the background and fills its table when done, so the window shows immediately
+        loadAllBooks();
+        if (currentUser != null) {
+            loadBorrowedBooks();
+            if (currentUser.getRole() == User.Role.ADMIN) {
+                // Pre-load data for the initially selected admin tab if any
+                Tab selectedAdminSubTab = adminSubTabPane.getSelectionModel().getSelectedItem();
+                if (selectedAdminSubTab == null && !adminSubTabPane.getTabs().isEmpty()) {
+                    selectedAdminSubTab = adminSubTabPane.getTabs().get(0);
+                    adminSubTabPane.getSelectionModel().select(selectedAdminSubTab); // Also triggers listener
+                } else if (selectedAdminSubTab != null) {
+                     handleAdminSubTabChange(selectedAdminSubTab); // Manually trigger for initial load
                 }
             }
-        });
+        }
     }
 
     @FXML
     private void handleLogout() {
+        tasks.cancelAll(); // Results for the old session are dropped
+        tasks.setBusyListener(null);
         currentUser = null; // Clear current user
         if (app != null) {
             app.showLoginView(); // Go back to login screen
         }
     }
 
+    // --- Background work ---
+    /**
+     * Runs a load in the background. A newer load with the same key drops this one's result.
+     */
+    private <T> void runInBackground(String key, String description, Callable<T> work, Consumer<T> onSuccess) {
+        tasks.submit(key, description, work, onSuccess,
+                error -> showAlert(Alert.AlertType.ERROR, "Error", description + " failed. Please try again."));
+    }
+
+    /**
+     * Runs an action in the background, disabling {@code control} (if any) until it completes.
+     */
+    private <T> void runAction(Control control, String description, Callable<T> work, Consumer<T> onSuccess) {
+        if (control != null) {
+            control.setDisable(true);
+        }
+        tasks.submit(null, description, work, result -> {
+            if (control != null) {
+                control.setDisable(false);
+            }
+            onSuccess.accept(result);
+        }, error -> {
+            if (control != null) {
+                control.setDisable(false);
+            }
+            showAlert(Alert.AlertType.ERROR, "Error", description + " failed. Please try again.");
+        });
+    }
+
+    // Books and facet counts read together on a worker thread
+    private static final class BookResults {
+        final List<Book> books;
+        final Optional<FacetIndex.Counts> counts;
+
+        BookResults(List<Book> books, Optional<FacetIndex.Counts> counts) {
+            this.books = books;
+            this.counts = counts;
+        }
+    }
+
     // --- Book Browsing and Borrowing ---
+    // Shows the first page of the catalog; later pages are fetched on demand, so the tab never loads the whole Books table.
     private void loadAllBooks() {
-        List<Book> currentBooks = bookService.getAllBooks();
-        booksData.setAll(currentBooks);
+        if (hasFacetsSelected()) {
+            handleSearchBooks(); // Keep the chosen facets applied
+            return;
+        }
+        resetBooksPaging();
+        FacetIndex.Selection selection = FacetIndex.Selection.all();
+        BookSearchCriteria firstPage = BookSearchCriteria.builder().limit(BookSearchCriteria.DEFAULT_LIMIT).build();
+        runInBackground("books", "Loading books",
+                () -> new BookResults(bookService.searchBooks(firstPage), bookService.getFacetCounts(selection)),
+                results -> {
+                    showBooks(results, selection);
+                    updateNextBooksPage(firstPage, results.books);
+                });
+    }
+
+    @FXML
+    private void handleLoadMoreBooks() {
+        if (nextBooksPage == null) {
+            return;
+        }
+        BookSearchCriteria request = nextBooksPage;
+        runAction(loadMoreBooksButton, "Loading more books", () -> bookService.searchBooks(request), books -> {
+            if (nextBooksPage != request) {
+                return; // The list was reloaded or replaced by a search meanwhile
+            }
+            booksData.addAll(books);
+            updateNextBooksPage(request, books);
+        });
+    }
+
+    private void resetBooksPaging() {
+        nextBooksPage = null; // "Load More" stays disabled until the first page is shown
+        if (loadMoreBooksButton != null) {
+            loadMoreBooksButton.setDisable(true);
+        }
+    }
+
+    private void updateNextBooksPage(BookSearchCriteria page, List<Book> books) {
+        nextBooksPage = books.size() < page.getLimit() ? null : page.nextPage();
+        if (loadMoreBooksButton != null) {
+            loadMoreBooksButton.setDisable(nextBooksPage == null);
+        }
     }
 
     @FXML
     private void handleSearchBooks() {
+        // Read the controls here; the search itself runs on a worker thread
         String title = searchTitleField.getText().trim();
         String author = searchAuthorField.getText().trim();
         String isbn = searchIsbnField.getText().trim();
+        boolean availableOnly = availableOnlyCheckBox.isSelected();
+        boolean allowTypos = allowTyposCheckBox.isSelected();
+        boolean facetsSelected = hasFacetsSelected();
+        FacetIndex.Selection selection = selectedFacets();
+
+        resetBooksPaging();
+        runInBackground("books", "Searching books",
+                () -> new BookResults(searchBooks(title, author, isbn, availableOnly, allowTypos, facetsSelected, selection),
+                        bookService.getFacetCounts(selection)),
+                results -> showBooks(results, selection));
+    }
 
-        List<Book> allBooks = bookService.getAllBooks(); // Start with all books
-        Stream<Book> stream = allBooks.stream();
-
-        if (!title.isEmpty()) {
-            stream = stream.filter(book -> book.getTitle().toLowerCase().contains(title.toLowerCase()));
+    // Called on a worker thread, so it must not touch the controls
+    private List<Book> searchBooks(String title, String author, String isbn, boolean availableOnly, boolean allowTypos,
+                                   boolean facetsSelected, FacetIndex.Selection selection) {
+        if ((title + author + isbn).isEmpty() && facetsSelected) {
+            return bookService.findBooksByFacets(selection, BookSearchCriteria.MAX_LIMIT);
         }
-        if (!author.isEmpty()) {
-            stream = stream.filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()));
+
+        // Genre and decade facets narrow the search itself, so they are applied before the limit
+        if (allowTypos && isbn.isEmpty() && !(title + author).isEmpty()) {
+            return bookService.findBooksFuzzy(title + " " + author, selection, BookSearchCriteria.MAX_LIMIT); // Closest matches first
         }
-        if (!isbn.isEmpty()) {
-            stream = stream.filter(book -> book.getIsbn().toLowerCase().contains(isbn.toLowerCase()));
+        BookSearchCriteria criteria = BookSearchCriteria.builder()
+                .title(title)
+                .author(author)
+                .isbn(isbn)
+                .genres(selection.getGenres())
+                .decades(selection.getDecades())
+                .availableOnly(availableOnly)
+                .limit(BookSearchCriteria.MAX_LIMIT)
+                .build();
+        return bookService.searchBooks(criteria); // Filtered in the database, not after loading every book
+    }
+
+    private void showBooks(BookResults results, FacetIndex.Selection selection) {
+        booksData.setAll(results.books);
+        showFacetCounts(results.counts, selection);
+    }
+
+    // --- Facets: genre and decade menus with match counts, combined with "Available only" ---
+    private boolean hasFacetsSelected() {
+        return availableOnlyCheckBox.isSelected() || !selectedFacetValues(genreFacetMenu).isEmpty()
+                || !selectedFacetValues(decadeFacetMenu).isEmpty();
+    }
+
+    private FacetIndex.Selection selectedFacets() {
+        List<String> genres = new ArrayList<>();
+        List<Integer> decades = new ArrayList<>();
+        selectedFacetValues(genreFacetMenu).forEach(value -> genres.add((String) value));
+        selectedFacetValues(decadeFacetMenu).forEach(value -> decades.add((Integer) value));
+        return new FacetIndex.Selection(genres, decades, availableOnlyCheckBox.isSelected());
+    }
+
+    private static List<Object> selectedFacetValues(MenuButton menu) {
+        return menu.getItems().stream()
+                .filter(item -> item instanceof CheckMenuItem && ((CheckMenuItem) item).isSelected())
+                .map(MenuItem::getUserData)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Relabels the facet menus with the catalog-wide match counts for the current selection.
+     * The menus stay empty until the search index is ready.
+     */
+    private void showFacetCounts(Optional<FacetIndex.Counts> countsOpt, FacetIndex.Selection selection) {
+        if (countsOpt.isEmpty()) {
+            facetSummaryLabel.setText("");
+            return;
         }
+        FacetIndex.Counts counts = countsOpt.get();
+        fillFacetMenu(genreFacetMenu, "Genre", counts.getGenres(), selection.getGenres(), genre -> genre);
+        fillFacetMenu(decadeFacetMenu, "Decade", counts.getDecades(), selection.getDecades(), decade -> decade + "s");
+        availableOnlyCheckBox.setText("Available only (" + counts.getAvailable() + ")");
+        facetSummaryLabel.setText(counts.getTotal() + " books match the selected facets");
+    }
 
-        booksData.setAll(stream.collect(Collectors.toList()));
+    private <K> void fillFacetMenu(MenuButton menu, String name, Map<K, Integer> counts, Set<K> selected,
+                                   Function<K, String> label) {
+        List<MenuItem> items = new ArrayList<>();
+        counts.forEach((value, count) -> {
+            CheckMenuItem item = new CheckMenuItem(label.apply(value) + " (" + count + ")");
+            item.setUserData(value);
+            item.setSelected(selected.contains(value));
+            item.setOnAction(e -> handleSearchBooks());
+            items.add(item);
+        });
+        menu.getItems().setAll(items);
+        menu.setText(selected.isEmpty() ? name : name + " (" + selected.size() + ")");
     }
 
     @FXML
@@ -258,6 +484,10 @@ public class MainAppController {
         searchTitleField.clear();
         searchAuthorField.clear();
         searchIsbnField.clear();
+        availableOnlyCheckBox.setSelected(false);
+        allowTyposCheckBox.setSelected(false);
+        genreFacetMenu.getItems().forEach(item -> ((CheckMenuItem) item).setSelected(false));
+        decadeFacetMenu.getItems().forEach(item -> ((CheckMenuItem) item).setSelected(false));
         loadAllBooks();
     }
 
@@ -274,35 +504,30 @@ public class MainAppController {
             return;
         }
 
-        boolean success = libraryService.borrowBook(currentUser.getUserId(), selectedBook.getIsbn());
-        if (success) {
-            showAlert(Alert.AlertType.INFORMATION, "Success", "Book '" + selectedBook.getTitle() + "' borrowed successfully.");
-            loadAllBooks(); // Refresh book list
-            loadBorrowedBooks(); // Refresh user's borrowed list
-        } else {
-            showAlert(Alert.AlertType.ERROR, "Borrow Failed", "Could not borrow book. It might be unavailable or already borrowed by you.");
-            loadAllBooks(); // Refresh to show updated availability just in case
-        }
+        int userId = currentUser.getUserId();
+        runAction(borrowButton, "Borrowing '" + selectedBook.getTitle() + "'",
+                () -> libraryService.borrowBook(userId, selectedBook.getIsbn()), success -> {
+            if (success) {
+                showAlert(Alert.AlertType.INFORMATION, "Success", "Book '" + selectedBook.getTitle() + "' borrowed successfully.");
+                loadAllBooks(); // Refresh book list
+                loadBorrowedBooks(); // Refresh user's borrowed list
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Borrow Failed", "Could not borrow book. It might be unavailable or already borrowed by you.");
+                loadAllBooks(); // Refresh to show updated availability just in case
+            }
+        });
     }
 
     // --- My Borrowed Books ---
     private void loadBorrowedBooks() {
         if (currentUser == null) return;
-        List<BorrowingRecord> records = libraryService.getCurrentlyBorrowedBooksByUser(currentUser.getUserId());
-        // Map BorrowingRecord to BorrowedBookView
-        borrowedBooksData.setAll(
-            records.stream().map(record -> {
-                Optional<Book> bookOpt = bookService.findBookByIsbn(
-                    // We need a way to get ISBN from bookId in BorrowingRecord
-                    // This assumes BookService can get book by its PK (book_id)
-                    // Or BorrowingRecord should store more book details (less ideal for normalization)
-                    // For now, let's assume BookDAO and BookService have getBookById(int pk)
-                    bookService.getBookById(record.getBookId()).map(Book::getIsbn).orElse("N/A ISBn")
-                );
-                return bookOpt.map(book -> new BorrowedBookView(record, book.getIsbn(), book.getTitle(), book.getAuthor()))
-                              .orElse(new BorrowedBookView(record, "Unknown ISBN", "Unknown Title", "Unknown Author"));
-            }).collect(Collectors.toList())
-        );
+        int userId = currentUser.getUserId();
+        // One joined query for all loans, rather than two book lookups per loan
+        runInBackground("loans", "Loading your books",
+                () -> libraryService.getActiveLoanDetails(userId).stream()
+                        .map(BorrowedBookView::new)
+                        .collect(Collectors.toList()),
+                borrowedBooksData::setAll);
     }
 
     @FXML
@@ -317,14 +542,17 @@ public class MainAppController {
             return;
         }
 
-        boolean success = libraryService.returnBook(currentUser.getUserId(), selectedBorrowed.getIsbn());
-        if (success) {
-            showAlert(Alert.AlertType.INFORMATION, "Success", "Book '" + selectedBorrowed.getTitle() + "' returned successfully.");
-            loadAllBooks(); // Refresh book list
-            loadBorrowedBooks(); // Refresh user's borrowed list
-        } else {
-            showAlert(Alert.AlertType.ERROR, "Return Failed", "Could not return book. Please check the details.");
-        }
+        int userId = currentUser.getUserId();
+        runAction(returnButton, "Returning '" + selectedBorrowed.getTitle() + "'",
+                () -> libraryService.returnBook(userId, selectedBorrowed.getIsbn()), success -> {
+            if (success) {
+                showAlert(Alert.AlertType.INFORMATION, "Success", "Book '" + selectedBorrowed.getTitle() + "' returned successfully.");
+                loadAllBooks(); // Refresh book list
+                loadBorrowedBooks(); // Refresh user's borrowed list
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Return Failed", "Could not return book. Please check the details.");
+            }
+        });
     }
 
 
@@ -401,21 +629,22 @@ public class MainAppController {
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you want to remove '" + selectedBook.getTitle() + "'?", ButtonType.YES, ButtonType.NO);
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.YES) {
-                boolean success = bookService.removeBook(selectedBook.getIsbn());
-                if (success) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Book removed successfully.");
-                    loadAllBooks();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Removal Failed", "Could not remove book.");
-                }
+                runAction(null, "Removing '" + selectedBook.getTitle() + "'",
+                        () -> bookService.removeBook(selectedBook.getIsbn()), success -> {
+                    if (success) {
+                        showAlert(Alert.AlertType.INFORMATION, "Success", "Book removed successfully.");
+                        loadAllBooks();
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Removal Failed", "Could not remove book.");
+                    }
+                });
             }
         });
     }
 
     private void loadAllUsers() {
         if (currentUser != null && currentUser.getRole() == User.Role.ADMIN) {
-            List<User> currentUsers = userService.getAllUsers(); // New method in UserService needed
-            usersData.setAll(currentUsers);
+            runInBackground("users", "Loading users", userService::getAllUsers, usersData::setAll);
         }
     }
 
@@ -438,22 +667,31 @@ public class MainAppController {
         dialog.setContentText("Choose new role:");
 
         Optional<User.Role> result = dialog.showAndWait();
-        result.ifPresent(newRole -> {
-            boolean success = userService.updateUserRole(selectedUser.getUserId(), newRole, currentUser);
+        User adminUser = currentUser;
+        result.ifPresent(newRole -> runAction(usersTableView, "Updating role of " + selectedUser.getUsername(),
+                () -> userService.updateUserRole(selectedUser.getUserId(), newRole, adminUser), success -> {
             if (success) {
                 showAlert(Alert.AlertType.INFORMATION, "Success", "User role updated successfully.");
                 loadAllUsers(); // Refresh user list
             } else {
                 showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not update user role.");
             }
-        });
+        }));
     }
 
 
+    // Shows the newest page of logs; older entries are fetched page by page, so the table never loads the whole Logging table.
     private void loadAllLogs() {
          if (currentUser != null && currentUser.getRole() == User.Role.ADMIN) {
-            List<LogEntry> currentLogs = logService.getAllLogs();
-            logsData.setAll(currentLogs);
+            nextLogsPage = null; // "Load More" stays disabled until the newest page is shown
+            if (loadMoreLogsButton != null) {
+                loadMoreLogsButton.setDisable(true);
+            }
+            runInBackground("logs", "Loading logs",
+                    () -> logService.getLogsPage(PageRequest.first(LOGS_PAGE_SIZE, PageRequest.Direction.DESC)), page -> {
+                logsData.setAll(page.getItems());
+                updateNextLogsPage(page);
+            });
         }
     }
 
@@ -462,6 +700,25 @@ public class MainAppController {
         loadAllLogs();
     }
 
+    @FXML
+    private void handleLoadMoreLogs() {
+        if (nextLogsPage == null) {
+            return;
+        }
+        PageRequest request = nextLogsPage;
+        runAction(loadMoreLogsButton, "Loading older logs", () -> logService.getLogsPage(request), page -> {
+            logsData.addAll(page.getItems());
+            updateNextLogsPage(page);
+        });
+    }
+
+    private void updateNextLogsPage(Page<LogEntry> page) {
+        nextLogsPage = page.nextPageRequest();
+        if (loadMoreLogsButton != null) {
+            loadMoreLogsButton.setDisable(nextLogsPage == null);
+        }
+    }
+
 
     // --- Utility ---
     private void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -0,0 +1,270 @@
+package com.librarysystem.ui;
+
+import com.librarysystem.config.AppConfig;
+import com.librarysystem.db.DatabaseUtil;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs service calls for the controllers on a bounded pool of worker threads and hands the results back on
+ * the UI thread, so a slow database never freezes the window.
+ *
+ * A task submitted with a key supersedes the unfinished task with the same key: the older one is cancelled and
+ * its result dropped, so a fast search never gets overwritten by a slower, earlier one. Tasks without a key
+ * (borrowing, saving, ...) always deliver. When the pool's queue is full the task fails with a
+ * {@link RejectedExecutionException} instead of piling up work.
+ *
+ * Each task continues the submitting thread's database session, and the session continues with the task's
+ * writes once its result is delivered, so a load that follows an action on another worker still reads that
+ * action's writes (see {@link DatabaseUtil#joinSessionWriteMark(long)}).
+ */
+public class UiTaskRunner implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UiTaskRunner.class);
+
+    private static volatile UiTaskRunner shared;
+
+    /**
+     * Told on the UI thread whenever tasks start or finish, for a busy indicator.
+     */
+    public interface BusyListener {
+        /**
+         * @param pendingTasks Number of submitted tasks whose result has not been delivered.
+         * @param description Description of the most recently submitted pending task, or {@code null} when idle.
+         */
+        void busyChanged(int pendingTasks, String description);
+    }
+
+    /**
+     * A submitted task. Cancelling it drops its result; work already running on the database is left to finish.
+     */
+    public final class Handle {
+        private final String key;
+        private final String description;
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+        private boolean finished; // Guarded by the runner
+
+        private Handle(String key, String description) {
+            this.key = key;
+            this.description = description;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Future<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+            if (finish(this)) {
+                LOGGER.debug("Cancelled background task '{}'.", description);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final Executor uiExecutor;
+
+    // Guarded by "this"
+    private final Map<String, Handle> latestByKey = new HashMap<>();
+    private final LinkedHashSet<Handle> pending = new LinkedHashSet<>();
+    private BusyListener busyListener;
+
+    /**
+     * @param threads Number of worker threads.
+     * @param queueCapacity Number of tasks that may wait for a worker before further tasks are rejected.
+     * @param uiExecutor Runs result handlers and busy notifications on the UI thread.
+     */
+    public UiTaskRunner(int threads, int queueCapacity, Executor uiExecutor) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "ui-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.uiExecutor = uiExecutor;
+    }
+
+    /**
+     * Returns the process-wide runner configured from {@code ui.tasks.*} keys, delivering results on the
+     * JavaFX Application Thread.
+     */
+    public static UiTaskRunner shared() {
+        if (shared == null) {
+            synchronized (UiTaskRunner.class) {
+                if (shared == null) {
+                    AppConfig config = AppConfig.get();
+                    shared = new UiTaskRunner(config.getInt("ui.tasks.threads", 4),
+                            config.getInt("ui.tasks.queueCapacity", 100), Platform::runLater);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Stops the process-wide runner, if one was started, letting running tasks finish. Call before shutting
+     * down the database.
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public synchronized void setBusyListener(BusyListener busyListener) {
+        this.busyListener = busyListener;
+    }
+
+    /**
+     * Runs {@code work} on a worker thread, then {@code onSuccess} with its result, or {@code onFailure} with
+     * what it threw, on the UI thread.
+     *
+     * @param key Tasks with the same key supersede each other; {@code null} for a task that must always deliver.
+     * @param description Shown by the busy indicator, e.g. "Loading books".
+     */
+    public <T> Handle submit(String key, String description, Callable<T> work, Consumer<T> onSuccess,
+                             Consumer<Throwable> onFailure) {
+        Handle handle = new Handle(key, description);
+        Handle superseded;
+        synchronized (this) {
+            superseded = key != null ? latestByKey.put(key, handle) : null;
+            pending.add(handle);
+        }
+        if (superseded != null) {
+            superseded.cancel();
+        }
+        long writeMark = DatabaseUtil.getSessionWriteMark();
+        try {
+            handle.future = workers.submit(() -> run(handle, writeMark, work, onSuccess, onFailure));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Background task '{}' rejected: {} tasks already queued.", description, workers.getQueue().size());
+            finish(handle);
+            uiExecutor.execute(() -> onFailure.accept(e));
+            return handle;
+        }
+        notifyBusy();
+        return handle;
+    }
+
+    private <T> void run(Handle handle, long writeMark, Callable<T> work, Consumer<T> onSuccess,
+                         Consumer<Throwable> onFailure) {
+        if (handle.cancelled) {
+            return;
+        }
+        DatabaseUtil.joinSessionWriteMark(writeMark);
+        T result = null;
+        Exception failure = null;
+        try {
+            result = work.call();
+        } catch (Exception e) {
+            failure = e;
+        }
+        long taskWriteMark = DatabaseUtil.getSessionWriteMark();
+        T delivered = result;
+        Exception failed = failure;
+        uiExecutor.execute(() -> {
+            DatabaseUtil.joinSessionWriteMark(taskWriteMark); // Even for a dropped result, its writes happened
+            if (!finish(handle)) {
+                return; // Cancelled or superseded
+            }
+            if (failed == null) {
+                onSuccess.accept(delivered);
+            } else {
+                LOGGER.error("Background task '{}' failed.", handle.description, failed);
+                onFailure.accept(failed);
+            }
+        });
+    }
+
+    /**
+     * Marks the task as done, returning {@code false} if it already was.
+     */
+    private boolean finish(Handle handle) {
+        synchronized (this) {
+            if (handle.finished) {
+                return false;
+            }
+            handle.finished = true;
+            pending.remove(handle);
+            if (handle.key != null && latestByKey.get(handle.key) == handle) {
+                latestByKey.remove(handle.key);
+            }
+        }
+        notifyBusy();
+        return true;
+    }
+
+    private void notifyBusy() {
+        int pendingTasks;
+        String description = null;
+        BusyListener listener;
+        synchronized (this) {
+            pendingTasks = pending.size();
+            for (Handle handle : pending) {
+                description = handle.description; // Ends on the most recently submitted
+            }
+            listener = busyListener;
+        }
+        if (listener != null) {
+            String latest = description;
+            uiExecutor.execute(() -> listener.busyChanged(pendingTasks, latest));
+        }
+    }
+
+    /**
+     * Cancels every pending task, e.g. when the user logs out.
+     */
+    public void cancelAll() {
+        List<Handle> toCancel;
+        synchronized (this) {
+            toCancel = new ArrayList<>(pending);
+        }
+        toCancel.forEach(Handle::cancel);
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warn("Background tasks still running after 10 seconds; abandoning them.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
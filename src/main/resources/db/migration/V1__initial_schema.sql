@@ -1,4 +1,5 @@
 -- Database schema for Library Management System
+-- Migration V1: initial tables. Applied once by SchemaMigrator; never edit after release, add a new V<n>__*.sql instead.
 
 -- Users Table
 CREATE TABLE IF NOT EXISTS Users (
@@ -57,14 +58,6 @@ CREATE TABLE IF NOT EXISTS Logging (
     FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE SET NULL -- If a user is deleted, their logs are kept but user_id becomes NULL
 );
 
--- Indexes for performance (optional but good practice)
-CREATE INDEX IF NOT EXISTS idx_books_title ON Books(title);
-CREATE INDEX IF NOT EXISTS idx_books_author ON Books(author);
-CREATE INDEX IF NOT EXISTS idx_borrowing_book ON BorrowingHistory(book_id);
-CREATE INDEX IF NOT EXISTS idx_borrowing_user ON BorrowingHistory(user_id);
-CREATE INDEX IF NOT EXISTS idx_logging_action ON Logging(action_type);
-CREATE INDEX IF NOT EXISTS idx_logging_user ON Logging(user_id);
-
 -- Note:
 -- The ENUM type for Users.role is MySQL specific.
 -- The YEAR type for Books.publication_year is also MySQL specific.
@@ -72,7 +65,6 @@ CREATE INDEX IF NOT EXISTS idx_logging_user ON Logging(user_id);
 --      For older versions, this check would need to be handled at the application level or via triggers.
 -- Foreign Key `ON DELETE` actions (CASCADE, RESTRICT, SET NULL) are chosen based on desired referential integrity behavior.
 -- `IF NOT EXISTS` is used for table creation to make the script idempotent.
--- `CREATE INDEX IF NOT EXISTS` requires MySQL 5.7.4+ or MariaDB 10.1.2+. For older versions, remove `IF NOT EXISTS`.
 
 -- Example of inserting an admin user (password should be hashed in application)
 -- INSERT INTO Users (username, password_hash, role) VALUES ('admin', 'hashed_password_example', 'ADMIN');
@@ -0,0 +1,10 @@
+-- Migration V2: indexes for catalog search, borrowing lookups and log filtering.
+-- MySQL has no CREATE INDEX IF NOT EXISTS; SchemaMigrator tolerates "duplicate key name" for databases
+-- that already have some of these indexes.
+
+CREATE INDEX idx_books_title ON Books(title);
+CREATE INDEX idx_books_author ON Books(author);
+CREATE INDEX idx_borrowing_book ON BorrowingHistory(book_id);
+CREATE INDEX idx_borrowing_user ON BorrowingHistory(user_id);
+CREATE INDEX idx_logging_action ON Logging(action_type);
+CREATE INDEX idx_logging_user ON Logging(user_id);
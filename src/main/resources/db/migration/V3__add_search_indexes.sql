@@ -0,0 +1,5 @@
+-- Migration V3: indexes for catalog search filters (BookDAO.searchBooks).
+-- Genre is matched exactly and usually combined with a publication year range.
+
+CREATE INDEX idx_books_genre_year ON Books(genre, publication_year);
+CREATE INDEX idx_books_year ON Books(publication_year);
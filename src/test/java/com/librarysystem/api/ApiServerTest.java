@@ -0,0 +1,272 @@
+package com.librarysystem.api;
+
+import com.librarysystem.dao.DataAccessException;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.LoanDetails;
+import com.librarysystem.model.User;
+import com.librarysystem.service.BookService;
+import com.librarysystem.service.LibraryService;
+import com.librarysystem.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ApiServerTest {
+    private static final String ISBN = "9780261103573";
+
+    @Mock private BookService bookService;
+    @Mock private LibraryService libraryService;
+    @Mock private UserService userService;
+
+    private ApiServer apiServer;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final User member = new User(1, "member", "salt:hash", User.Role.MEMBER);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        apiServer = new ApiServer(bookService, libraryService, userService, Executors.newFixedThreadPool(8), 60_000, 5);
+        apiServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        apiServer.stop(0);
+    }
+
+    private static Book book() {
+        Book book = new Book(ISBN, "The Lord of the Rings", "J.R.R. \"Tolkien\"", Year.of(1954), "Fantasy", 3);
+        book.setBookIdPk(7);
+        return book;
+    }
+
+    private HttpResponse<String> send(String method, String path, String form, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + apiServer.getPort() + path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (form != null) {
+            request.header("Content-Type", "application/x-www-form-urlencoded");
+        }
+        request.method(method, form != null ? HttpRequest.BodyPublishers.ofString(form) : HttpRequest.BodyPublishers.noBody());
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // For requests HttpClient refuses to send; returns the status line. Stops sending after the request, body or not.
+    private String sendRaw(String request) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), apiServer.getPort())) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            socket.shutdownOutput();
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+        }
+    }
+
+    // The server records a request once its response is sent, so just after the client has read it
+    private Map<String, Object> awaitMetrics(String route, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        Map<String, Object> metrics = apiServer.getMetrics().get(route);
+        while ((metrics == null || (Long) metrics.get("count") < count) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+            metrics = apiServer.getMetrics().get(route);
+        }
+        assertNotNull(metrics, route);
+        assertEquals(count, metrics.get("count"), route);
+        return metrics;
+    }
+
+    private String login() throws Exception {
+        return login(member);
+    }
+
+    private String login(User user) throws Exception {
+        when(userService.loginUser(user.getUsername(), "s3cret pass")).thenReturn(Optional.of(user));
+        HttpResponse<String> response = send("POST", "/api/login", "username=" + user.getUsername() + "&password=s3cret+pass", null);
+        assertEquals(200, response.statusCode());
+        Matcher token = Pattern.compile("\"token\":\"([^\"]+)\"").matcher(response.body());
+        assertTrue(token.find(), response.body());
+        return token.group(1);
+    }
+
+    @Test
+    void testSearchAndLookupReturnJson() throws Exception {
+        when(bookService.findBooksContaining("lord", 5)).thenReturn(List.of(book()));
+        when(bookService.findBookByIsbn(ISBN)).thenReturn(Optional.of(book()));
+        when(bookService.findBookByIsbn("0000000000")).thenReturn(Optional.empty());
+
+        HttpResponse<String> search = send("GET", "/api/books?q=lord&limit=5", null, null);
+        assertEquals(200, search.statusCode());
+        assertTrue(search.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        assertEquals("{\"books\":[{\"isbn\":\"9780261103573\",\"title\":\"The Lord of the Rings\",\"author\":\"J.R.R. \\\"Tolkien\\\"\","
+                + "\"publicationYear\":1954,\"genre\":\"Fantasy\",\"totalCopies\":3,\"availableCopies\":3}]}", search.body());
+
+        assertEquals(200, send("GET", "/api/books/" + ISBN, null, null).statusCode());
+        assertEquals(404, send("GET", "/api/books/0000000000", null, null).statusCode());
+        assertEquals(400, send("GET", "/api/books?q=lord&limit=1000", null, null).statusCode());
+        assertEquals(404, send("GET", "/api/nothing/here/at/all", null, null).statusCode());
+    }
+
+    @Test
+    void testBorrowListAndReturnForTheSignedInUser() throws Exception {
+        String token = login();
+        when(libraryService.borrowBook(1, ISBN)).thenReturn(true);
+        LocalDateTime borrowed = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(libraryService.getActiveLoanDetails(1)).thenReturn(List.of(new LoanDetails(
+                new BorrowingRecord(42, 7, 1, borrowed, borrowed.plusDays(14), null), ISBN, "The Lord of the Rings", "J.R.R. Tolkien")));
+        when(libraryService.returnBook(1, ISBN)).thenReturn(true);
+
+        assertEquals(201, send("POST", "/api/loans", "isbn=" + ISBN, token).statusCode());
+        HttpResponse<String> loans = send("GET", "/api/loans", null, token);
+        assertEquals(200, loans.statusCode());
+        assertTrue(loans.body().contains("\"borrowId\":42") && loans.body().contains("\"dueDate\":\"2024-05-15T10:00\""), loans.body());
+        assertEquals(200, send("DELETE", "/api/loans/" + ISBN, null, token).statusCode());
+    }
+
+    @Test
+    void testLoanEndpointsNeedAValidToken() throws Exception {
+        when(userService.loginUser("member", "wrong")).thenReturn(Optional.empty());
+
+        assertEquals(401, send("POST", "/api/login", "username=member&password=wrong", null).statusCode());
+        assertEquals(401, send("GET", "/api/loans", null, null).statusCode());
+        assertEquals(401, send("POST", "/api/loans", "isbn=" + ISBN, "made-up-token").statusCode());
+        verifyNoInteractions(libraryService);
+    }
+
+    @Test
+    void testFailuresMapToStatusCodes() throws Exception {
+        String token = login();
+        when(libraryService.borrowBook(1, ISBN)).thenReturn(false);
+        when(bookService.findBookByIsbn(ISBN)).thenThrow(new DataAccessException("Lookup failed", new SQLException("down")));
+
+        HttpResponse<String> conflict = send("POST", "/api/loans", "isbn=" + ISBN, token);
+        assertEquals(409, conflict.statusCode());
+        assertTrue(conflict.body().startsWith("{\"error\":"));
+        assertEquals(400, send("POST", "/api/loans", "", token).statusCode());
+        assertEquals(503, send("GET", "/api/books/" + ISBN, null, null).statusCode());
+    }
+
+    @Test
+    void testConcurrentKiosksAreServedAndMeasured() throws Exception {
+        when(bookService.findBooksContaining(anyString(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(5); // A database round trip
+            return List.of(book());
+        });
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int kiosk = 0; kiosk < 200; kiosk++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + apiServer.getPort() + "/api/books?q=kiosk" + kiosk)).build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+        }
+
+        Map<String, Object> search = awaitMetrics("GET /api/books", 200);
+        assertEquals(0L, search.get("serverErrors"));
+        assertTrue((Double) search.get("p50Millis") >= 5.0, search.toString());
+        assertTrue((Double) search.get("p99Millis") <= (Double) search.get("maxMillis") * 1.25, search.toString());
+
+        HttpResponse<String> metrics = send("GET", "/api/metrics", null, login(new User(2, "admin", "salt:hash", User.Role.ADMIN)));
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("\"GET /api/books\":{\"clientErrors\":0,\"count\":200,"), metrics.body());
+    }
+
+    @Test
+    void testMalformedEscapesAreRejectedAndMeasured() throws Exception {
+        // Bad escapes in the URI are already refused by the JDK server, those in a form body by ours
+        assertEquals("HTTP/1.1 400 Bad Request", sendRaw("GET /api/books?q=%zz HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+        assertEquals("HTTP/1.1 400 Bad Request", sendRaw("GET /api/books/978% HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+        assertEquals(400, send("POST", "/api/login", "username=member&password=%E0%A4%A", null).statusCode());
+        assertEquals(400, send("POST", "/api/loans", "isbn=%", null).statusCode());
+
+        assertEquals(1L, awaitMetrics("POST /api/login", 1).get("clientErrors"));
+        assertEquals(1L, awaitMetrics("POST /api/loans", 1).get("clientErrors"));
+        verifyNoInteractions(userService, libraryService);
+    }
+
+    @Test
+    void testUnreadableBodyStillGetsAResponse() throws Exception {
+        String statusLine = sendRaw("POST /api/login HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: 100\r\n\r\nusername=member"); // The body ends 85 bytes short
+
+        assertEquals("HTTP/1.1 400 Bad Request", statusLine);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testWrongMethodOnAKnownPathIsNotAllowed() throws Exception {
+        HttpResponse<String> login = send("GET", "/api/login", null, null);
+        assertEquals(405, login.statusCode());
+        assertEquals("POST", login.headers().firstValue("Allow").orElse(null));
+
+        HttpResponse<String> loans = send("PUT", "/api/loans", "isbn=" + ISBN, null);
+        assertEquals(405, loans.statusCode());
+        assertEquals("GET, POST", loans.headers().firstValue("Allow").orElse(null));
+        assertEquals("DELETE", send("GET", "/api/loans/" + ISBN, null, null).headers().firstValue("Allow").orElse(null));
+        verifyNoInteractions(libraryService);
+    }
+
+    @Test
+    void testMetricsNeedAnAdministrator() throws Exception {
+        assertEquals(401, send("GET", "/api/metrics", null, null).statusCode());
+        assertEquals(403, send("GET", "/api/metrics", null, login()).statusCode());
+    }
+
+    @Test
+    void testLoginAttemptsAreRateLimitedPerClient() throws Exception {
+        when(userService.loginUser("member", "guess")).thenReturn(Optional.empty());
+
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            assertEquals(401, send("POST", "/api/login", "username=member&password=guess", null).statusCode());
+        }
+        HttpResponse<String> refused = send("POST", "/api/login", "username=member&password=guess", null);
+
+        assertEquals(429, refused.statusCode());
+        long retryAfter = Long.parseLong(refused.headers().firstValue("Retry-After").orElse("0"));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60, "Retry-After " + retryAfter);
+        verify(userService, times(5)).loginUser("member", "guess");
+    }
+
+    @Test
+    void testLatencyBucketsBoundTheirValues() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = LatencyMetrics.bucketOf(micros);
+            assertTrue(micros <= LatencyMetrics.upperBoundOf(bucket), "Value " + micros);
+            assertTrue(bucket == 0 || micros > LatencyMetrics.upperBoundOf(bucket - 1), "Value " + micros);
+            assertTrue(LatencyMetrics.upperBoundOf(bucket) <= Math.max(micros * 5 / 4, micros), "Value " + micros);
+        }
+    }
+}
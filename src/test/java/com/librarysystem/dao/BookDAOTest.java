@@ -0,0 +1,237 @@
+package com.librarysystem.dao;
+
+import com.librarysystem.db.DatabaseConfig;
+import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookDAOTest {
+
+    private static final String URL = "jdbc:h2:mem:book_dao;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String ISBN = "9780000000001";
+    private static final int TOTAL_COPIES = 10;
+    private static final int THREADS = 16;
+
+    private final BookDAO bookDAO = new BookDAO();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            // No CHECK constraint here: the test must show the UPDATE guard alone keeps counts in bounds.
+            stmt.execute("CREATE TABLE IF NOT EXISTS Books (book_id INT PRIMARY KEY AUTO_INCREMENT, isbn VARCHAR(20) NOT NULL UNIQUE, "
+                    + "title VARCHAR(255) NOT NULL, author VARCHAR(255) NOT NULL, publication_year INT, genre VARCHAR(100), "
+                    + "total_copies INT NOT NULL DEFAULT 1, available_copies INT NOT NULL DEFAULT 1)");
+            stmt.execute("DELETE FROM Books");
+        }
+        DatabaseUtil.configure(new DatabaseConfig(URL, Collections.emptyList(), "sa", "", "sa", "", new Properties(),
+                0, THREADS, 5_000, 60_000, 0, 16, 0));
+        assertTrue(bookDAO.addBook(new Book(ISBN, "Stress Test", "Author", Year.of(2020), "Fiction", TOTAL_COPIES)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private int availableCopies() {
+        return bookDAO.getBookByIsbn(ISBN).orElseThrow().getAvailableCopies();
+    }
+
+    private int runConcurrently(int tasks, int delta) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (bookDAO.adjustAvailableCopies(ISBN, delta)) {
+                        succeeded.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    @Test
+    void testAdjustAvailableCopiesStaysWithinBounds() {
+        assertFalse(bookDAO.adjustAvailableCopies(ISBN, 1), "Cannot exceed total copies.");
+        assertTrue(bookDAO.adjustAvailableCopies(ISBN, -TOTAL_COPIES));
+        assertFalse(bookDAO.adjustAvailableCopies(ISBN, -1), "Cannot go below zero.");
+        assertFalse(bookDAO.adjustAvailableCopies("unknown", -1), "Unknown ISBN should not be updated.");
+        assertEquals(0, availableCopies());
+    }
+
+    private Book edited(int totalCopies) {
+        Book book = new Book(ISBN, "Stress Test", "Author", Year.of(2020), "Fiction", totalCopies);
+        book.setAvailableCopies(totalCopies); // Deliberately stale: updateBook must not write it
+        return book;
+    }
+
+    @Test
+    void testUpdateBookMovesAvailableCopiesWithTheTotal() {
+        assertTrue(bookDAO.adjustAvailableCopies(ISBN, -4)); // 4 on loan
+
+        assertTrue(bookDAO.updateBook(edited(TOTAL_COPIES + 2)));
+        assertEquals(TOTAL_COPIES + 2 - 4, availableCopies());
+        assertTrue(bookDAO.updateBook(edited(4)), "The total may drop to the copies on loan.");
+        assertEquals(0, availableCopies());
+        assertFalse(bookDAO.updateBook(edited(3)), "The total may not drop below the copies on loan.");
+        assertEquals(4, bookDAO.getBookByIsbn(ISBN).orElseThrow().getTotalCopies());
+    }
+
+    @Test
+    void testAddBooksBatchInsertsAndAssignsGeneratedIds() {
+        int count = 100_000;
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(String.format("979%010d", i), "Title " + i, "Author " + (i % 500), Year.of(1950 + i % 75), "Genre", 1 + i % 5));
+        }
+
+        long startNanos = System.nanoTime();
+        int inserted = bookDAO.addBooks(books);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertEquals(count, inserted);
+        assertTrue(elapsedMillis < 30_000, "Seeding 100k titles took " + elapsedMillis + " ms.");
+        HashSet<Integer> ids = new HashSet<>();
+        for (Book book : books) {
+            assertTrue(book.getBookIdPk() > 0, "Every inserted book should have its generated ID set.");
+            ids.add(book.getBookIdPk());
+        }
+        assertEquals(count, ids.size(), "Generated IDs must be distinct.");
+        Book sample = bookDAO.getBookById(books.get(12_345).getBookIdPk()).orElseThrow();
+        assertEquals(books.get(12_345).getIsbn(), sample.getIsbn(), "IDs must be matched to the right rows.");
+
+        try (Stream<Book> streamed = bookDAO.streamAllBooks()) {
+            assertEquals(count + 1, streamed.count(), "Streaming should walk the whole table.");
+        }
+
+        assertEquals(new HashSet<>(List.of(ISBN, books.get(0).getIsbn())),
+                bookDAO.getExistingIsbns(List.of(ISBN, books.get(0).getIsbn(), "not-there")));
+    }
+
+    @Test
+    void testConcurrentBorrowsNeverOverIssue() throws Exception {
+        int borrowed = runConcurrently(200, -1);
+
+        assertEquals(TOTAL_COPIES, borrowed, "Exactly the available copies should be issued.");
+        assertEquals(0, availableCopies());
+
+        int returned = runConcurrently(200, 1);
+        assertEquals(TOTAL_COPIES, returned, "Returns must stop at the total number of copies.");
+        assertEquals(TOTAL_COPIES, availableCopies());
+    }
+
+    @Test
+    void testMixedConcurrentBorrowsAndReturnsLoseNoUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger onLoan = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200; i++) {
+                        if (random.nextBoolean()) {
+                            if (bookDAO.adjustAvailableCopies(ISBN, -1)) {
+                                onLoan.incrementAndGet();
+                            }
+                        } else if (onLoan.getAndUpdate(n -> n > 0 ? n - 1 : n) > 0) {
+                            // Only return a copy this test actually holds
+                            assertTrue(bookDAO.adjustAvailableCopies(ISBN, 1), "Returning a held copy must always succeed.");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int available = availableCopies();
+        assertEquals(TOTAL_COPIES - onLoan.get(), available, "Every successful borrow and return must be reflected exactly once.");
+        assertTrue(available >= 0 && available <= TOTAL_COPIES);
+    }
+
+    @Test
+    void testEditsOfTotalCopiesDuringBorrowsAndReturnsLoseNoUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger onLoan = new AtomicInteger();
+        AtomicInteger edits = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean editor = t < 2;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200; i++) {
+                        if (editor) {
+                            // Each edit carries the copies it read earlier; only the total may take effect
+                            if (bookDAO.updateBook(edited(random.nextInt(TOTAL_COPIES / 2, TOTAL_COPIES * 2)))) {
+                                edits.incrementAndGet();
+                            }
+                        } else if (random.nextBoolean()) {
+                            if (bookDAO.adjustAvailableCopies(ISBN, -1)) {
+                                onLoan.incrementAndGet();
+                            }
+                        } else if (onLoan.getAndUpdate(n -> n > 0 ? n - 1 : n) > 0) {
+                            assertTrue(bookDAO.adjustAvailableCopies(ISBN, 1), "Returning a held copy must always succeed.");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Book book = bookDAO.getBookByIsbn(ISBN).orElseThrow();
+        assertTrue(edits.get() > 0);
+        assertEquals(onLoan.get(), book.getTotalCopies() - book.getAvailableCopies(),
+                "Edits must neither lose nor invent copies on loan.");
+        assertTrue(book.getAvailableCopies() >= 0);
+    }
+}
@@ -0,0 +1,114 @@
+package com.librarysystem.dao;
+
+import com.librarysystem.db.DatabaseConfig;
+import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BookSearchCriteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSearchTest {
+
+    // IGNORECASE gives the case-insensitive comparisons of MySQL's default collation
+    private static final String URL = "jdbc:h2:mem:book_search;MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final BookDAO bookDAO = new BookDAO();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Books (book_id INT PRIMARY KEY AUTO_INCREMENT, isbn VARCHAR(20) NOT NULL UNIQUE, "
+                    + "title VARCHAR(255) NOT NULL, author VARCHAR(255) NOT NULL, publication_year INT, genre VARCHAR(100), "
+                    + "total_copies INT NOT NULL DEFAULT 1, available_copies INT NOT NULL DEFAULT 1)");
+            stmt.execute("DELETE FROM Books");
+        }
+        DatabaseUtil.configure(new DatabaseConfig(URL, Collections.emptyList(), "sa", "", "sa", "", new Properties(),
+                0, 4, 5_000, 60_000, 0, 16, 0));
+
+        add("9780000000001", "The Hobbit", "J.R.R. Tolkien", 1937, "Fantasy", 2);
+        add("9780000000002", "The Silmarillion", "J.R.R. Tolkien", 1977, "Fantasy", 0);
+        add("9780000000003", "Dune", "Frank Herbert", 1965, "Science Fiction", 3);
+        add("9781000000004", "100% Wolf", "Jayne Lyons", 2009, "Children", 1);
+        add("9781000000005", "1000 Wolves", "Anon", 2010, "Children", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private void add(String isbn, String title, String author, int year, String genre, int copies) {
+        Book book = new Book(isbn, title, author, Year.of(year), genre, Math.max(copies, 1));
+        assertTrue(bookDAO.addBook(book));
+        if (copies == 0) {
+            assertTrue(bookDAO.adjustAvailableCopies(isbn, -1));
+        }
+    }
+
+    private List<String> titles(BookSearchCriteria criteria) {
+        return bookDAO.searchBooks(criteria).stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    @Test
+    void testCriteriaAreCombinedAndMatchCaseInsensitively() {
+        assertEquals(List.of("The Hobbit", "The Silmarillion"), titles(BookSearchCriteria.builder().author("tolkien").build()));
+        assertEquals(List.of("The Hobbit"), titles(BookSearchCriteria.builder().author("tolkien").availableOnly(true).build()));
+        assertEquals(List.of("The Silmarillion"), titles(BookSearchCriteria.builder().title("SIL").author("Tolkien").build()));
+        assertEquals(List.of("Dune", "The Silmarillion"),
+                titles(BookSearchCriteria.builder().yearFrom(Year.of(1960)).yearTo(Year.of(1980)).build()));
+        assertEquals(List.of("Dune"), titles(BookSearchCriteria.builder().genre("science fiction").build()));
+    }
+
+    @Test
+    void testFacetsMatchAnyChosenGenreAndDecade() {
+        assertEquals(List.of("1000 Wolves", "Dune", "The Hobbit"),
+                titles(BookSearchCriteria.builder().genres(List.of("Children", "Science Fiction", "Fantasy")).decades(List.of(1930, 1960, 2010)).build()));
+        assertEquals(List.of("The Silmarillion"),
+                titles(BookSearchCriteria.builder().author("Tolkien").genres(List.of("Fantasy")).decades(List.of(1970)).build()));
+        assertTrue(titles(BookSearchCriteria.builder().genres(List.of("Fantasy")).decades(List.of(1970)).availableOnly(true).build()).isEmpty());
+        BookSearchCriteria firstPage = BookSearchCriteria.builder().genres(List.of("Fantasy")).limit(1).build();
+        assertEquals(List.of("The Silmarillion"), titles(firstPage.nextPage()));
+    }
+
+    @Test
+    void testIsbnMatchesPrefixOnly() {
+        assertEquals(List.of("100% Wolf", "1000 Wolves"), titles(BookSearchCriteria.builder().isbn("97810").build()));
+        assertTrue(titles(BookSearchCriteria.builder().isbn("0000000001").build()).isEmpty());
+    }
+
+    @Test
+    void testLikeWildcardsInInputAreLiteral() {
+        assertEquals(List.of("100% Wolf"), titles(BookSearchCriteria.builder().title("100%").build()));
+        assertTrue(titles(BookSearchCriteria.builder().title("_une").build()).isEmpty());
+    }
+
+    @Test
+    void testLimitAndOffsetPageThroughResultsByTitle() {
+        BookSearchCriteria first = BookSearchCriteria.builder().limit(2).build();
+
+        assertEquals(List.of("100% Wolf", "1000 Wolves"), titles(first));
+        assertEquals(List.of("Dune", "The Hobbit"), titles(first.nextPage()));
+        assertEquals(List.of("The Silmarillion"), titles(first.nextPage().nextPage()));
+    }
+
+    @Test
+    void testInvalidCriteriaAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BookSearchCriteria.builder().limit(0).build());
+        assertThrows(IllegalArgumentException.class, () -> BookSearchCriteria.builder().limit(BookSearchCriteria.MAX_LIMIT + 1).build());
+        assertThrows(IllegalArgumentException.class, () -> BookSearchCriteria.builder().yearFrom(Year.of(2000)).yearTo(Year.of(1999)).build());
+    }
+}
@@ -0,0 +1,101 @@
+package com.librarysystem.dao;
+
+import com.librarysystem.db.DatabaseConfig;
+import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.LoanDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BorrowingHistoryDAOTest {
+
+    private static final String URL = "jdbc:h2:mem:borrowing_dao;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int USER_ID = 7;
+
+    private final BookDAO bookDAO = new BookDAO();
+    private final BorrowingHistoryDAO borrowingHistoryDAO = new BorrowingHistoryDAO();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Books (book_id INT PRIMARY KEY AUTO_INCREMENT, isbn VARCHAR(20) NOT NULL UNIQUE, "
+                    + "title VARCHAR(255) NOT NULL, author VARCHAR(255) NOT NULL, publication_year INT, genre VARCHAR(100), "
+                    + "total_copies INT NOT NULL DEFAULT 1, available_copies INT NOT NULL DEFAULT 1)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS BorrowingHistory (borrow_id INT PRIMARY KEY AUTO_INCREMENT, book_id INT NOT NULL, "
+                    + "user_id INT NOT NULL, borrow_date TIMESTAMP NOT NULL, due_date TIMESTAMP NOT NULL, return_date TIMESTAMP NULL)");
+            stmt.execute("DELETE FROM BorrowingHistory");
+            stmt.execute("DELETE FROM Books");
+        }
+        DatabaseUtil.configure(new DatabaseConfig(URL, Collections.emptyList(), "sa", "", "sa", "", new Properties(),
+                0, 4, 5_000, 60_000, 0, 16, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private int addBook(String isbn, String title) {
+        Book book = new Book(isbn, title, "Author of " + title, Year.of(2001), "Fiction", 2);
+        assertTrue(bookDAO.addBook(book));
+        return bookDAO.getBookByIsbn(isbn).orElseThrow().getBookIdPk();
+    }
+
+    private BorrowingRecord borrow(int bookId, int userId, int dueInDays) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        BorrowingRecord record = new BorrowingRecord(bookId, userId, now, now.plusDays(dueInDays));
+        assertTrue(borrowingHistoryDAO.addBorrowingRecord(record));
+        return record;
+    }
+
+    @Test
+    void testActiveLoanDetailsJoinBookFieldsOrderedByDueDate() {
+        int later = addBook("9780000000010", "Due Later");
+        int sooner = addBook("9780000000020", "Due Sooner");
+        BorrowingRecord laterLoan = borrow(later, USER_ID, 14);
+        BorrowingRecord soonerLoan = borrow(sooner, USER_ID, 3);
+
+        List<LoanDetails> loans = borrowingHistoryDAO.getActiveLoanDetailsForUser(USER_ID);
+
+        assertEquals(2, loans.size());
+        LoanDetails first = loans.get(0);
+        assertEquals(soonerLoan.getBorrowId(), first.getRecord().getBorrowId());
+        assertEquals(sooner, first.getRecord().getBookId());
+        assertEquals("9780000000020", first.getIsbn());
+        assertEquals("Due Sooner", first.getTitle());
+        assertEquals("Author of Due Sooner", first.getAuthor());
+        assertEquals(laterLoan.getBorrowId(), loans.get(1).getRecord().getBorrowId());
+    }
+
+    @Test
+    void testActiveLoanDetailsSkipReturnedAndOtherUsersLoans() {
+        int bookId = addBook("9780000000030", "Shared Title");
+        BorrowingRecord returned = borrow(bookId, USER_ID, 7);
+        returned.setReturnDate(LocalDateTime.now());
+        assertTrue(borrowingHistoryDAO.updateBorrowingRecord(returned));
+        borrow(bookId, USER_ID + 1, 7);
+        BorrowingRecord active = borrow(bookId, USER_ID, 10);
+
+        List<LoanDetails> loans = borrowingHistoryDAO.getActiveLoanDetailsForUser(USER_ID);
+
+        assertEquals(1, loans.size());
+        assertEquals(active.getBorrowId(), loans.get(0).getRecord().getBorrowId());
+        assertNull(loans.get(0).getRecord().getReturnDate());
+        assertTrue(borrowingHistoryDAO.getActiveLoanDetailsForUser(USER_ID + 2).isEmpty());
+    }
+}
@@ -0,0 +1,139 @@
+package com.librarysystem.dao;
+
+import com.librarysystem.db.DatabaseConfig;
+import com.librarysystem.db.DatabaseUtil;
+import com.librarysystem.model.LogEntry;
+import com.librarysystem.model.Page;
+import com.librarysystem.model.PageRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogEntryDAOTest {
+
+    private static final String URL = "jdbc:h2:mem:log_dao;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int ENTRIES = 25;
+
+    private final LogEntryDAO logEntryDAO = new LogEntryDAO();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Logging (log_id INT PRIMARY KEY AUTO_INCREMENT, "
+                    + "log_timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, user_id INT NULL, "
+                    + "action_type VARCHAR(50) NOT NULL, details TEXT)");
+            stmt.execute("TRUNCATE TABLE Logging RESTART IDENTITY");
+        }
+        DatabaseUtil.configure(new DatabaseConfig(URL, Collections.emptyList(), "sa", "", "sa", "", new Properties(),
+                0, 4, 5_000, 60_000, 0, 16, 0));
+
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= ENTRIES; i++) {
+            entries.add(new LogEntry(i % 2 == 0 ? null : i, LogEntry.ActionType.BOOK_BORROW, "entry " + i));
+        }
+        assertEquals(ENTRIES, logEntryDAO.addLogEntries(entries));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private List<Integer> readAllPages(PageRequest request) {
+        List<Integer> ids = new ArrayList<>();
+        int pages = 0;
+        while (request != null) {
+            Page<LogEntry> page = logEntryDAO.getLogEntriesPage(request);
+            assertTrue(page.getItems().size() <= request.getPageSize());
+            page.getItems().forEach(entry -> ids.add(entry.getLogId()));
+            request = page.nextPageRequest();
+            pages++;
+        }
+        assertEquals((ENTRIES + 9) / 10, pages, "A last page that is exactly full should not be followed by an empty page.");
+        return ids;
+    }
+
+    @Test
+    void testPagesNewestFirstCoverEveryEntryOnce() {
+        List<Integer> ids = readAllPages(PageRequest.first(10, PageRequest.Direction.DESC));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = ENTRIES; i >= 1; i--) {
+            expected.add(i);
+        }
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void testPagesOldestFirstCoverEveryEntryOnce() {
+        List<Integer> ids = readAllPages(PageRequest.first(10, PageRequest.Direction.ASC));
+
+        assertEquals(ENTRIES, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    void testPageResumesAfterLastSeenKeyEvenWhenNewRowsArrive() {
+        Page<LogEntry> first = logEntryDAO.getLogEntriesPage(PageRequest.first(5, PageRequest.Direction.DESC));
+        assertEquals(Integer.valueOf(21), first.getLastKey());
+
+        logEntryDAO.addLogEntries(List.of(new LogEntry(1, LogEntry.ActionType.LOGIN_SUCCESS, "newer")));
+        Page<LogEntry> second = logEntryDAO.getLogEntriesPage(first.nextPageRequest());
+
+        assertEquals(20, second.getItems().get(0).getLogId(), "New rows must not shift the next page, unlike OFFSET paging.");
+        assertNull(second.getItems().get(0).getUserId());
+    }
+
+    private static int activeConnections() {
+        return DatabaseUtil.getPools().get(0).getActiveCount();
+    }
+
+    @Test
+    void testStreamReadsEveryEntryAndReleasesConnectionOnClose() {
+        List<Integer> ids;
+        try (Stream<LogEntry> entries = logEntryDAO.streamAllLogEntries()) {
+            assertEquals(1, activeConnections(), "The open stream holds its connection.");
+            ids = entries.map(LogEntry::getLogId).collect(Collectors.toList());
+        }
+        assertEquals(ENTRIES, ids.size());
+        assertEquals(1, ids.get(0));
+        assertEquals(ENTRIES, ids.get(ids.size() - 1));
+        assertEquals(0, activeConnections(), "Closing the stream must return the connection to the pool.");
+    }
+
+    @Test
+    void testStreamIsLazyAndCanBeAbandonedEarly() {
+        try (Stream<LogEntry> entries = logEntryDAO.streamAllLogEntries()) {
+            Iterator<LogEntry> iterator = entries.iterator();
+            assertEquals(1, iterator.next().getLogId());
+            assertEquals(2, iterator.next().getLogId());
+        }
+        assertEquals(0, activeConnections());
+    }
+
+    @Test
+    void testPageAfterLastRowIsEmpty() {
+        Page<LogEntry> page = logEntryDAO.getLogEntriesPage(PageRequest.after(ENTRIES, 10, PageRequest.Direction.ASC));
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasMore());
+        assertNull(page.nextPageRequest());
+    }
+}
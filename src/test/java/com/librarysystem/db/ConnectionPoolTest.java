@@ -0,0 +1,177 @@
+package com.librarysystem.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionPoolTest {
+
+    private final List<Connection> physicalConnections = new ArrayList<>();
+    private ConnectionPool pool;
+
+    private Connection newPhysicalConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.getAutoCommit()).thenReturn(true);
+        physicalConnections.add(connection);
+        return connection;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testClosedConnectionIsReusedInsteadOfReopened() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 2, 1_000, 60_000, 0);
+
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        second.close();
+
+        assertEquals(1, pool.getConnectionsCreated(), "The second borrow should reuse the pooled physical connection.");
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+        verify(physicalConnections.get(0), never()).close();
+    }
+
+    @Test
+    void testAcquisitionTimesOutWhenPoolExhausted() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 100, 60_000, 0);
+
+        Connection held = pool.getConnection();
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnection(), "Borrowing beyond maxSize should time out.");
+        assertEquals(1, pool.getAcquisitionTimeouts());
+
+        held.close();
+        Connection afterRelease = pool.getConnection();
+        assertNotNull(afterRelease, "A connection should be available once the holder releases it.");
+        afterRelease.close();
+    }
+
+    @Test
+    void testInvalidIdleConnectionIsDiscardedOnBorrow() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 2, 1_000, 60_000, 0);
+
+        pool.getConnection().close();
+        when(physicalConnections.get(0).isValid(anyInt())).thenReturn(false); // e.g. server closed it
+
+        Connection fresh = pool.getConnection();
+        fresh.close();
+
+        assertEquals(2, pool.getConnectionsCreated(), "A replacement connection should have been opened.");
+        verify(physicalConnections.get(0)).close();
+    }
+
+    @Test
+    void testHandleIsUnusableAfterClose() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 1_000, 60_000, 0);
+
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close(); // Double close must not release the permit twice
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    void testOpenTransactionIsRolledBackOnReturn() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 1_000, 60_000, 0);
+
+        Connection connection = pool.getConnection();
+        when(physicalConnections.get(0).getAutoCommit()).thenReturn(false);
+        connection.close();
+
+        verify(physicalConnections.get(0)).rollback();
+        verify(physicalConnections.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    void testStatementCacheReusesPreparedStatementAcrossBorrows() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 1_000, 60_000, 0, 8);
+        String sql = "SELECT * FROM Books WHERE isbn = ?";
+
+        try (Connection conn = pool.getConnection()) {
+            PreparedStatement physicalStatement = mock(PreparedStatement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(physicalStatement.executeQuery()).thenReturn(resultSet);
+            when(physicalConnections.get(0).prepareStatement(sql)).thenReturn(physicalStatement);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, "123");
+                pstmt.executeQuery(); // Result set deliberately left open, as the DAOs do
+            }
+            verify(physicalStatement, never()).close();
+            verify(resultSet).close();
+            verify(physicalStatement).clearParameters();
+        }
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            assertNotNull(pstmt);
+        }
+
+        verify(physicalConnections.get(0), times(1)).prepareStatement(sql);
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertEquals(0.5, pool.getStatementCacheHitRatio(), 0.0001);
+    }
+
+    @Test
+    void testCachedStatementIsResetBeforeReuse() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 1_000, 60_000, 0, 8);
+        String sql = "SELECT * FROM Books";
+
+        try (Connection conn = pool.getConnection()) {
+            PreparedStatement physicalStatement = mock(PreparedStatement.class);
+            when(physicalConnections.get(0).prepareStatement(sql)).thenReturn(physicalStatement);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setFetchSize(500); // A cursor fetch size, as the stream* DAO methods set
+                pstmt.setMaxRows(10);
+            }
+            verify(physicalStatement).clearParameters();
+            verify(physicalStatement).setFetchSize(0);
+            verify(physicalStatement).setMaxRows(0);
+            verify(physicalStatement, never()).close();
+        }
+    }
+
+    @Test
+    void testStatementCacheKeysOnGeneratedKeysFlagAndEvictsLeastRecentlyUsed() throws SQLException {
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 1, 1_000, 60_000, 0, 1);
+
+        try (Connection conn = pool.getConnection()) {
+            Connection physical = physicalConnections.get(0);
+            PreparedStatement plain = mock(PreparedStatement.class);
+            PreparedStatement withKeys = mock(PreparedStatement.class);
+            when(physical.prepareStatement("INSERT")).thenReturn(plain);
+            when(physical.prepareStatement("INSERT", Statement.RETURN_GENERATED_KEYS)).thenReturn(withKeys);
+
+            conn.prepareStatement("INSERT").close();
+            conn.prepareStatement("INSERT", Statement.RETURN_GENERATED_KEYS).close(); // Evicts the plain one (size 1)
+
+            verify(plain).close();
+            verify(withKeys, never()).close();
+        }
+        assertEquals(0, pool.getStatementCacheHits());
+        assertEquals(2, pool.getStatementCacheMisses());
+    }
+}
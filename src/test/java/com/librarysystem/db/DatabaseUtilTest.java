@@ -0,0 +1,114 @@
+package com.librarysystem.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseUtilTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    @BeforeAll
+    static void createMarkerTables() throws SQLException {
+        for (String[] db : new String[][]{{PRIMARY_URL, "primary"}, {REPLICA_URL, "replica"}}) {
+            try (Connection conn = DriverManager.getConnection(db[0], "sa", "");
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS Marker (name VARCHAR(20))");
+                stmt.execute("DELETE FROM Marker");
+                stmt.execute("INSERT INTO Marker VALUES ('" + db[1] + "')");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private static void configure(List<String> replicas, long readYourWritesWindowMillis) {
+        DatabaseUtil.configure(new DatabaseConfig(PRIMARY_URL, replicas, "sa", "", "sa", "", new Properties(),
+                0, 4, 500, 60_000, 0, 16, readYourWritesWindowMillis));
+    }
+
+    private static String whoAmI(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name FROM Marker")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static String readOnFreshThread() {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = DatabaseUtil.getReadConnection()) {
+                return whoAmI(conn);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }).join();
+    }
+
+    @Test
+    void testReadsGoToReplicaWhenSessionHasNotWritten() {
+        configure(Collections.singletonList(REPLICA_URL), 5_000);
+        assertEquals("replica", readOnFreshThread());
+    }
+
+    @Test
+    void testReadAfterWriteInSameSessionStaysOnPrimary() throws SQLException {
+        configure(Collections.singletonList(REPLICA_URL), 5_000);
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            assertEquals("primary", whoAmI(conn));
+        }
+        try (Connection conn = DatabaseUtil.getReadConnection()) {
+            assertEquals("primary", whoAmI(conn), "A read right after a write in the same session must see the primary.");
+        }
+    }
+
+    @Test
+    void testSessionWriteMarkCanBeCarriedToAnotherThread() throws SQLException {
+        configure(Collections.singletonList(REPLICA_URL), 5_000);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            assertEquals("primary", whoAmI(conn)); // The write happens here
+        }
+        long mark = DatabaseUtil.getSessionWriteMark();
+
+        String server = CompletableFuture.supplyAsync(() -> {
+            DatabaseUtil.joinSessionWriteMark(mark);
+            try (Connection conn = DatabaseUtil.getReadConnection()) {
+                return whoAmI(conn);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }).join();
+        assertEquals("primary", server);
+    }
+
+    @Test
+    void testNoReplicasConfiguredReadsFromPrimary() {
+        configure(Collections.emptyList(), 5_000);
+        assertEquals("primary", readOnFreshThread());
+    }
+
+    @Test
+    void testUnreachableReplicaFallsBackToNextReplica() {
+        configure(Arrays.asList("jdbc:h2:tcp://127.0.0.1:1/unreachable", REPLICA_URL), 5_000);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", readOnFreshThread());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.librarysystem.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigratorTest {
+
+    private static final String LOCATION = "db/testmigration";
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private final String url = "jdbc:h2:mem:migrations_" + DATABASE_COUNTER.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private final AtomicInteger statementsCreated = new AtomicInteger();
+
+    // Opens a connection that counts how many statements the migrator creates on it.
+    private Connection countingConnection() throws SQLException {
+        Connection target = DriverManager.getConnection(url, "sa", "");
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("createStatement") || method.getName().equals("prepareStatement")) {
+                        statementsCreated.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private SchemaMigrator migrator() {
+        return new SchemaMigrator(LOCATION, this::countingConnection);
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void testFirstRunAppliesAllMigrationsAndRecordsThem() throws SQLException {
+        assertEquals(2, migrator().migrate());
+
+        assertEquals(2, queryInt("SELECT MAX(version) FROM schema_version"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM Items WHERE name = 'semi;colon'"));
+    }
+
+    @Test
+    void testCurrentSchemaCostsOneQueryAndRunsNoDdl() {
+        migrator().migrate();
+        statementsCreated.set(0);
+
+        assertEquals(0, migrator().migrate());
+        assertEquals(1, statementsCreated.get(), "An up-to-date schema should need only the version check.");
+    }
+
+    @Test
+    void testModifiedMigrationIsRejected() throws SQLException {
+        migrator().migrate();
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE schema_version SET checksum = 'edited' WHERE version = 1");
+        }
+
+        SchemaMigrator.MigrationException e = assertThrows(SchemaMigrator.MigrationException.class, () -> migrator().migrate());
+        assertTrue(e.getMessage().contains("V1__create_items.sql"));
+    }
+
+    @Test
+    void testObjectsCreatedBeforeVersioningAreTolerated() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            // A database set up by the old schema script: tables exist, but no schema_version.
+            stmt.execute("CREATE TABLE Items (item_id INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL)");
+            stmt.execute("CREATE INDEX idx_items_name ON Items(name)");
+        }
+
+        assertEquals(2, migrator().migrate());
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM schema_version"));
+    }
+
+    @Test
+    void testSplitStatementsIgnoresSemicolonsInQuotesAndComments() {
+        List<String> statements = SchemaMigrator.splitStatements(
+                "-- header; comment\nCREATE TABLE a (x INT); /* block; */ INSERT INTO a VALUES ('x;y');\n\n");
+
+        assertEquals(List.of("CREATE TABLE a (x INT)", "INSERT INTO a VALUES ('x;y')"), statements);
+    }
+
+    @Test
+    void testShippedMigrationsAreListedInOrder() {
+        List<SchemaMigrator.Migration> migrations = new SchemaMigrator().loadMigrations();
+
+        assertFalse(migrations.isEmpty());
+        assertEquals(1, migrations.get(0).getVersion());
+        assertEquals(64, migrations.get(0).getChecksum().length());
+    }
+}
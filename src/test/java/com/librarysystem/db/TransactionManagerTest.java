@@ -0,0 +1,131 @@
+package com.librarysystem.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionManagerTest {
+
+    private static final String URL = "jdbc:h2:mem:tx_test;DB_CLOSE_DELAY=-1";
+
+    private final TransactionManager transactionManager = new TransactionManager();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Items (name VARCHAR(20))");
+            stmt.execute("DELETE FROM Items");
+        }
+        DatabaseUtil.configure(new DatabaseConfig(URL, Collections.emptyList(), "sa", "", "sa", "", new Properties(),
+                0, 4, 500, 60_000, 0, 16, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    // Mirrors how the DAOs use connections: borrow, execute, close.
+    private static boolean insert(String name) {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO Items (name) VALUES (?)")) {
+            pstmt.setString(1, name);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static int countItems() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Items")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void testWorkIsCommittedOnce() throws SQLException {
+        boolean result = transactionManager.inTransaction(tx -> insert("a") && insert("b"));
+
+        assertTrue(result);
+        assertEquals(2, countItems());
+        assertEquals(0, DatabaseUtil.getPools().get(0).getActiveCount(), "The transaction connection should be released.");
+    }
+
+    @Test
+    void testRollbackOnlyDiscardsAllSteps() throws SQLException {
+        boolean result = transactionManager.inTransaction(tx -> {
+            insert("a");
+            insert("b");
+            tx.setRollbackOnly(); // e.g. a later DAO call reported failure
+            return false;
+        });
+
+        assertFalse(result);
+        assertEquals(0, countItems(), "Neither insert should survive a rollback.");
+    }
+
+    @Test
+    void testExceptionRollsBackAndPropagates() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> transactionManager.inTransaction(tx -> {
+            insert("a");
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, countItems());
+        assertFalse(TransactionManager.isTransactionActive());
+    }
+
+    @Test
+    void testStepsShareOneConnectionAndUncommittedRowsAreInvisibleOutside() throws SQLException {
+        transactionManager.inTransaction(tx -> {
+            insert("a");
+            try (Connection conn = DatabaseUtil.getConnection(); // Same connection; close is a no-op
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Items")) {
+                rs.next();
+                assertEquals(1, rs.getInt(1), "The transaction should see its own insert.");
+                assertEquals(0, countItems(), "Other sessions must not see uncommitted rows.");
+            } catch (SQLException e) {
+                fail(e);
+            }
+            return null;
+        });
+        assertEquals(1, countItems());
+    }
+
+    @Test
+    void testNestedUnitOfWorkJoinsOuterTransaction() throws SQLException {
+        transactionManager.inTransaction(outer -> {
+            insert("a");
+            transactionManager.inTransaction(inner -> {
+                insert("b");
+                inner.setRollbackOnly();
+                return null;
+            });
+            return null;
+        });
+        assertEquals(0, countItems(), "Rollback requested by the inner unit of work applies to the whole transaction.");
+    }
+
+    @Test
+    void testWorkWithoutDatabaseAccessBorrowsNoConnection() {
+        String result = transactionManager.inTransaction(tx -> "validation failed");
+
+        assertEquals("validation failed", result);
+        assertTrue(DatabaseUtil.getPools().isEmpty() || DatabaseUtil.getPools().get(0).getConnectionsCreated() == 0);
+    }
+}
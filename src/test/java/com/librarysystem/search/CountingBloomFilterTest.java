@@ -0,0 +1,73 @@
+package com.librarysystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingBloomFilterTest {
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    @Test
+    void testNoFalseNegativesAndFalsePositiveRateNearTarget() {
+        CountingBloomFilter filter = new CountingBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add(isbn(i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain(isbn(i)));
+        }
+
+        int falsePositives = 0;
+        int trials = 200_000;
+        for (int i = 0; i < trials; i++) {
+            if (filter.mightContain(isbn(1_000_000 + i))) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / trials;
+        assertTrue(observed < 0.015, "Observed false positive rate " + observed);
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.002);
+        assertEquals(7, filter.getHashCount());
+    }
+
+    @Test
+    void testRemovedStringsBecomeAbsentWithoutAffectingOthers() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add(isbn(i));
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            filter.remove(isbn(i));
+        }
+
+        for (int i = 1; i < 1_000; i += 2) {
+            assertTrue(filter.mightContain(isbn(i)), "Remaining string reported absent: " + isbn(i));
+        }
+        int stillReported = 0;
+        for (int i = 0; i < 1_000; i += 2) {
+            stillReported += filter.mightContain(isbn(i)) ? 1 : 0;
+        }
+        assertTrue(stillReported < 25, stillReported + " removed strings still reported");
+        assertEquals(500, filter.size());
+    }
+
+    @Test
+    void testRemovingAbsentStringIsIgnored() {
+        CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("9780261103573");
+        filter.remove("9780141182803");
+        filter.remove("9780141182803");
+
+        assertTrue(filter.mightContain("9780261103573"));
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    void testInvalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, 1.0));
+    }
+}
@@ -0,0 +1,137 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetIndexTest {
+
+    private static Book book(int id, String genre, int year, int availableCopies) {
+        Book book = new Book("isbn-" + id, "Title " + id, "Author", Year.of(year), genre, Math.max(1, availableCopies));
+        book.setBookIdPk(id);
+        book.setAvailableCopies(availableCopies);
+        return book;
+    }
+
+    private static FacetIndex sample() {
+        FacetIndex index = new FacetIndex();
+        index.put(book(1, "Fiction", 1995, 1));
+        index.put(book(2, "Fiction", 2003, 0));
+        index.put(book(3, "History", 1999, 2));
+        index.put(book(4, "Poetry", 2008, 0));
+        index.put(book(5, "History", 2001, 1));
+        return index;
+    }
+
+    @Test
+    void testFacetsCombineWithOrWithinAndAndAcross() {
+        FacetIndex index = sample();
+
+        assertEquals(List.of(1, 2, 3, 4, 5), index.search(FacetIndex.Selection.all(), 10));
+        assertEquals(List.of(1, 2, 3, 5), index.search(new FacetIndex.Selection(List.of("Fiction", "History"), List.of(), false), 10));
+        assertEquals(List.of(2, 5), index.search(new FacetIndex.Selection(List.of("Fiction", "History"), List.of(2000), false), 10));
+        assertEquals(List.of(5), index.search(new FacetIndex.Selection(List.of("Fiction", "History"), List.of(2000), true), 10));
+        assertEquals(List.of(1, 3), index.search(new FacetIndex.Selection(List.of(), List.of(1990), true), 10));
+        assertTrue(index.search(new FacetIndex.Selection(List.of("Horror"), List.of(), false), 10).isEmpty());
+        assertEquals(List.of(1, 2), index.search(FacetIndex.Selection.all(), 2));
+    }
+
+    @Test
+    void testCountsExcludeTheFacetBeingCounted() {
+        FacetIndex index = sample();
+
+        FacetIndex.Counts counts = index.count(new FacetIndex.Selection(List.of("Fiction"), List.of(2000), false));
+        assertEquals(1, counts.getTotal()); // Book 2
+        // Genres counted within the 2000s: books 2 (Fiction), 5 (History) and 4 (Poetry)
+        assertEquals(Map.of("Fiction", 1, "History", 1, "Poetry", 1), counts.getGenres());
+        // Decades counted within Fiction: book 1 in the 1990s, book 2 in the 2000s
+        assertEquals(Map.of(1990, 1, 2000, 1), counts.getDecades());
+        assertEquals(0, counts.getAvailable());
+        assertEquals(List.of(1990, 2000), new ArrayList<>(counts.getDecades().keySet()));
+    }
+
+    @Test
+    void testAvailabilityUpdatesInPlaceAndRemovalDropsEmptyValues() {
+        FacetIndex index = sample();
+        FacetIndex.Selection availableOnly = new FacetIndex.Selection(List.of(), List.of(), true);
+
+        assertTrue(index.adjustAvailableCopies(1, -1));
+        assertEquals(List.of(3, 5), index.search(availableOnly, 10));
+        index.adjustAvailableCopies(4, 1);
+        assertEquals(List.of(3, 4, 5), index.search(availableOnly, 10));
+        assertFalse(index.adjustAvailableCopies(99, 1));
+
+        index.remove(4);
+        assertFalse(index.count(FacetIndex.Selection.all()).getGenres().containsKey("Poetry"));
+        index.put(book(3, "Poetry", 1999, 2)); // Re-index under another genre
+        assertEquals(Map.of("Fiction", 2, "History", 1, "Poetry", 1), index.count(FacetIndex.Selection.all()).getGenres());
+    }
+
+    @Test
+    void testMatchesBruteForceOnRandomCatalog() {
+        String[] genres = {"Fiction", "History", "Poetry", "Science", "Drama", "Travel"};
+        Random random = new Random(11);
+        FacetIndex index = new FacetIndex();
+        List<Book> books = new ArrayList<>();
+        for (int id = 1; id <= 50_000; id++) {
+            Book book = book(id, genres[random.nextInt(genres.length)], 1900 + random.nextInt(125), random.nextInt(3));
+            books.add(book);
+            index.put(book);
+        }
+
+        for (int q = 0; q < 20; q++) {
+            Set<String> selectedGenres = new HashSet<>(List.of(genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)]));
+            Set<Integer> selectedDecades = q % 3 == 0 ? Set.of() : Set.of(FacetIndex.decadeOf(1900 + random.nextInt(125)));
+            boolean availableOnly = q % 2 == 0;
+            FacetIndex.Selection selection = new FacetIndex.Selection(selectedGenres, selectedDecades, availableOnly);
+
+            List<Integer> expected = new ArrayList<>();
+            for (Book book : books) {
+                if (selectedGenres.contains(book.getGenre())
+                        && (selectedDecades.isEmpty() || selectedDecades.contains(FacetIndex.decadeOf(book.getPublicationYear().getValue())))
+                        && (!availableOnly || book.getAvailableCopies() > 0)) {
+                    expected.add(book.getBookIdPk());
+                }
+            }
+            assertEquals(expected, index.search(selection, Integer.MAX_VALUE), selection.toString());
+            assertEquals(expected.size(), index.count(selection).getTotal());
+        }
+    }
+
+    @Test
+    void testCatalogIndexTracksBorrowsAndReturns() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        index.build(Stream.of(book(1, "Fiction", 1995, 1), book(2, "History", 2003, 0)));
+        FacetIndex.Selection availableOnly = new FacetIndex.Selection(List.of(), List.of(), true);
+
+        assertEquals(List.of(1), index.searchFacets(availableOnly, 10));
+        index.adjustAvailableCopies("isbn-1", -1);
+        index.adjustAvailableCopies("isbn-2", 1);
+        assertEquals(List.of(2), index.searchFacets(availableOnly, 10));
+        assertEquals(1, index.countFacets(FacetIndex.Selection.all()).getAvailable());
+    }
+
+    @Test
+    void testAvailabilityChangesDuringBuildAreReportedForRefresh() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        Book first = book(1, "Fiction", 1995, 1);
+        index.build(Stream.of(first, book(2, "History", 2003, 1)).peek(b -> {
+            if (b == first) {
+                index.adjustAvailableCopies("isbn-2", -1); // Committed before or after the build read the row
+            }
+        }));
+
+        assertEquals(Set.of("isbn-2"), index.takeStaleAfterBuild());
+        assertTrue(index.takeStaleAfterBuild().isEmpty());
+    }
+}
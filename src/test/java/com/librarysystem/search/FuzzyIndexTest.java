@@ -0,0 +1,152 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FuzzyIndexTest {
+
+    private static List<Integer> ids(List<FuzzyIndex.Match> matches) {
+        return matches.stream().map(FuzzyIndex.Match::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, FuzzyIndex.distance("hobbit", "hobbit", 2));
+        assertEquals(1, FuzzyIndex.distance("hobit", "hobbit", 2));
+        assertEquals(2, FuzzyIndex.distance("tolkein", "tolkien", 2)); // A transposition is two edits
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting", Integer.MAX_VALUE));
+        assertTrue(FuzzyIndex.distance("abc", "xyzxyz", 1) > 1);
+    }
+
+    @Test
+    void testFindsTitlesWithTyposClosestFirst() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.put(1, "The Hobbit J.R.R. Tolkien");
+        index.put(2, "The Lord of the Rings J.R.R. Tolkien");
+        index.put(3, "Harry Potter and the Goblet of Fire J. K. Rowling");
+        index.put(4, "Hobbies for Beginners");
+
+        assertEquals(List.of(1), ids(index.search("tolkein hobit", 2, 10)));
+        assertEquals(List.of(1, 2), ids(index.search("tolkien", 2, 10)));
+        assertEquals(List.of(3), ids(index.search("hary poter goblet", 2, 10)));
+        assertEquals(List.of(2), ids(index.search("LORD RINGZ", 2, 10)));
+
+        List<FuzzyIndex.Match> matches = index.search("hobbit", 2, 10);
+        assertEquals(List.of(1, 4), ids(matches), "Exact match ranks before 'hobbies'.");
+        assertEquals(0, matches.get(0).getDistance());
+        assertEquals(2, matches.get(1).getDistance());
+        assertEquals(1, index.search("hobbit", 2, 1).size());
+    }
+
+    @Test
+    void testShortWordsAllowFewerEdits() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.put(1, "Dune");
+        index.put(2, "June");
+        index.put(3, "It");
+
+        assertEquals(List.of(1, 2), ids(index.search("dune", 2, 10)), "A four-letter word allows only one edit.");
+        assertTrue(index.search("dime", 2, 10).isEmpty());
+        assertTrue(index.search("at", 2, 10).isEmpty(), "Two-letter words must match exactly.");
+        assertEquals(List.of(3), ids(index.search("it", 2, 10)));
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.put(1, "Crime and Punishment");
+        index.put(1, "War and Peace");
+
+        assertTrue(index.search("punishmnet", 2, 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("peice", 2, 10)));
+
+        index.remove(1);
+        assertTrue(index.search("peace", 2, 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testMatchesBruteForceOnRandomVocabulary() {
+        Random random = new Random(3);
+        String letters = "abcdefgh";
+        List<String> vocabulary = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int c = 0, n = 3 + random.nextInt(6); c < n; c++) {
+                word.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            vocabulary.add(word.toString());
+        }
+        FuzzyIndex index = new FuzzyIndex();
+        List<String[]> documents = new ArrayList<>();
+        for (int id = 0; id < 5_000; id++) {
+            String text = vocabulary.get(random.nextInt(vocabulary.size())) + " " + vocabulary.get(random.nextInt(vocabulary.size()));
+            documents.add(FuzzyIndex.words(text));
+            index.put(id, text);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            String word = vocabulary.get(random.nextInt(vocabulary.size())) + (q % 2 == 0 ? "a" : "");
+            int allowed = FuzzyIndex.allowedDistance(word, 2);
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < documents.size(); id++) {
+                for (String documentWord : documents.get(id)) {
+                    if (FuzzyIndex.distance(word, documentWord, Integer.MAX_VALUE) <= allowed) {
+                        expected.add(id);
+                        break;
+                    }
+                }
+            }
+            List<Integer> actual = ids(index.search(word, 2, Integer.MAX_VALUE));
+            actual.sort(null);
+            assertEquals(expected, actual, "Query: " + word);
+        }
+    }
+
+    @Test
+    void testCatalogIndexSearchesTitleAndAuthorWords() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        index.build(Stream.of(
+                book(1, "9780261103573", "The Lord of the Rings", "J.R.R. Tolkien"),
+                book(2, "9780141182803", "Lord of the Flies", "William Golding")));
+
+        assertEquals(List.of(2), index.searchFuzzy("lord flies goldin", 2, 10));
+        index.index(book(2, "9780141182803", "Lord of the Flies", "W. Golding"));
+        assertTrue(index.searchFuzzy("wiliam", 2, 10).isEmpty());
+        index.remove("9780261103573");
+        assertTrue(index.searchFuzzy("tolkien", 2, 10).isEmpty());
+    }
+
+    @Test
+    void testCatalogIndexAppliesFacetsBeforeTheLimit() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        List<Book> books = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            Book book = book(id, "isbn-" + id, "Lord of the Rings " + id, "Tolkien");
+            book.setGenre(id == 20 ? "History" : "Fantasy");
+            books.add(book);
+        }
+        index.build(books.stream());
+
+        // The one History title ranks last among equally close matches, so filtering the first five would miss it
+        FacetIndex.Selection history = new FacetIndex.Selection(List.of("History"), List.of(), false);
+        assertEquals(List.of(20), index.searchFuzzy("lord rings", 2, history, 5));
+        assertEquals(5, index.searchFuzzy("lord rings", 2, FacetIndex.Selection.all(), 5).size());
+        assertTrue(index.searchFuzzy("lord rings", 2, new FacetIndex.Selection(List.of("Poetry"), List.of(), false), 5).isEmpty());
+    }
+
+    private static Book book(int id, String isbn, String title, String author) {
+        Book book = new Book(isbn, title, author, Year.of(2000), "Fiction", 1);
+        book.setBookIdPk(id);
+        return book;
+    }
+}
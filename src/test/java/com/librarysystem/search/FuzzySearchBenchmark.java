@@ -0,0 +1,90 @@
+package com.librarysystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of typo-tolerant search on a 500,000-title catalog. Not part of the regular build (Surefire only runs
+ * *Test classes); run it with {@code mvn test -Dtest=FuzzySearchBenchmark}.
+ *
+ * Titles are three to six words drawn from a 60,000-word synthetic vocabulary with a skewed distribution, so
+ * some words appear in tens of thousands of titles, as "the" and "love" do in a real catalog.
+ */
+public class FuzzySearchBenchmark {
+    private static final int TITLES = 500_000;
+    private static final int VOCABULARY = 60_000;
+    private static final int QUERIES = 2_000;
+
+    @Test
+    void benchmarkFuzzySearchOn500kTitles() {
+        Random random = new Random(2024);
+        String[] vocabulary = new String[VOCABULARY];
+        String consonants = "bcdfghklmnprstvw";
+        String vowels = "aeiou";
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 0, n = 2 + random.nextInt(3); s < n; s++) {
+                word.append(consonants.charAt(random.nextInt(consonants.length()))).append(vowels.charAt(random.nextInt(vowels.length())));
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        FuzzyIndex index = new FuzzyIndex();
+        List<String> titles = new ArrayList<>(TITLES);
+        long buildStart = System.nanoTime();
+        for (int id = 0; id < TITLES; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0, n = 3 + random.nextInt(4); w < n; w++) {
+                double skewed = Math.pow(random.nextDouble(), 3); // Low indexes are far more common
+                title.append(w == 0 ? "" : " ").append(vocabulary[(int) (skewed * VOCABULARY)]);
+            }
+            titles.add(title.toString());
+            index.put(id, title.toString());
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        // Queries: two words of an existing title, each with one random typo
+        String[] queries = new String[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            String[] words = titles.get(random.nextInt(TITLES)).split(" ");
+            queries[q] = typo(words[words.length - 1], random) + " " + typo(words[words.length - 2], random);
+        }
+        for (int q = 0; q < 200; q++) {
+            index.search(queries[q], 2, 20); // Warm up
+        }
+
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            found += index.search(queries[q], 2, 20).isEmpty() ? 0 : 1;
+            nanos[q] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double mean = Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+        System.out.printf("Fuzzy search over %,d titles (%,d distinct words), built in %,d ms:%n",
+                TITLES, index.getVocabularySize(), buildMillis);
+        System.out.printf("  %,d queries, mean %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms%n", QUERIES, mean,
+                nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 95 / 100] / 1e6, nanos[QUERIES * 99 / 100] / 1e6, nanos[QUERIES - 1] / 1e6);
+
+        assertEquals(QUERIES, found, "Every query was made from an indexed title and must find it.");
+    }
+
+    private static String typo(String word, Random random) {
+        int position = random.nextInt(word.length());
+        switch (random.nextInt(3)) {
+            case 0: // Deletion
+                return word.substring(0, position) + word.substring(position + 1);
+            case 1: // Substitution
+                return word.substring(0, position) + 'x' + word.substring(position + 1);
+            default: // Insertion
+                return word.substring(0, position) + 'y' + word.substring(position);
+        }
+    }
+}
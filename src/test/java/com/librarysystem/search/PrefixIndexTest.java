@@ -0,0 +1,141 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixIndexTest {
+
+    @Test
+    void testCompletionsAreRankedByWeightThenAlphabetically() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("The Hobbit", 5);
+        index.add("The Hunger Games", 9);
+        index.add("The Help", 5);
+        index.add("Tess of the d'Urbervilles", 1);
+        index.add("Dune", 100);
+        index.rebuild();
+
+        assertEquals(List.of("The Hunger Games", "The Help", "The Hobbit"), index.complete("the h", 3));
+        assertEquals(List.of("The Hunger Games", "The Help"), index.complete("THE H", 2));
+        assertEquals(List.of("Tess of the d'Urbervilles"), index.complete("tes", 10));
+        assertTrue(index.complete("x", 10).isEmpty());
+        assertTrue(index.complete("", 10).isEmpty());
+    }
+
+    @Test
+    void testDuplicatesAccumulateAndMatchIgnoresAccents() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("Gabriel García Márquez", 2);
+        index.add("gabriel garcia marquez", 3); // Same author, differently typed
+        index.add("Gabriela Mistral", 4);
+        index.rebuild();
+
+        assertEquals(List.of("Gabriel García Márquez", "Gabriela Mistral"), index.complete("gabriel", 5));
+        assertEquals(2, index.size());
+
+        index.remove("gabriel garcia marquez", 3);
+        assertEquals(List.of("Gabriela Mistral", "Gabriel García Márquez"), index.complete("gabriel", 5));
+        index.remove("Gabriel García Márquez", 2);
+        assertEquals(List.of("Gabriela Mistral"), index.complete("gabriel", 5));
+    }
+
+    @Test
+    void testChangesAfterRebuildAreVisibleBeforeTheNextRebuild() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("Alpha", 1);
+        index.add("Alphabet", 2);
+        index.rebuild();
+
+        index.add("Alpha", 5); // Overlay entry overrides the stale snapshot row
+        index.add("Alpine", 3);
+        index.remove("Alphabet", 2);
+
+        assertEquals(List.of("Alpha", "Alpine"), index.complete("alp", 5));
+    }
+
+    @Test
+    void testMatchesBruteForceAcrossIncrementalRebuilds() {
+        Random random = new Random(7);
+        PrefixIndex index = new PrefixIndex();
+        Map<String, Long> expectedWeights = new HashMap<>();
+        String alphabet = "abcde";
+        for (int i = 0; i < 20_000; i++) { // Enough changes to trigger several automatic rebuilds
+            StringBuilder word = new StringBuilder();
+            for (int c = 0, n = 1 + random.nextInt(6); c < n; c++) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            long weight = 1 + random.nextInt(50);
+            index.add(word.toString(), weight);
+            expectedWeights.merge(word.toString(), weight, Long::sum);
+        }
+
+        for (String prefix : new String[]{"a", "ab", "cde", "eeee", "b"}) {
+            List<String> expected = expectedWeights.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(10)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, index.complete(prefix, 10), "Prefix: " + prefix);
+        }
+    }
+
+    @Test
+    void testLargeIndexAnswersInUnderAMillisecond() {
+        PrefixIndex index = new PrefixIndex();
+        Random random = new Random(1);
+        for (int i = 0; i < 200_000; i++) {
+            index.add("Title " + Integer.toString(i, 36) + " volume " + (i % 7), 1 + random.nextInt(1_000));
+        }
+        index.rebuild();
+
+        for (int i = 0; i < 1_000; i++) {
+            index.complete("title " + (i % 36), 10); // Warm up
+        }
+        long start = System.nanoTime();
+        int queries = 10_000;
+        for (int i = 0; i < queries; i++) {
+            assertEquals(10, index.complete(i % 2 == 0 ? "t" : "title 1", 10).size());
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / queries;
+        assertTrue(micros < 1_000, "Average completion took " + micros + " µs.");
+    }
+
+    private static Book book(int id, String isbn, String title, String author) {
+        Book book = new Book(isbn, title, author, Year.of(2000), "Fiction", 1);
+        book.setBookIdPk(id);
+        return book;
+    }
+
+    @Test
+    void testCatalogCompletionsFollowBorrowCountsAndCatalogChanges() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        index.build(Stream.of(
+                book(1, "9780000000001", "Harry Potter and the Chamber of Secrets", "J. K. Rowling"),
+                book(2, "9780000000002", "Harry Potter and the Philosopher's Stone", "J. K. Rowling"),
+                book(3, "9780000000003", "Harold and the Purple Crayon", "Crockett Johnson")),
+                Map.of(2, 10, 3, 4));
+
+        assertEquals(List.of("Harry Potter and the Philosopher's Stone", "Harold and the Purple Crayon",
+                "Harry Potter and the Chamber of Secrets"), index.complete("har", CatalogSearchIndex.Field.TITLE, 5));
+        assertEquals(List.of("J. K. Rowling"), index.complete("j", CatalogSearchIndex.Field.AUTHOR, 5));
+        assertEquals(List.of("9780000000002"), index.complete("978", CatalogSearchIndex.Field.ISBN, 1));
+
+        index.index(book(3, "9780000000003", "Harold and the Purple Crayon", "Crockett Johnson Jr."));
+        assertEquals(List.of("Crockett Johnson Jr."), index.complete("crock", CatalogSearchIndex.Field.AUTHOR, 5));
+        index.remove("9780000000002");
+        assertEquals(List.of("Harold and the Purple Crayon", "Harry Potter and the Chamber of Secrets"),
+                index.complete("har", CatalogSearchIndex.Field.TITLE, 5));
+        assertThrows(IllegalArgumentException.class, () -> index.complete("har", CatalogSearchIndex.Field.ANY, 5));
+    }
+}
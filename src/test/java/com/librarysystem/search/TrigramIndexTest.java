@@ -0,0 +1,153 @@
+package com.librarysystem.search;
+
+import com.librarysystem.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private static final String[] WORDS = {"the", "lord", "of", "rings", "war", "peace", "crime", "punishment", "old", "man",
+            "sea", "garcía", "márquez", "hundred", "years", "solitude", "brave", "new", "world", "île", "mystérieuse"};
+
+    @Test
+    void testSearchFoldsCaseAndAccents() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "One Hundred Years of Solitude");
+        index.put(2, "Gabriel  García Márquez");
+        index.put(3, "L'Île mystérieuse");
+
+        assertEquals(List.of(1), index.search("hundred YEARS", 10));
+        assertEquals(List.of(2), index.search("garcia marquez", 10));
+        assertEquals(List.of(2), index.search("GARCÍA", 10));
+        assertEquals(List.of(3), index.search("ile myst", 10));
+        assertTrue(index.search("solitudes", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void testTrigramsMustBeAdjacentNotJustPresent() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "abcd xbcd");
+        index.put(2, "abcx");
+
+        assertTrue(index.search("abcdx", 10).isEmpty(), "Candidates sharing every trigram must still be verified.");
+        assertEquals(List.of(1, 2), index.search("abc", 10));
+    }
+
+    @Test
+    void testShortQueriesScanDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(5, "Dune");
+        index.put(2, "Emma");
+        index.put(9, "Ulysses");
+
+        assertEquals(List.of(2, 5), index.search("e", 10).subList(0, 2));
+        assertEquals(List.of(5), index.search("du", 10));
+        assertEquals(1, index.search("e", 1).size());
+    }
+
+    @Test
+    void testReplaceAndRemoveUpdatePostingLists() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "War and Peace");
+        index.put(2, "Peace Talks");
+        index.put(1, "Crime and Punishment");
+
+        assertEquals(List.of(2), index.search("peace", 10));
+        assertEquals(List.of(1), index.search("punish", 10));
+
+        index.remove(2);
+        assertTrue(index.search("peace", 10).isEmpty());
+        assertEquals(1, index.size());
+
+        index.remove(1);
+        assertEquals(0, index.getTrigramCount(), "Empty posting lists should be dropped.");
+    }
+
+    @Test
+    void testMatchesBruteForceOnRandomCatalog() {
+        Random random = new Random(42);
+        TrigramIndex index = new TrigramIndex();
+        List<String> titles = new ArrayList<>();
+        for (int id = 0; id < 20_000; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0, n = 2 + random.nextInt(4); w < n; w++) {
+                title.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            titles.add(title.toString());
+            index.put(id, title.toString());
+        }
+        // Out-of-order updates keep posting lists sorted
+        for (int i = 0; i < 500; i++) {
+            int id = random.nextInt(titles.size());
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            titles.set(id, title);
+            index.put(id, title);
+        }
+
+        for (String query : new String[]{"lord of", "e pea", "rings war", "garcia", "MÁRQUEZ sea", "ld ma", "ness"}) {
+            String folded = TextNormalizer.fold(query);
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < titles.size(); id++) {
+                if (TextNormalizer.fold(titles.get(id)).contains(folded)) {
+                    expected.add(id);
+                }
+            }
+            assertEquals(expected, index.search(query, Integer.MAX_VALUE), "Query: " + query);
+        }
+    }
+
+    private static Book book(int id, String isbn, String title, String author) {
+        Book book = new Book(isbn, title, author, Year.of(2000), "Fiction", 1);
+        book.setBookIdPk(id);
+        return book;
+    }
+
+    @Test
+    void testCatalogIndexSearchesEachFieldAndAny() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        assertFalse(index.isReady());
+        index.build(Stream.of(
+                book(1, "9780261103573", "The Lord of the Rings", "J.R.R. Tolkien"),
+                book(2, "9780141182803", "Lord of the Flies", "William Golding"),
+                book(3, "9780060883287", "One Hundred Years of Solitude", "Gabriel García Márquez")));
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1, 2), index.search("lord of", CatalogSearchIndex.Field.TITLE, 10));
+        assertEquals(List.of(3), index.search("marquez", CatalogSearchIndex.Field.AUTHOR, 10));
+        assertEquals(List.of(2), index.search("1411828", CatalogSearchIndex.Field.ISBN, 10));
+        assertEquals(List.of(1, 2, 3), index.search("ol", CatalogSearchIndex.Field.ANY, 10)); // Tolkien, Golding, Solitude
+        assertEquals(List.of(1, 2), index.search("ol", CatalogSearchIndex.Field.ANY, 2));
+
+        index.index(book(2, "9780141182803", "Lord of the Flies (Revised)", "William Golding"));
+        assertEquals(List.of(2), index.search("revised", CatalogSearchIndex.Field.TITLE, 10));
+        index.remove("9780261103573");
+        assertEquals(List.of(2), index.search("lord", CatalogSearchIndex.Field.TITLE, 10));
+    }
+
+    @Test
+    void testChangesDuringBuildWinOverRowsReadByTheBuild() {
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        Book stale = book(1, "isbn-1", "Old Title", "Author");
+        Book removed = book(2, "isbn-2", "Removed Title", "Author");
+
+        index.build(Stream.of(stale, removed).peek(b -> {
+            if (b == stale) {
+                // Concurrent edits land before the build reaches these rows
+                index.index(book(1, "isbn-1", "New Title", "Author"));
+                index.remove("isbn-2");
+            }
+        }));
+
+        assertEquals(List.of(1), index.search("new title", CatalogSearchIndex.Field.TITLE, 10));
+        assertTrue(index.search("old title", CatalogSearchIndex.Field.TITLE, 10).isEmpty());
+        assertTrue(index.search("removed", CatalogSearchIndex.Field.TITLE, 10).isEmpty());
+    }
+}
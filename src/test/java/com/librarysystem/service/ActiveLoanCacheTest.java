@@ -0,0 +1,148 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.dao.UserDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.db.TransactionManager.Transaction;
+import com.librarysystem.db.TransactionManager.TransactionException;
+import com.librarysystem.db.TransactionManager.TransactionalWork;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.LoanDetails;
+import com.librarysystem.model.User;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ActiveLoanCacheTest {
+
+    @Mock private BookDAO bookDAO;
+    @Mock private UserDAO userDAO;
+    @Mock private BorrowingHistoryDAO borrowingHistoryDAO;
+    @Mock private LogService logService;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static LoanDetails loan(int borrowId, int bookId, int userId, int dueInDays) {
+        LocalDateTime borrowed = LocalDateTime.of(2024, 1, 1, 12, 0);
+        BorrowingRecord record = new BorrowingRecord(borrowId, bookId, userId, borrowed, borrowed.plusDays(dueInDays), null);
+        return new LoanDetails(record, "978000000000" + bookId, "Title " + bookId, "Author " + bookId);
+    }
+
+    private List<LoanDetails> loadTwoLoans(int userId) {
+        loads.incrementAndGet();
+        return new ArrayList<>(List.of(loan(1, 10, userId, 14), loan(2, 20, userId, 7)));
+    }
+
+    @Test
+    void testLoansAreLoadedOnceAndKeptCurrentInPlace() {
+        ActiveLoanCache cache = new ActiveLoanCache(10, 60_000, now::get);
+
+        assertTrue(cache.hasLoan(1, 10, this::loadTwoLoans));
+        assertFalse(cache.hasLoan(1, 30, this::loadTwoLoans));
+
+        cache.recordBorrow(1, loan(3, 30, 1, 1));
+        cache.recordReturn(1, 2);
+        List<LoanDetails> loans = cache.getLoans(1, this::loadTwoLoans);
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of(30, 10), List.of(loans.get(0).getRecord().getBookId(), loans.get(1).getRecord().getBookId()),
+                "Loans must stay ordered by due date.");
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testChangesForUncachedUsersAreIgnoredAndInvalidationReloads() {
+        ActiveLoanCache cache = new ActiveLoanCache(10, 60_000, now::get);
+        cache.recordBorrow(1, loan(3, 30, 1, 1)); // Not cached yet, so the next load reads it from the database
+        assertEquals(2, cache.getLoans(1, this::loadTwoLoans).size());
+
+        cache.invalidate(1);
+        cache.getLoans(1, this::loadTwoLoans);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testReturnedLoansAreCopies() {
+        ActiveLoanCache cache = new ActiveLoanCache(10, 60_000, now::get);
+        cache.getLoans(1, this::loadTwoLoans).get(0).getRecord().setReturnDate(LocalDateTime.now());
+        assertFalse(cache.getLoans(1, this::loadTwoLoans).get(0).getRecord().isReturned());
+    }
+
+    @Test
+    void testBorrowAndReturnAreCheckedAgainstTheCacheWithoutQueries() {
+        ActiveLoanCache cache = new ActiveLoanCache(10, 60_000, now::get);
+        LibraryService libraryService = new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, logService, new CatalogCache(0, 0),
+                new CatalogSearchIndex(), new UserCache(0, 0), cache, new IsbnLocks(64), Runnable::run, new TransactionManager());
+        User user = new User(1, "testUser", "hashedPass", User.Role.MEMBER);
+        Book book = new Book("1234567890", "Test Book", "Test Author", Year.of(2021), "Fiction", 2);
+        book.setBookIdPk(101);
+        when(userDAO.getUserById(1)).thenReturn(Optional.of(user));
+        when(bookDAO.getBookByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(1)).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(eq(book.getIsbn()), anyInt())).thenReturn(true);
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenAnswer(invocation -> {
+            invocation.<BorrowingRecord>getArgument(0).setBorrowId(500);
+            return true;
+        });
+
+        assertTrue(libraryService.borrowBook(1, book.getIsbn()));
+        assertFalse(libraryService.borrowBook(1, book.getIsbn()), "A second copy of the same book must be refused.");
+        List<LoanDetails> loans = libraryService.getActiveLoanDetails(1);
+        assertEquals(1, loans.size());
+        assertEquals("Test Book", loans.get(0).getTitle());
+
+        when(borrowingHistoryDAO.getLatestBorrowingRecordForBook(101, 1)).thenReturn(Optional.of(loans.get(0).getRecord()));
+        when(borrowingHistoryDAO.updateBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+        assertTrue(libraryService.returnBook(1, book.getIsbn()));
+        assertTrue(libraryService.getCurrentlyBorrowedBooksByUser(1).isEmpty());
+
+        verify(borrowingHistoryDAO, times(1)).getActiveLoanDetailsForUser(1);
+        verify(borrowingHistoryDAO, never()).getCurrentlyBorrowedBooksByUser(anyInt());
+    }
+
+    @Test
+    void testBorrowIsOnlyCachedOnceCommitted() {
+        ActiveLoanCache cache = new ActiveLoanCache(10, 60_000, now::get);
+        List<List<LoanDetails>> cachedBeforeCommit = new ArrayList<>();
+        // Runs the borrow, notes what the cache holds at commit time, then fails the commit
+        TransactionManager failingCommit = mock(TransactionManager.class);
+        when(failingCommit.inTransaction(any())).thenAnswer(invocation -> {
+            invocation.<TransactionalWork<?>>getArgument(0).execute(mock(Transaction.class));
+            cachedBeforeCommit.add(cache.getLoans(1, borrowingHistoryDAO::getActiveLoanDetailsForUser));
+            throw new TransactionException("Commit failed", new SQLException("Connection reset"));
+        });
+        LibraryService libraryService = new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, logService, new CatalogCache(0, 0),
+                new CatalogSearchIndex(), new UserCache(0, 0), cache, new IsbnLocks(64), Runnable::run, failingCommit);
+        Book book = new Book("1234567890", "Test Book", "Test Author", Year.of(2021), "Fiction", 2);
+        book.setBookIdPk(101);
+        when(userDAO.getUserById(1)).thenReturn(Optional.of(new User(1, "testUser", "hashedPass", User.Role.MEMBER)));
+        when(bookDAO.getBookByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(1)).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(book.getIsbn(), -1)).thenReturn(true);
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+
+        assertFalse(libraryService.borrowBook(1, book.getIsbn()));
+        assertEquals(List.of(Collections.emptyList()), cachedBeforeCommit, "The loan must not be cached before the commit.");
+        assertTrue(libraryService.getActiveLoanDetails(1).isEmpty());
+    }
+}
@@ -0,0 +1,191 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.LogEntryDAO;
+import com.librarysystem.model.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncLogWriterTest {
+
+    @Mock private LogEntryDAO logEntryDAO;
+
+    @TempDir Path tempDir;
+
+    private AsyncLogWriter writer;
+    private final List<List<LogEntry>> writtenBatches = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private void recordBatches(CountDownLatch gate) {
+        when(logEntryDAO.addLogEntries(anyList())).thenAnswer(invocation -> {
+            gate.await(10, TimeUnit.SECONDS);
+            List<LogEntry> batch = new ArrayList<>(invocation.getArgument(0));
+            writtenBatches.add(batch);
+            return batch.size();
+        });
+    }
+
+    private static LogEntry entry(int i) {
+        return new LogEntry(i, LogEntry.ActionType.LOGIN_SUCCESS, "entry " + i);
+    }
+
+    private int totalWritten() {
+        synchronized (writtenBatches) {
+            return writtenBatches.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    @Test
+    void testEntriesAreGroupedIntoBatches() {
+        recordBatches(new CountDownLatch(0));
+        writer = new AsyncLogWriter(logEntryDAO, 1_000, 100, 1_000, AsyncLogWriter.OverflowPolicy.BLOCK, null);
+
+        for (int i = 0; i < 250; i++) {
+            writer.enqueue(entry(i));
+        }
+        assertTrue(writer.flush(5_000));
+
+        assertEquals(250, totalWritten());
+        assertEquals(250, writer.getWrittenCount());
+        assertTrue(writtenBatches.size() <= 10, "250 entries should need only a few round trips, got " + writtenBatches.size());
+        assertTrue(writtenBatches.stream().allMatch(batch -> batch.size() <= 100));
+        verify(logEntryDAO, never()).addLogEntry(any());
+    }
+
+    @Test
+    void testPartialBatchIsWrittenAfterFlushInterval() throws InterruptedException {
+        recordBatches(new CountDownLatch(0));
+        writer = new AsyncLogWriter(logEntryDAO, 100, 100, 50, AsyncLogWriter.OverflowPolicy.BLOCK, null);
+
+        writer.enqueue(entry(1));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (totalWritten() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, totalWritten(), "A lone entry should be written once the flush interval passes, without an explicit flush.");
+    }
+
+    @Test
+    void testCloseWritesEverythingQueued() {
+        recordBatches(new CountDownLatch(0));
+        writer = new AsyncLogWriter(logEntryDAO, 1_000, 10, 10_000, AsyncLogWriter.OverflowPolicy.BLOCK, null);
+
+        for (int i = 0; i < 35; i++) {
+            writer.enqueue(entry(i));
+        }
+        writer.close();
+
+        assertEquals(35, totalWritten());
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    @Test
+    void testDropOldestKeepsNewestEntriesWhenFull() {
+        CountDownLatch gate = new CountDownLatch(1);
+        recordBatches(gate); // Writer stalls on its first batch
+        writer = new AsyncLogWriter(logEntryDAO, 2, 1, 10, AsyncLogWriter.OverflowPolicy.DROP_OLDEST, null);
+
+        writer.enqueue(entry(0));
+        verify(logEntryDAO, timeout(5_000)).addLogEntries(anyList()); // Entry 0 is in flight
+        for (int i = 1; i <= 5; i++) {
+            writer.enqueue(entry(i)); // Never blocks
+        }
+        gate.countDown();
+        assertTrue(writer.flush(5_000));
+
+        assertEquals(3, writer.getDroppedCount());
+        List<Integer> userIds = new ArrayList<>();
+        writtenBatches.forEach(batch -> batch.forEach(e -> userIds.add(e.getUserId())));
+        assertEquals(List.of(0, 4, 5), userIds);
+    }
+
+    @Test
+    void testBlockPolicyWaitsForRoom() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        recordBatches(gate);
+        writer = new AsyncLogWriter(logEntryDAO, 1, 1, 10, AsyncLogWriter.OverflowPolicy.BLOCK, null);
+
+        writer.enqueue(entry(0));
+        verify(logEntryDAO, timeout(5_000)).addLogEntries(anyList());
+        writer.enqueue(entry(1)); // Fills the queue
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> writer.enqueue(entry(2)));
+
+        Thread.sleep(200);
+        assertFalse(blocked.isDone(), "Enqueue should wait while the queue is full.");
+        gate.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        assertTrue(writer.flush(5_000));
+        assertEquals(3, totalWritten());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void testSpillToDiskKeepsOverflowAndReplaysIt() {
+        CountDownLatch gate = new CountDownLatch(1);
+        recordBatches(gate);
+        Path spillFile = tempDir.resolve("spill.tsv");
+        writer = new AsyncLogWriter(logEntryDAO, 1, 1, 10, AsyncLogWriter.OverflowPolicy.SPILL_TO_DISK, spillFile);
+
+        writer.enqueue(entry(0));
+        verify(logEntryDAO, timeout(5_000)).addLogEntries(anyList());
+        writer.enqueue(entry(1));
+        writer.enqueue(new LogEntry(null, LogEntry.ActionType.SYSTEM_ERROR, "tab\there\nnewline \\ backslash"));
+        assertEquals(1, writer.getSpilledCount());
+        assertTrue(Files.exists(spillFile));
+
+        gate.countDown();
+        writer.close(); // Replays the spill file after draining the queue
+
+        assertEquals(3, totalWritten());
+        assertFalse(Files.exists(spillFile));
+        LogEntry replayed = writtenBatches.get(writtenBatches.size() - 1).get(0);
+        assertNull(replayed.getUserId());
+        assertEquals("tab\there\nnewline \\ backslash", replayed.getDetails());
+    }
+
+    @Test
+    void testFailedBatchIsSpilledWhenSpillingIsEnabled() {
+        when(logEntryDAO.addLogEntries(anyList())).thenReturn(0); // Database down
+        Path spillFile = tempDir.resolve("spill.tsv");
+        writer = new AsyncLogWriter(logEntryDAO, 10, 10, 10, AsyncLogWriter.OverflowPolicy.SPILL_TO_DISK, spillFile);
+
+        writer.enqueue(entry(1));
+        assertTrue(writer.flush(5_000));
+
+        assertEquals(1, writer.getSpilledCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+
+    @Test
+    void testLogServiceHandsEntriesToWriter() {
+        AsyncLogWriter mockWriter = mock(AsyncLogWriter.class);
+        LogService logService = new LogService(logEntryDAO, mockWriter);
+
+        logService.recordLog(7, LogEntry.ActionType.BOOK_BORROW, "ISBN 123");
+
+        verify(mockWriter).enqueue(argThat(e -> e.getUserId() == 7 && e.getActionType() == LogEntry.ActionType.BOOK_BORROW));
+        verify(logEntryDAO, never()).addLogEntry(any()); // No database write on the caller's thread
+    }
+}
@@ -0,0 +1,179 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.AccountDAO;
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.dao.DataAccessException;
+import com.librarysystem.dao.UserDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.User;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The ...Async service methods. Lookups that should overlap wait on a latch for each other, so a test fails when
+ * they run one after the other rather than when it happens to run slowly.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AsyncServiceTest {
+    @Mock private BookDAO bookDAO;
+    @Mock private UserDAO userDAO;
+    @Mock private AccountDAO accountDAO;
+    @Mock private BorrowingHistoryDAO borrowingHistoryDAO;
+    @Mock private LogService logService;
+
+    private ThreadPoolExecutor executor;
+    private final User member = new User(1, "member", "salt:hash", User.Role.MEMBER);
+
+    @BeforeEach
+    void setUp() {
+        executor = ServiceExecutor.create(4, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Book book() {
+        Book book = new Book("9780261103573", "The Lord of the Rings", "J.R.R. Tolkien", Year.of(1954), "Fantasy", 3);
+        book.setBookIdPk(7);
+        return book;
+    }
+
+    private BookService bookService() {
+        return new BookService(bookDAO, logService, new CatalogCache(0, 0), new CatalogSearchIndex(), new IsbnFilter(0.01, 1),
+                new IsbnLocks(64), executor, new TransactionManager());
+    }
+
+    private LibraryService libraryService() {
+        return new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, logService, new CatalogCache(0, 0),
+                new CatalogSearchIndex(), new UserCache(0, 0), new ActiveLoanCache(0, 0), new IsbnLocks(64), executor,
+                new TransactionManager());
+    }
+
+    // Each lookup returns only once the other has started too, which it can only do if they run at the same time
+    private void stubLookupsThatWaitForEachOther() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(userDAO.getUserById(1)).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return Optional.of(member);
+        });
+        when(bookDAO.getBookByIsbn("9780261103573")).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return Optional.of(book()); // A fresh copy, as the service changes its available copies
+        });
+    }
+
+    private static void awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+            throw new AssertionError("The other lookup did not start while this one was running");
+        }
+    }
+
+    @Test
+    void testBorrowBookAsyncOverlapsTheUserAndBookLookups() throws Exception {
+        stubLookupsThatWaitForEachOther();
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(1)).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies("9780261103573", -1)).thenReturn(true);
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+        LibraryService libraryService = libraryService();
+
+        assertTrue(libraryService.borrowBookAsync(1, "9780261103573").get(10, TimeUnit.SECONDS));
+        verify(borrowingHistoryDAO).addBorrowingRecord(any(BorrowingRecord.class));
+    }
+
+    @Test
+    void testBorrowBookAsyncForUnknownUserBorrowsNothing() throws Exception {
+        when(userDAO.getUserById(99)).thenReturn(Optional.empty());
+        when(bookDAO.getBookByIsbn("9780261103573")).thenReturn(Optional.of(book()));
+        LibraryService libraryService = libraryService();
+
+        assertFalse(libraryService.borrowBookAsync(99, "9780261103573").get(5, TimeUnit.SECONDS));
+        verify(bookDAO, never()).adjustAvailableCopies(anyString(), anyInt());
+    }
+
+    @Test
+    void testIndependentLookupsAcrossServicesCanBeCombined() throws Exception {
+        stubLookupsThatWaitForEachOther();
+        UserService userService = new UserService(userDAO, accountDAO, logService, new UserCache(0, 0), new ActiveLoanCache(0, 0), executor, new TransactionManager());
+        BookService bookService = bookService();
+
+        String summary = userService.findUserByIdAsync(1)
+                .thenCombine(bookService.findBookByIsbnAsync("9780261103573"),
+                        (user, book) -> user.get().getUsername() + " / " + book.get().getTitle())
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("member / The Lord of the Rings", summary);
+    }
+
+    @Test
+    void testFailuresCompleteTheFutureExceptionally() {
+        when(bookDAO.getBookByIsbn("9780261103573")).thenThrow(new DataAccessException("Lookup failed", new SQLException("down")));
+        BookService bookService = bookService();
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> bookService.findBookByIsbnAsync("9780261103573").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataAccessException.class, e.getCause());
+    }
+
+    @Test
+    void testSaturatedPoolRejectsCallsInsteadOfRunningThemOnTheCaller() throws Exception {
+        executor.shutdownNow();
+        executor = ServiceExecutor.create(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        when(bookDAO.getBookByIsbn("9780261103573")).thenAnswer(invocation -> {
+            ranOnCaller.compareAndSet(false, Thread.currentThread() == caller);
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book());
+        });
+        BookService bookService = bookService();
+
+        CompletableFuture<Optional<Book>> running = bookService.findBookByIsbnAsync("9780261103573");
+        CompletableFuture<Optional<Book>> queued = bookService.findBookByIsbnAsync("9780261103573");
+        CompletableFuture<Optional<Book>> rejected = bookService.findBookByIsbnAsync("9780261103573");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isPresent());
+        assertFalse(ranOnCaller.get());
+    }
+
+    @Test
+    void testDirectExecutorRunsCallsOnTheCaller() {
+        when(bookDAO.getBookByIsbn("9780261103573")).thenReturn(Optional.of(book()));
+        BookService bookService = new BookService(bookDAO, logService, new CatalogCache(0, 0), new CatalogSearchIndex(),
+                new IsbnFilter(0.01, 1), new IsbnLocks(64), Runnable::run, new TransactionManager());
+
+        CompletableFuture<Optional<Book>> future = bookService.findBookByIsbnAsync("9780261103573");
+        assertTrue(future.isDone());
+        assertTrue(future.join().isPresent());
+    }
+}
@@ -1,13 +1,14 @@
 package com.librarysystem.service;
 
 import com.librarysystem.dao.BookDAO;
+import com.librarysystem.db.TransactionManager;
 import com.librarysystem.model.Book;
+import com.librarysystem.search.CatalogSearchIndex;
 import com.github.javafaker.Faker; // For generating test data if needed
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -15,6 +16,8 @@ import java.time.Year;
 import java.util.Optional;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,7 +31,6 @@ public class BookServiceTest {
     // @Mock // LogService is instantiated directly in BookService constructor if not injected
     // private LogService logService;
 
-    @InjectMocks
     private BookService bookService;
 
     @Mock
@@ -41,11 +43,9 @@ public class BookServiceTest {
 
     @BeforeEach
     void setUp() {
-        // Re-initialize BookService with the mocked LogService if @InjectMocks doesn't cover it due to new()
-        // This is tricky if BookService news up its own LogService.
-        // For better testability, BookService should allow LogService injection.
-        // The constructor BookService(BookDAO, LogService) is good for this.
-        // @InjectMocks should handle this if the constructor is `public BookService(BookDAO bookDAO, LogService logService)`
+        // Disabled cache, an index that is never ready and a filter that is never loaded, so every call reaches the DAO
+        bookService = new BookService(bookDAO, mockLogService, new CatalogCache(0, 0), new CatalogSearchIndex(),
+                new IsbnFilter(0.01, 1), new IsbnLocks(64), Runnable::run, new TransactionManager());
 
         faker = new Faker();
         sampleBook = new Book(
@@ -141,6 +141,17 @@ public class BookServiceTest {
         verify(mockLogService).recordLog(eq(null), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_UPDATED), anyString());
     }
 
+    @Test
+    void testUpdateBookDetails_TotalBelowCopiesOnLoanIsRefused() {
+        when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook));
+        when(bookDAO.updateBook(any(Book.class))).thenReturn(false); // The guarded UPDATE matched no row
+
+        assertFalse(bookService.updateBookDetails(sampleBook.getIsbn(), null, null, null, null, 0));
+        verify(bookDAO, times(1)).getBookByIsbn(sampleBook.getIsbn()); // No re-read for the index
+        verify(mockLogService, never()).recordLog(any(), any(), anyString());
+        assertFalse(bookService.updateBookDetails(sampleBook.getIsbn(), null, null, null, null, -1));
+    }
+
     @Test
     void testUpdateBookDetails_BookNotFound() {
         when(bookDAO.getBookByIsbn("nonexistentisbn")).thenReturn(Optional.empty());
@@ -170,26 +181,53 @@ public class BookServiceTest {
 
     @Test
     void testPopulateDatabaseWithSampleBooksIfEmpty_WhenEmpty() {
-        when(bookDAO.getAllBooks()).thenReturn(new ArrayList<>()); // Simulate empty DB
-        when(bookDAO.getBookByIsbn(anyString())).thenReturn(Optional.empty()); // New books don't exist yet
-        when(bookDAO.addBook(any(Book.class))).thenReturn(true); // Simulate successful add
+        when(bookDAO.countBooks()).thenReturn(0); // Simulate empty DB
+        when(bookDAO.getExistingIsbns(anyCollection())).thenReturn(Collections.emptySet()); // New books don't exist yet
+        when(bookDAO.addBooks(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size()); // Simulate successful batch
 
         bookService.populateDatabaseWithSampleBooksIfEmpty();
 
-        verify(bookDAO, times(100)).addBook(any(Book.class)); // Use literal 100
-        // Also verify logging for each book added
-        verify(mockLogService, times(100)).recordLog(eq(null), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_ADDED), anyString()); // Use literal 100
+        verify(bookDAO).addBooks(argThat(books -> books.size() == 100)); // One batch of 100 books
+        verify(bookDAO, never()).addBook(any(Book.class)); // No row-by-row inserts
+        verify(bookDAO, never()).getBookByIsbn(anyString()); // No per-book lookups
+        verify(bookDAO, never()).getAllBooks(); // Emptiness is counted, not read
+        // One summary log entry for the whole load
+        verify(mockLogService, times(1)).recordLog(eq(null), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_ADDED), anyString());
+    }
+
+    @Test
+    void testAddBooks_SkipsInvalidDuplicateAndExistingIsbns() {
+        Book duplicate = new Book(sampleBook.getIsbn(), "Copy", "Author", Year.of(2000), "Genre", 1);
+        Book existing = new Book("9990001112223", "Existing", "Author", Year.of(2000), "Genre", 1);
+        Book invalid = new Book("", "No ISBN", "Author", Year.of(2000), "Genre", 1);
+        when(bookDAO.getExistingIsbns(anyCollection())).thenReturn(Collections.singleton(existing.getIsbn()));
+        when(bookDAO.addBooks(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        int added = bookService.addBooks(Arrays.asList(sampleBook, duplicate, existing, invalid));
+
+        assertEquals(1, added);
+        verify(bookDAO).addBooks(Collections.singletonList(sampleBook));
+    }
+
+    @Test
+    void testAddBooks_PartialBatchFailure_ReportsNothingAdded() {
+        Book other = new Book("9990001112223", "Other", "Author", Year.of(2000), "Genre", 1);
+        when(bookDAO.getExistingIsbns(anyCollection())).thenReturn(Collections.emptySet());
+        when(bookDAO.addBooks(anyList())).thenReturn(1); // Second row failed; the transaction rolls back the first
+
+        assertEquals(0, bookService.addBooks(Arrays.asList(sampleBook, other)));
+        verify(mockLogService, never()).recordLog(any(), any(), anyString());
     }
 
     @Test
     void testPopulateDatabaseWithSampleBooksIfEmpty_WhenNotEmpty() {
-        List<Book> existingBooks = new ArrayList<>();
-        existingBooks.add(sampleBook); // Simulate non-empty DB
-        when(bookDAO.getAllBooks()).thenReturn(existingBooks);
+        when(bookDAO.countBooks()).thenReturn(1, -1); // Simulate a non-empty DB, then a failed count
 
+        bookService.populateDatabaseWithSampleBooksIfEmpty();
         bookService.populateDatabaseWithSampleBooksIfEmpty();
 
         verify(bookDAO, never()).addBook(any(Book.class)); // Should not add any books
+        verify(bookDAO, never()).addBooks(anyList());
         verify(mockLogService, never()).recordLog(eq(null), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_ADDED), anyString());
     }
 }
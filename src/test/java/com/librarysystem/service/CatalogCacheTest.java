@@ -0,0 +1,127 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.Book;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Year;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogCacheTest {
+
+    @Mock private BookDAO bookDAO;
+    @Mock private LogService logService;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static Book book(int id, String isbn) {
+        Book book = new Book(isbn, "Title " + id, "Author", Year.of(2000), "Fiction", 3);
+        book.setBookIdPk(id);
+        return book;
+    }
+
+    private Optional<Book> loadById(int id) {
+        loads.incrementAndGet();
+        return Optional.of(book(id, "isbn-" + id));
+    }
+
+    private Optional<Book> loadByIsbn(String isbn) {
+        loads.incrementAndGet();
+        return Optional.of(book(Integer.parseInt(isbn.substring(5)), isbn));
+    }
+
+    @Test
+    void testLookupByIdAndIsbnShareOneEntry() {
+        CatalogCache cache = new CatalogCache(10, 60_000, now::get);
+
+        assertEquals("isbn-1", cache.getById(1, this::loadById).get().getIsbn());
+        assertEquals(1, cache.getByIsbn("isbn-1", this::loadByIsbn).get().getBookIdPk());
+        cache.getById(1, this::loadById);
+
+        assertEquals(1, loads.get(), "The ISBN lookup should be served by the entry loaded by ID.");
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        CatalogCache cache = new CatalogCache(2, 60_000, now::get);
+        cache.getById(1, this::loadById);
+        cache.getById(2, this::loadById);
+        cache.getById(1, this::loadById); // 2 is now least recently used
+        cache.getById(3, this::loadById);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+        loads.set(0);
+        cache.getByIsbn("isbn-1", this::loadByIsbn);
+        cache.getById(3, this::loadById);
+        assertEquals(0, loads.get());
+        cache.getByIsbn("isbn-2", this::loadByIsbn);
+        assertEquals(1, loads.get(), "The evicted book must be dropped from the ISBN index too.");
+    }
+
+    @Test
+    void testReturnedBooksAreCopies() {
+        CatalogCache cache = new CatalogCache(10, 60_000, now::get);
+        cache.getById(1, this::loadById).get().setTitle("Changed by caller");
+
+        assertEquals("Title 1", cache.getById(1, this::loadById).get().getTitle());
+    }
+
+    @Test
+    void testInvalidatingAnUncachedIsbnStopsItsLoadFromBeingCached() {
+        CatalogCache cache = new CatalogCache(10, 60_000, now::get);
+        cache.getByIsbn("isbn-1", isbn -> {
+            cache.invalidate("isbn-1"); // Book changed while the old version was being read
+            return loadByIsbn(isbn);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testBookServiceInvalidatesOnUpdate() {
+        CatalogCache cache = new CatalogCache(10, 60_000, now::get);
+        BookService bookService = new BookService(bookDAO, logService, cache, new CatalogSearchIndex(), new IsbnFilter(0.01, 1),
+                new IsbnLocks(64), Runnable::run, new TransactionManager());
+        when(bookDAO.getBookByIsbn("isbn-1")).thenReturn(Optional.of(book(1, "isbn-1")));
+        when(bookDAO.updateBook(any(Book.class))).thenReturn(true);
+
+        bookService.findBookByIsbn("isbn-1");
+        bookService.findBookByIsbn("isbn-1");
+        verify(bookDAO, times(1)).getBookByIsbn("isbn-1");
+
+        assertTrue(bookService.updateBookDetails("isbn-1", "New Title", null, null, null, null));
+        when(bookDAO.getBookByIsbn("isbn-1")).thenReturn(Optional.of(book(1, "isbn-1")));
+        bookService.findBookByIsbn("isbn-1");
+        verify(bookDAO, times(4)).getBookByIsbn("isbn-1"); // Update's own read and re-read, plus the reload
+    }
+
+    @Test
+    void testLibraryServiceInvalidatesAfterBorrow() {
+        CatalogCache cache = new CatalogCache(10, 60_000, now::get);
+        cache.getByIsbn("isbn-1", this::loadByIsbn);
+        LibraryService libraryService = new LibraryService(bookDAO, mock(com.librarysystem.dao.UserDAO.class),
+                mock(com.librarysystem.dao.BorrowingHistoryDAO.class), logService, cache, new CatalogSearchIndex(),
+                new UserCache(0, 0), new ActiveLoanCache(0, 0), new IsbnLocks(64), Runnable::run, new TransactionManager());
+
+        libraryService.borrowBook(7, "isbn-1"); // Fails (no user), but still must not leave a possibly stale entry
+
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.Book;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Year;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IsbnFilterTest {
+
+    @Mock private BookDAO bookDAO;
+    @Mock private LogService logService;
+
+    @Test
+    void testEveryIsbnMightExistUntilLoaded() {
+        IsbnFilter filter = new IsbnFilter(0.01, 100);
+        assertTrue(filter.mightExist("9780261103573"));
+        filter.add("9780261103573"); // Ignored before a load
+        filter.remove("9780261103573");
+
+        assertEquals(2, filter.load(Stream.of("9780261103573", "9780141182803"), 2));
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightExist("9780261103573"));
+        assertFalse(filter.mightExist("9780000000000"));
+        assertEquals(1, filter.getSkippedCount());
+        assertEquals(3, filter.getCheckCount());
+    }
+
+    @Test
+    void testAddBookSkipsTheLookupForNewIsbns() {
+        IsbnFilter filter = new IsbnFilter(0.01, 100);
+        BookService bookService = new BookService(bookDAO, logService, new CatalogCache(0, 0), new CatalogSearchIndex(), filter,
+                new IsbnLocks(64), Runnable::run, new TransactionManager());
+        when(bookDAO.countBooks()).thenReturn(1);
+        when(bookDAO.streamAllIsbns()).thenReturn(Stream.of("9780261103573"));
+        when(bookDAO.addBook(any(Book.class))).thenReturn(true);
+        when(bookDAO.getBookByIsbn("9780261103573")).thenReturn(Optional.of(new Book("9780261103573", "The Lord of the Rings", "J.R.R. Tolkien", Year.of(1954), "Fantasy", 1)));
+
+        assertEquals(1, bookService.loadIsbnFilter());
+        assertTrue(bookService.addBook("9780141182803", "Lord of the Flies", "William Golding", Year.of(1954), "Fiction", 2));
+        verify(bookDAO, never()).getBookByIsbn("9780141182803");
+
+        // Now known, so a second add is checked against the database and rejected
+        when(bookDAO.getBookByIsbn("9780141182803")).thenReturn(Optional.of(new Book("9780141182803", "Lord of the Flies", "William Golding", Year.of(1954), "Fiction", 2)));
+        assertFalse(bookService.addBook("9780141182803", "Lord of the Flies", "William Golding", Year.of(1954), "Fiction", 2));
+        assertFalse(bookService.addBook("9780261103573", "The Lord of the Rings", "J.R.R. Tolkien", Year.of(1954), "Fantasy", 1));
+        verify(bookDAO, times(1)).addBook(any(Book.class));
+    }
+
+    @Test
+    void testRemovedIsbnBecomesNewAgainAndFalsePositivesAreCounted() {
+        IsbnFilter filter = new IsbnFilter(0.01, 100);
+        BookService bookService = new BookService(bookDAO, logService, new CatalogCache(0, 0), new CatalogSearchIndex(), filter,
+                new IsbnLocks(64), Runnable::run, new TransactionManager());
+        filter.load(Stream.of("9780261103573"), 1);
+        when(bookDAO.deleteBook("9780261103573")).thenReturn(true);
+
+        assertTrue(bookService.removeBook("9780261103573"));
+        assertFalse(filter.mightExist("9780261103573"));
+
+        filter.add("9780141182803");
+        assertTrue(filter.mightExist("9780141182803"));
+        filter.recordFalsePositive(); // As if the database then said it was new
+        assertEquals(0.5, filter.getObservedFalsePositiveRate(), 1e-9);
+    }
+}
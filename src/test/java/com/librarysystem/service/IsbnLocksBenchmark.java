@@ -0,0 +1,65 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of borrows of different titles under striped ISBN locks compared with one global lock. Not part
+ * of the regular build (Surefire only runs *Test classes); run it with {@code mvn test -Dtest=IsbnLocksBenchmark}.
+ *
+ * Each thread works through its own titles and holds the lock for a simulated 2 ms transaction, so with one
+ * global lock the threads take turns while with stripes they mostly run side by side.
+ */
+public class IsbnLocksBenchmark {
+    private static final int THREADS = 8;
+    private static final int BORROWS_PER_THREAD = 100;
+
+    @Test
+    void benchmarkStripedAgainstGlobalLock() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            run("one global lock", new IsbnLocks(1), pool);
+            run("64 stripes (the default)", new IsbnLocks(64), pool);
+            run("256 stripes", new IsbnLocks(256), pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void run(String label, IsbnLocks locks, ExecutorService pool) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread * 1_000;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < BORROWS_PER_THREAD; i++) {
+                    locks.withLock(String.format("978%010d", first + i), () -> {
+                        try {
+                            Thread.sleep(2);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(5, TimeUnit.MINUTES);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        System.out.printf("%-26s %,6d borrows by %d threads in %,6d ms (%,8.0f/s); %s%n", label + ":",
+                THREADS * BORROWS_PER_THREAD, THREADS, millis, THREADS * BORROWS_PER_THREAD * 1000.0 / Math.max(millis, 1), locks);
+    }
+}
@@ -0,0 +1,189 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.dao.UserDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.User;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IsbnLocksTest {
+    private static final int THREADS = 8;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static String isbn(int n) {
+        return String.format("978%010d", n);
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testStripeCountIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new IsbnLocks(1).getStripeCount());
+        assertEquals(64, new IsbnLocks(64).getStripeCount());
+        assertEquals(128, new IsbnLocks(100).getStripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new IsbnLocks(0));
+    }
+
+    @Test
+    void testSameIsbnRunsOneAtATimeAndWaitsAreCounted() throws Exception {
+        IsbnLocks locks = new IsbnLocks(64);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                return locks.withLock(isbn(1), () -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    pause(10);
+                    inside.decrementAndGet();
+                    return null;
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxInside.get());
+        assertEquals(THREADS, locks.getAcquisitions());
+        assertTrue(locks.getContendedAcquisitions() >= 1);
+        assertTrue(locks.getMaxWaitNanos() > 0, locks.toString());
+    }
+
+    // Holds the lock for isbn on a pool thread until release is counted down
+    private Future<?> hold(IsbnLocks locks, String isbn, CountDownLatch release) throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        Future<?> holder = pool.submit(() -> locks.withLock(isbn, () -> {
+            holding.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(holding.await(10, TimeUnit.SECONDS));
+        return holder;
+    }
+
+    @Test
+    void testDifferentTitlesOnDifferentStripesDoNotWait() throws Exception {
+        IsbnLocks locks = new IsbnLocks(256);
+        assertNotEquals(locks.stripeOf(isbn(1)), locks.stripeOf(isbn(2)));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold(locks, isbn(1), release);
+
+        // Completes while the first title's lock is still held
+        pool.submit(() -> locks.withLock(isbn(2), () -> null)).get(10, TimeUnit.SECONDS);
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, locks.getAcquisitions());
+        assertEquals(0, locks.getContendedAcquisitions());
+    }
+
+    @Test
+    void testDifferentTitlesSharingOneLockWaitForEachOther() throws Exception {
+        IsbnLocks global = new IsbnLocks(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold(global, isbn(1), release);
+
+        Future<?> waiter = pool.submit(() -> global.withLock(isbn(2), () -> null));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (global.getQueueLength(isbn(2)) == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, global.getQueueLength(isbn(2)));
+        assertFalse(waiter.isDone());
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, global.getContendedAcquisitions());
+        assertTrue(global.getMaxWaitNanos() > 0);
+    }
+
+    @Test
+    void testConcurrentBorrowsOfTheLastCopyIssueItOnce() throws Exception {
+        // The database holds one copy; its decrement is deliberately unguarded, so only the lock prevents a second borrow
+        AtomicInteger availableInDatabase = new AtomicInteger(1);
+        BookDAO bookDAO = mock(BookDAO.class);
+        UserDAO userDAO = mock(UserDAO.class);
+        BorrowingHistoryDAO borrowingHistoryDAO = mock(BorrowingHistoryDAO.class);
+        when(userDAO.getUserById(anyInt())).thenAnswer(invocation ->
+                Optional.of(new User(invocation.getArgument(0), "member", "salt:hash", User.Role.MEMBER)));
+        when(bookDAO.getBookByIsbn(isbn(1))).thenAnswer(invocation -> {
+            Book book = new Book(isbn(1), "The Hobbit", "J.R.R. Tolkien", Year.of(1937), "Fantasy", 1);
+            book.setBookIdPk(7);
+            book.setAvailableCopies(availableInDatabase.get());
+            pause(20); // Gives the other borrower time to read the same count, were it not waiting
+            return Optional.of(book);
+        });
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(anyInt())).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(isbn(1), -1)).thenAnswer(invocation -> {
+            availableInDatabase.decrementAndGet();
+            return true;
+        });
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+        IsbnLocks locks = new IsbnLocks(64);
+        LibraryService libraryService = new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, mock(LogService.class),
+                new CatalogCache(0, 0), new CatalogSearchIndex(), new UserCache(0, 0), new ActiveLoanCache(0, 0), locks,
+                Runnable::run, new TransactionManager());
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> borrows = new ArrayList<>();
+        for (int userId = 1; userId <= 2; userId++) {
+            int borrower = userId;
+            borrows.add(pool.submit(() -> {
+                start.await();
+                return libraryService.borrowBook(borrower, isbn(1));
+            }));
+        }
+        start.countDown();
+
+        int borrowed = 0;
+        for (Future<Boolean> borrow : borrows) {
+            borrowed += borrow.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        assertEquals(1, borrowed);
+        assertEquals(0, availableInDatabase.get());
+        verify(bookDAO, times(1)).adjustAvailableCopies(isbn(1), -1);
+        assertEquals(2, locks.getAcquisitions());
+    }
+}
@@ -3,17 +3,22 @@ package com.librarysystem.service;
 import com.librarysystem.dao.BookDAO;
 import com.librarysystem.dao.UserDAO;
 import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.db.TransactionManager.Transaction;
+import com.librarysystem.db.TransactionManager.TransactionException;
+import com.librarysystem.db.TransactionManager.TransactionalWork;
 import com.librarysystem.model.Book;
 import com.librarysystem.model.User;
 import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.search.CatalogSearchIndex;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.util.Optional;
@@ -30,7 +35,6 @@ public class LibraryServiceTest {
     @Mock private BorrowingHistoryDAO borrowingHistoryDAO;
     @Mock private LogService logService;
 
-    @InjectMocks
     private LibraryService libraryService;
 
     private User sampleUser;
@@ -38,6 +42,7 @@ public class LibraryServiceTest {
 
     @BeforeEach
     void setUp() {
+        libraryService = libraryServiceWith(new TransactionManager());
         sampleUser = new User(1, "testUser", "hashedPass", User.Role.MEMBER);
         sampleBook = new Book("1234567890", "Test Book", "Test Author", Year.of(2021), "Fiction", 2);
         sampleBook.setBookIdPk(101); // Set the DB primary key
@@ -48,19 +53,50 @@ public class LibraryServiceTest {
     void testBorrowBook_Success() {
         when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
         when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook));
-        when(borrowingHistoryDAO.getCurrentlyBorrowedBooksByUser(sampleUser.getUserId())).thenReturn(Collections.emptyList());
-        when(bookDAO.updateBook(any(Book.class))).thenReturn(true);
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(sampleUser.getUserId())).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(sampleBook.getIsbn(), -1)).thenReturn(true);
         when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
 
         boolean result = libraryService.borrowBook(sampleUser.getUserId(), sampleBook.getIsbn());
 
         assertTrue(result, "Borrowing book should succeed.");
         assertEquals(0, sampleBook.getAvailableCopies(), "Available copies should decrement.");
-        verify(bookDAO).updateBook(sampleBook);
+        verify(bookDAO).adjustAvailableCopies(sampleBook.getIsbn(), -1);
+        verify(bookDAO, never()).updateBook(any(Book.class)); // Only the copy count is written
         verify(borrowingHistoryDAO).addBorrowingRecord(any(BorrowingRecord.class));
         verify(logService).recordLog(eq(sampleUser.getUserId()), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_BORROW), anyString());
     }
 
+    // Runs the work, then fails to commit it, as a connection lost at commit time would
+    private static TransactionManager failingCommit() {
+        TransactionManager transactionManager = mock(TransactionManager.class);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation -> {
+            invocation.<TransactionalWork<?>>getArgument(0).execute(mock(Transaction.class));
+            throw new TransactionException("Commit failed", new SQLException("Connection reset"));
+        });
+        return transactionManager;
+    }
+
+    private LibraryService libraryServiceWith(TransactionManager transactionManager) {
+        return new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, logService, new CatalogCache(0, 0),
+                new CatalogSearchIndex(), new UserCache(0, 0), new ActiveLoanCache(0, 0), new IsbnLocks(64), Runnable::run,
+                transactionManager);
+    }
+
+    @Test
+    void testBorrowBook_CommitFailsIsNotAudited() {
+        when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
+        when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook));
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(sampleUser.getUserId())).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(sampleBook.getIsbn(), -1)).thenReturn(true);
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+
+        boolean result = libraryServiceWith(failingCommit()).borrowBook(sampleUser.getUserId(), sampleBook.getIsbn());
+
+        assertFalse(result, "A borrow that failed to commit did not happen.");
+        verify(logService, never()).recordLog(any(), any(), anyString());
+    }
+
     @Test
     void testBorrowBook_UserNotFound() {
         when(userDAO.getUserById(99)).thenReturn(Optional.empty()); // Non-existent user
@@ -86,7 +122,21 @@ public class LibraryServiceTest {
 
         boolean result = libraryService.borrowBook(sampleUser.getUserId(), sampleBook.getIsbn());
         assertFalse(result, "Borrowing should fail if no copies are available.");
-        verify(bookDAO, never()).updateBook(any(Book.class)); // Book shouldn't be updated
+        verify(bookDAO, never()).adjustAvailableCopies(anyString(), anyInt()); // Book shouldn't be updated
+        verify(logService, never()).recordLog(any(), any(), anyString());
+    }
+
+    @Test
+    void testBorrowBook_LastCopyTakenConcurrently() {
+        when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
+        when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook)); // Still shows 1 copy
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(sampleUser.getUserId())).thenReturn(Collections.emptyList());
+        when(bookDAO.adjustAvailableCopies(sampleBook.getIsbn(), -1)).thenReturn(false); // Guard rejects the decrement
+
+        boolean result = libraryService.borrowBook(sampleUser.getUserId(), sampleBook.getIsbn());
+
+        assertFalse(result, "Borrowing should fail if another borrower took the last copy first.");
+        verify(borrowingHistoryDAO, never()).addBorrowingRecord(any(BorrowingRecord.class));
         verify(logService, never()).recordLog(any(), any(), anyString());
     }
 
@@ -95,12 +145,12 @@ public class LibraryServiceTest {
         sampleBook.setBookIdPk(0); // Simulate PK not being set
         when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
         when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook));
-        // No need to mock updateBook or addBorrowingRecord as it should fail before that
+        // No need to mock adjustAvailableCopies or addBorrowingRecord as it should fail before that
 
         boolean result = libraryService.borrowBook(sampleUser.getUserId(), sampleBook.getIsbn());
 
         assertFalse(result, "Borrowing should fail if book's primary key is missing.");
-        verify(bookDAO).updateBook(sampleBook); // It will try to update, then rollback
+        verify(bookDAO, never()).adjustAvailableCopies(anyString(), anyInt()); // Fails before touching availability
         verify(borrowingHistoryDAO, never()).addBorrowingRecord(any(BorrowingRecord.class));
         verify(logService, never()).recordLog(any(), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_BORROW), anyString());
     }
@@ -116,7 +166,7 @@ public class LibraryServiceTest {
         when(borrowingHistoryDAO.getLatestBorrowingRecordForBook(sampleBook.getBookIdPk(), sampleUser.getUserId()))
             .thenReturn(Optional.of(activeRecord));
         when(borrowingHistoryDAO.updateBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
-        when(bookDAO.updateBook(any(Book.class))).thenReturn(true);
+        when(bookDAO.adjustAvailableCopies(sampleBook.getIsbn(), 1)).thenReturn(true);
 
         // Initial state for available copies before return
         int initialAvailableCopies = sampleBook.getAvailableCopies();
@@ -126,11 +176,28 @@ public class LibraryServiceTest {
         assertTrue(result, "Returning book should succeed.");
         assertNotNull(activeRecord.getReturnDate(), "Return date should be set on the record.");
         assertEquals(initialAvailableCopies + 1, sampleBook.getAvailableCopies(), "Available copies should increment.");
-        verify(bookDAO).updateBook(sampleBook);
+        verify(bookDAO).adjustAvailableCopies(sampleBook.getIsbn(), 1);
         verify(borrowingHistoryDAO).updateBorrowingRecord(activeRecord);
         verify(logService).recordLog(eq(sampleUser.getUserId()), eq(com.librarysystem.model.LogEntry.ActionType.BOOK_RETURN), anyString());
     }
 
+    @Test
+    void testReturnBook_CommitFailsIsNotAudited() {
+        BorrowingRecord activeRecord = new BorrowingRecord(sampleBook.getBookIdPk(), sampleUser.getUserId(), LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(9));
+        activeRecord.setBorrowId(1);
+        when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
+        when(bookDAO.getBookByIsbn(sampleBook.getIsbn())).thenReturn(Optional.of(sampleBook));
+        when(borrowingHistoryDAO.getLatestBorrowingRecordForBook(sampleBook.getBookIdPk(), sampleUser.getUserId()))
+            .thenReturn(Optional.of(activeRecord));
+        when(borrowingHistoryDAO.updateBorrowingRecord(any(BorrowingRecord.class))).thenReturn(true);
+        when(bookDAO.adjustAvailableCopies(sampleBook.getIsbn(), 1)).thenReturn(true);
+
+        boolean result = libraryServiceWith(failingCommit()).returnBook(sampleUser.getUserId(), sampleBook.getIsbn());
+
+        assertFalse(result, "A return that failed to commit did not happen.");
+        verify(logService, never()).recordLog(any(), any(), anyString());
+    }
+
     @Test
     void testReturnBook_NoActiveBorrowingRecord() {
         when(userDAO.getUserById(sampleUser.getUserId())).thenReturn(Optional.of(sampleUser));
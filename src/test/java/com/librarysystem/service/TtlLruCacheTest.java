@@ -0,0 +1,139 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TtlLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> removed = new ArrayList<>();
+
+    private TtlLruCache<Integer, StringBuilder> cache(int maxEntries, long ttlMillis) {
+        return new TtlLruCache<>(maxEntries, ttlMillis, now::get, StringBuilder::new,
+                (key, value) -> removed.add(key + "=" + value));
+    }
+
+    private static void put(TtlLruCache<Integer, StringBuilder> cache, int key, String value) {
+        assertTrue(cache.putLoaded(key, new StringBuilder(value), cache.startLoad()));
+    }
+
+    @Test
+    void testNegativeBoundsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> cache(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> cache(0, -1));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(2, 60_000);
+        put(cache, 1, "a");
+        put(cache, 2, "b");
+        cache.get(1); // 2 is now least recently used
+        put(cache, 3, "c");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1).toString());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(List.of("2=b"), removed);
+    }
+
+    @Test
+    void testEntriesExpireAfterTimeToLive() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 1_000);
+        put(cache, 1, "a");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertNotNull(cache.get(1));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(cache.get(1));
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpiredCount());
+        assertEquals(List.of("1=a"), removed);
+    }
+
+    @Test
+    void testValuesAreCopiedInAndOut() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 60_000);
+        StringBuilder loaded = new StringBuilder("a");
+        assertTrue(cache.putLoaded(1, loaded, cache.startLoad()));
+        loaded.append("-changed by loader");
+        cache.get(1).append("-changed by caller");
+
+        assertEquals("a", cache.get(1).toString());
+    }
+
+    @Test
+    void testLoadRacingWithAChangeIsNotCached() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 60_000);
+        long loadGeneration = cache.startLoad();
+        cache.invalidate(1); // Value changed while the old version was being read
+        assertFalse(cache.putLoaded(1, new StringBuilder("stale"), loadGeneration));
+
+        loadGeneration = cache.startLoad();
+        cache.cancelLoads();
+        assertFalse(cache.putLoaded(1, new StringBuilder("stale"), loadGeneration));
+
+        loadGeneration = cache.startLoad();
+        cache.update(2, value -> value.append("!"));
+        assertFalse(cache.putLoaded(1, new StringBuilder("stale"), loadGeneration));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testDisabledCacheKeepsNothing() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(0, 60_000);
+
+        assertFalse(cache.putLoaded(1, new StringBuilder("a"), cache.startLoad()));
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testUpdateChangesTheCachedValueInPlace() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 60_000);
+        put(cache, 1, "a");
+        cache.update(1, value -> value.append("b"));
+        cache.update(2, value -> fail("Uncached keys must not be updated."));
+
+        assertEquals("ab", cache.get(1).toString());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEveryRemovalIsReported() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 60_000);
+        put(cache, 1, "a");
+        put(cache, 1, "b"); // Replaces the entry
+        put(cache, 2, "c");
+        cache.invalidate(1);
+        put(cache, 3, "d");
+        cache.invalidateAll();
+
+        assertEquals(List.of("1=a", "1=b", "2=c", "3=d"), removed);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testHitsAndMissesAreCounted() {
+        TtlLruCache<Integer, StringBuilder> cache = cache(10, 60_000);
+        assertEquals(0, cache.getHitRatio());
+        cache.get(1);
+        put(cache, 1, "a");
+        cache.get(1);
+        cache.get(1);
+        cache.recordMiss();
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 1e-9);
+        assertEquals("size=1, maxEntries=10, hits=2, misses=2, hitRatio=0.500, evictions=0, expirations=0", cache.stats());
+    }
+}
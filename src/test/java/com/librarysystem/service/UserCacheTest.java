@@ -0,0 +1,120 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dao.AccountDAO;
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.dao.UserDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.User;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+
+    @Mock private UserDAO userDAO;
+    @Mock private AccountDAO accountDAO;
+    @Mock private LogService logService;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static User user(int id) {
+        return new User(id, "user" + id, "salt:hash", User.Role.MEMBER);
+    }
+
+    private Optional<User> loadById(int id) {
+        loads.incrementAndGet();
+        return Optional.of(user(id));
+    }
+
+    private Optional<User> loadByUsername(String username) {
+        loads.incrementAndGet();
+        return Optional.of(user(Integer.parseInt(username.substring(4))));
+    }
+
+    @Test
+    void testLookupByIdAndUsernameShareOneEntry() {
+        UserCache cache = new UserCache(10, 60_000, now::get);
+
+        assertEquals("user1", cache.getById(1, this::loadById).get().getUsername());
+        assertEquals(1, cache.getByUsername("user1", this::loadByUsername).get().getUserId());
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testEvictedUserLeavesTheUsernameIndex() {
+        UserCache cache = new UserCache(1, 60_000, now::get);
+        cache.getById(1, this::loadById);
+        cache.getById(2, this::loadById);
+        loads.set(0);
+
+        assertEquals(1, cache.getByUsername("user1", this::loadByUsername).get().getUserId());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testMissingUsersAreNotCachedAndReturnedUsersAreCopies() {
+        UserCache cache = new UserCache(10, 60_000, now::get);
+        assertTrue(cache.getById(9, id -> Optional.empty()).isEmpty());
+        assertEquals(0, cache.size());
+
+        cache.getById(1, this::loadById).get().setRole(User.Role.ADMIN);
+        assertEquals(User.Role.MEMBER, cache.getById(1, this::loadById).get().getRole());
+    }
+
+    @Test
+    void testUserServiceInvalidatesOnRoleChangeAndDelete() {
+        UserCache cache = new UserCache(10, 60_000, now::get);
+        ActiveLoanCache activeLoans = new ActiveLoanCache(10, 60_000, now::get);
+        UserService userService = new UserService(userDAO, accountDAO, logService, cache, activeLoans, Runnable::run,
+                new TransactionManager());
+        User admin = new User(100, "admin", "salt:hash", User.Role.ADMIN);
+        when(userDAO.getUserById(1)).thenReturn(Optional.of(user(1)));
+        when(userDAO.updateUser(any(User.class))).thenReturn(true);
+        when(userDAO.deleteUser(1)).thenReturn(true);
+
+        userService.findUserById(1);
+        userService.findUserById(1);
+        verify(userDAO, times(1)).getUserById(1);
+
+        assertTrue(userService.updateUserRole(1, User.Role.ADMIN, admin));
+        assertEquals(0, cache.size());
+        userService.findUserById(1);
+        assertEquals(1, cache.size());
+
+        activeLoans.getLoans(1, id -> Collections.emptyList());
+        assertTrue(userService.deleteUser(1, admin));
+        assertEquals(0, cache.size());
+        assertEquals(0, activeLoans.size(), "A deleted user's loans must not be served from the cache.");
+        assertFalse(userService.deleteUser(100, admin), "Admins cannot delete themselves.");
+    }
+
+    @Test
+    void testBorrowExistenceCheckIsServedFromTheCache() {
+        UserCache cache = new UserCache(10, 60_000, now::get);
+        LibraryService libraryService = new LibraryService(mock(BookDAO.class), userDAO, mock(BorrowingHistoryDAO.class),
+                logService, new CatalogCache(0, 0), new CatalogSearchIndex(), cache, new ActiveLoanCache(0, 0),
+                new IsbnLocks(64), Runnable::run, new TransactionManager());
+        when(userDAO.getUserById(7)).thenReturn(Optional.of(user(7)));
+
+        libraryService.borrowBook(7, "isbn-1"); // Fails (no such book) after the user check
+        libraryService.returnBook(7, "isbn-1");
+
+        verify(userDAO, times(1)).getUserById(7);
+    }
+}
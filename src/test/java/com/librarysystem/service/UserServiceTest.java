@@ -2,19 +2,23 @@ package com.librarysystem.service;
 
 import com.librarysystem.dao.UserDAO;
 import com.librarysystem.dao.AccountDAO;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.db.TransactionManager.Transaction;
+import com.librarysystem.db.TransactionManager.TransactionException;
+import com.librarysystem.db.TransactionManager.TransactionalWork;
 import com.librarysystem.model.User;
 import com.librarysystem.model.Account;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 
+import java.sql.SQLException;
 import java.util.Optional;
 import java.math.BigDecimal;
 
@@ -33,7 +37,6 @@ public class UserServiceTest {
     @Mock
     private LogService logService;
 
-    @InjectMocks
     private UserService userService;
 
     private User sampleUser;
@@ -42,6 +45,7 @@ public class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        userService = new UserService(userDAO, accountDAO, logService, new UserCache(0, 0), new ActiveLoanCache(0, 0), Runnable::run, new TransactionManager());
         sampleUser = new User("testUser", hashedPassword, User.Role.MEMBER);
         sampleUser.setUserId(1); // Assume DAO sets this after adding
     }
@@ -96,11 +100,31 @@ public class UserServiceTest {
             boolean result = userService.registerUser("newUser", rawPassword, User.Role.MEMBER);
 
             assertFalse(result, "Registration should fail if account creation fails.");
-            verify(userDAO).deleteUser(2); // Verify rollback (user deletion)
+            verify(userDAO, never()).deleteUser(anyInt()); // Rolled back by the transaction, no compensating delete
             verify(logService, never()).recordLog(any(), eq(com.librarysystem.model.LogEntry.ActionType.ACCOUNT_CREATED), anyString());
         }
     }
 
+    @Test
+    void testRegisterUser_CommitFailsIsNotAudited() {
+        // Runs the work, then fails to commit it, as a connection lost at commit time would
+        TransactionManager transactionManager = mock(TransactionManager.class);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation -> {
+            invocation.<TransactionalWork<?>>getArgument(0).execute(mock(Transaction.class));
+            throw new TransactionException("Commit failed", new SQLException("Connection reset"));
+        });
+        userService = new UserService(userDAO, accountDAO, logService, new UserCache(0, 0), new ActiveLoanCache(0, 0), Runnable::run, transactionManager);
+        when(userDAO.getUserByUsername("newUser")).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            invocation.<User>getArgument(0).setUserId(2);
+            return true;
+        }).when(userDAO).addUser(any(User.class));
+        when(accountDAO.createAccount(any(Account.class))).thenReturn(true);
+
+        assertFalse(userService.registerUser("newUser", rawPassword, User.Role.MEMBER), "A registration that failed to commit did not happen.");
+        verify(logService, never()).recordLog(any(), any(), anyString());
+    }
+
     @Test
     void testRegisterUser_InvalidInput() {
         assertFalse(userService.registerUser(null, "pass", User.Role.MEMBER));
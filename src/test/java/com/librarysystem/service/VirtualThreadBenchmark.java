@@ -0,0 +1,173 @@
+package com.librarysystem.service;
+
+import ch.qos.logback.classic.Level;
+import com.librarysystem.dao.BookDAO;
+import com.librarysystem.dao.BorrowingHistoryDAO;
+import com.librarysystem.dao.UserDAO;
+import com.librarysystem.db.ConnectionPool;
+import com.librarysystem.db.TransactionManager;
+import com.librarysystem.model.Book;
+import com.librarysystem.model.BorrowingRecord;
+import com.librarysystem.model.User;
+import com.librarysystem.search.CatalogSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.mockito.stubbing.Answer;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 1,000 concurrent borrow-then-return sessions through the asynchronous LibraryService API, on platform threads
+ * and on virtual threads. Not part of the regular build (Surefire only runs *Test classes); run it with
+ * {@code mvn test -Dtest=VirtualThreadBenchmark}. The virtual-thread run needs a Java 21 JVM and is skipped otherwise.
+ *
+ * Every DAO call borrows a connection from a real {@link ConnectionPool} of {@value #POOL_SIZE} connections and holds
+ * it for {@value #QUERY_MILLIS} ms, standing in for a JDBC round trip. A session makes ten such calls.
+ *
+ * The fake connections take no locks, so the virtual-thread figures are a best case. The real MySQL driver does
+ * its I/O inside {@code synchronized} blocks, which on Java 21 pin a virtual thread to its carrier for the whole
+ * round trip; see {@link ServiceExecutor}.
+ */
+public class VirtualThreadBenchmark {
+    private static final int SESSIONS = 1_000;
+    private static final int POOL_SIZE = 50;
+    private static final long QUERY_MILLIS = 2;
+
+    private ConnectionPool pool;
+
+    @Test
+    void benchmarkBorrowReturnSessions() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(LibraryService.class)).setLevel(Level.WARN); // One line per borrow otherwise
+        pool = new ConnectionPool("benchmark", VirtualThreadBenchmark::fakeConnection, 0, POOL_SIZE, 60_000, 0, 0);
+        try {
+            System.out.printf("%d sessions, %d connections, %d ms per query%n", SESSIONS, POOL_SIZE, QUERY_MILLIS);
+            run("platform threads (8, the default pool)", ServiceExecutor.create(8, 8 * SESSIONS));
+            run("platform threads (" + POOL_SIZE + ", sized to the pool)", ServiceExecutor.create(POOL_SIZE, 8 * SESSIONS));
+            ExecutorService virtual = ServiceExecutor.createVirtual(POOL_SIZE);
+            if (virtual == null) {
+                System.out.println("virtual threads: skipped, Java " + System.getProperty("java.specification.version") + " has none (run on Java 21+)");
+            } else {
+                run("virtual threads (at most " + POOL_SIZE + " at once)", virtual);
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    private void run(String label, ExecutorService executor) throws Exception {
+        try {
+            LibraryService libraryService = libraryService(executor);
+            session(libraryService, 0).get(); // Warm up
+
+            int peakThreads = Thread.activeCount();
+            long[] latencies = new long[SESSIONS];
+            List<CompletableFuture<Boolean>> sessions = new ArrayList<>(SESSIONS);
+            long start = System.nanoTime();
+            for (int i = 0; i < SESSIONS; i++) {
+                int session = i;
+                long sessionStart = System.nanoTime();
+                sessions.add(session(libraryService, i + 1).whenComplete((ok, error) -> latencies[session] = System.nanoTime() - sessionStart));
+                peakThreads = Math.max(peakThreads, Thread.activeCount());
+            }
+            CompletableFuture.allOf(sessions.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.MINUTES);
+            long totalNanos = System.nanoTime() - start;
+
+            for (CompletableFuture<Boolean> session : sessions) {
+                assertTrue(session.join(), "Every session borrows and returns its own book");
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-42s total %5d ms, %6.0f sessions/s, session p50 %5d ms, p99 %5d ms, platform threads %d, pool timeouts %d%n",
+                    label, totalNanos / 1_000_000, SESSIONS / (totalNanos / 1e9),
+                    latencies[SESSIONS / 2] / 1_000_000, latencies[SESSIONS * 99 / 100] / 1_000_000,
+                    peakThreads, pool.getAcquisitionTimeouts());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static CompletableFuture<Boolean> session(LibraryService libraryService, int userId) {
+        String isbn = isbn(userId);
+        return libraryService.borrowBookAsync(userId, isbn)
+                .thenCompose(borrowed -> borrowed ? libraryService.returnBookAsync(userId, isbn) : CompletableFuture.completedFuture(false));
+    }
+
+    private static String isbn(int bookId) {
+        return String.format("978%010d", bookId);
+    }
+
+    // DAOs that only simulate a round trip: borrow a pooled connection and hold it for QUERY_MILLIS
+    private LibraryService libraryService(ExecutorService executor) {
+        BookDAO bookDAO = mock(BookDAO.class, withSettings().stubOnly());
+        UserDAO userDAO = mock(UserDAO.class, withSettings().stubOnly());
+        BorrowingHistoryDAO borrowingHistoryDAO = mock(BorrowingHistoryDAO.class, withSettings().stubOnly());
+        LogService logService = mock(LogService.class, withSettings().stubOnly());
+
+        when(userDAO.getUserById(anyInt())).thenAnswer(query(invocation ->
+                Optional.of(new User(invocation.getArgument(0), "member", "salt:hash", User.Role.MEMBER))));
+        when(bookDAO.getBookByIsbn(anyString())).thenAnswer(query(invocation -> {
+            String isbn = invocation.getArgument(0);
+            Book book = new Book(isbn, "Title", "Author", Year.of(2000), "Fiction", 2);
+            book.setAvailableCopies(1); // Room both to borrow and to return a copy
+            book.setBookIdPk(Integer.parseInt(isbn.substring(3)) + 1);
+            return Optional.of(book);
+        }));
+        when(bookDAO.adjustAvailableCopies(anyString(), anyInt())).thenAnswer(query(invocation -> true));
+        when(borrowingHistoryDAO.getActiveLoanDetailsForUser(anyInt())).thenAnswer(query(invocation -> Collections.emptyList()));
+        when(borrowingHistoryDAO.addBorrowingRecord(any(BorrowingRecord.class))).thenAnswer(query(invocation -> true));
+        when(borrowingHistoryDAO.getLatestBorrowingRecordForBook(anyInt(), anyInt())).thenAnswer(query(invocation -> {
+            LocalDateTime borrowed = LocalDateTime.now();
+            return Optional.of(new BorrowingRecord(1, invocation.getArgument(0), invocation.getArgument(1), borrowed, borrowed.plusDays(14), null));
+        }));
+        when(borrowingHistoryDAO.updateBorrowingRecord(any(BorrowingRecord.class))).thenAnswer(query(invocation -> true));
+
+        return new LibraryService(bookDAO, userDAO, borrowingHistoryDAO, logService, new CatalogCache(0, 0),
+                new CatalogSearchIndex(), new UserCache(0, 0), new ActiveLoanCache(0, 0), new IsbnLocks(64), executor,
+                new TransactionManager());
+    }
+
+    private Answer<Object> query(Answer<Object> result) {
+        return invocation -> {
+            Connection connection = pool.getConnection();
+            try {
+                Thread.sleep(QUERY_MILLIS);
+            } finally {
+                connection.close(); // Back to the pool
+            }
+            return result.answer(invocation);
+        };
+    }
+
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                        case "getAutoCommit":
+                            return true;
+                        case "isClosed":
+                            return false;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return method.getReturnType() == boolean.class ? false : method.getReturnType() == int.class ? 0 : null;
+                    }
+                });
+    }
+}
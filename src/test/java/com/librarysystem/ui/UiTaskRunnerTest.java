@@ -0,0 +1,170 @@
+package com.librarysystem.ui;
+
+import com.librarysystem.db.DatabaseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UiTaskRunnerTest {
+
+    // Stands in for the FX thread: handlers queue here and run when the test drains them
+    private final BlockingQueue<Runnable> uiQueue = new LinkedBlockingQueue<>();
+    private UiTaskRunner runner;
+
+    @AfterEach
+    void tearDown() {
+        if (runner != null) {
+            runner.close();
+        }
+    }
+
+    private void drainUntilIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runner.getPendingCount() > 0 || !uiQueue.isEmpty()) {
+            Runnable handler = uiQueue.poll(10, TimeUnit.MILLISECONDS);
+            if (handler != null) {
+                handler.run();
+            }
+            assertTrue(System.nanoTime() < deadline, "Background tasks did not finish");
+        }
+    }
+
+    private static void unexpected(Throwable error) {
+        throw new AssertionError("Unexpected failure", error);
+    }
+
+    @Test
+    void testResultIsDeliveredOnTheUiThreadAndBusyStateIsReported() throws Exception {
+        runner = new UiTaskRunner(2, 10, uiQueue::add);
+        List<String> busy = new ArrayList<>();
+        runner.setBusyListener((pending, description) -> busy.add(pending + ":" + description));
+        AtomicReference<String> workerThread = new AtomicReference<>();
+        AtomicReference<String> deliveredOn = new AtomicReference<>();
+
+        runner.submit("books", "Loading books", () -> {
+            workerThread.set(Thread.currentThread().getName());
+            return 42;
+        }, result -> {
+            assertEquals(42, result);
+            deliveredOn.set(Thread.currentThread().getName());
+        }, UiTaskRunnerTest::unexpected);
+        drainUntilIdle();
+
+        assertTrue(workerThread.get().startsWith("ui-worker-"));
+        assertEquals(Thread.currentThread().getName(), deliveredOn.get());
+        assertEquals(List.of("1:Loading books", "0:null"), busy);
+    }
+
+    @Test
+    void testNewerTaskWithTheSameKeyDropsTheOlderResult() throws Exception {
+        runner = new UiTaskRunner(2, 10, uiQueue::add);
+        CountDownLatch slowSearch = new CountDownLatch(1);
+        List<String> shown = new ArrayList<>();
+
+        runner.submit("books", "Searching books", () -> {
+            slowSearch.await();
+            return "old";
+        }, shown::add, UiTaskRunnerTest::unexpected);
+        runner.submit("books", "Searching books", () -> "new", shown::add, UiTaskRunnerTest::unexpected);
+        runner.submit(null, "Borrowing", () -> "action", shown::add, UiTaskRunnerTest::unexpected);
+        slowSearch.countDown();
+        drainUntilIdle();
+        Thread.sleep(50); // Give the superseded task time to finish, in case it would still deliver
+        drainUntilIdle();
+
+        assertTrue(shown.contains("new") && shown.contains("action"));
+        assertFalse(shown.contains("old"));
+    }
+
+    @Test
+    void testCancelledTaskDoesNotDeliver() throws Exception {
+        runner = new UiTaskRunner(1, 10, uiQueue::add);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> shown = new ArrayList<>();
+
+        UiTaskRunner.Handle handle = runner.submit("logs", "Loading logs", () -> {
+            release.await();
+            return "logs";
+        }, shown::add, UiTaskRunnerTest::unexpected);
+        UiTaskRunner.Handle queued = runner.submit("users", "Loading users", () -> "users", shown::add, UiTaskRunnerTest::unexpected);
+        assertEquals(2, runner.getPendingCount());
+        runner.cancelAll();
+        assertTrue(handle.isCancelled() && queued.isCancelled());
+        assertEquals(0, runner.getPendingCount());
+        release.countDown();
+        Thread.sleep(50);
+        drainUntilIdle();
+
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    void testTasksBeyondTheQueueCapacityAreRejected() throws Exception {
+        runner = new UiTaskRunner(1, 1, uiQueue::add);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+
+        runner.submit(null, "Running", () -> release.await(5, TimeUnit.SECONDS), result -> { }, UiTaskRunnerTest::unexpected);
+        runner.submit(null, "Queued", () -> true, result -> { }, UiTaskRunnerTest::unexpected);
+        runner.submit(null, "Rejected", () -> true, result -> unexpected(null), rejected::set);
+        assertEquals(2, runner.getPendingCount());
+        release.countDown();
+        drainUntilIdle();
+
+        assertTrue(rejected.get() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void testFailuresGoToTheFailureHandler() throws Exception {
+        runner = new UiTaskRunner(1, 10, uiQueue::add);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        runner.submit(null, "Saving", () -> {
+            throw new IllegalStateException("database down");
+        }, result -> unexpected(null), failure::set);
+        drainUntilIdle();
+
+        assertEquals("database down", failure.get().getMessage());
+    }
+
+    @Test
+    void testDatabaseSessionIsCarriedToWorkersAndBack() throws Exception {
+        runner = new UiTaskRunner(1, 10, uiQueue::add);
+        long uiWrite = System.currentTimeMillis() + 60_000;
+        AtomicReference<Long> seenByWorker = new AtomicReference<>();
+        AtomicReference<Long> seenAfterDelivery = new AtomicReference<>();
+
+        // The session mark is per thread, so a separate "UI thread" keeps it from leaking into other tests
+        ExecutorService uiThread = Executors.newSingleThreadExecutor();
+        try {
+            uiThread.submit(() -> {
+                DatabaseUtil.joinSessionWriteMark(uiWrite);
+                runner.submit(null, "Borrowing", () -> {
+                    seenByWorker.set(DatabaseUtil.getSessionWriteMark());
+                    DatabaseUtil.joinSessionWriteMark(uiWrite + 1_000); // As if the borrow used the primary
+                    return true;
+                }, result -> { }, UiTaskRunnerTest::unexpected);
+                drainUntilIdle();
+                seenAfterDelivery.set(DatabaseUtil.getSessionWriteMark());
+                return null;
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            uiThread.shutdown();
+        }
+
+        assertEquals(uiWrite, seenByWorker.get());
+        assertEquals(uiWrite + 1_000, seenAfterDelivery.get());
+    }
+}
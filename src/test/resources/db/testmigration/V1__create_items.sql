@@ -0,0 +1,7 @@
+-- Items table; this comment has a semicolon; it must not split the statement
+CREATE TABLE Items (
+    item_id INT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL /* inline; comment */
+);
+
+INSERT INTO Items (name) VALUES ('semi;colon');